@@ -0,0 +1,34 @@
+#!/bin/sh
+#
+#    Pairs, a concentration game with modular card packages.
+#    Copyright © 2012  Alexander Klauer
+#
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+#
+# Runs the click latency harness on a virtual display.
+# Build the benchmarks first (mvn package). Arguments are passed to
+# pairs.bench.ClickLatency, for example
+#
+#   ./click-latency.sh clicks=200 sizes=16,36 packages=test
+#
+# Preferences, journals and statistics go to a temporary home directory.
+
+set -e
+cd "$(dirname "$0")"
+JAR=target/benchmarks.jar
+SCREEN=${SCREEN:-1280x1024x24}
+HOME_DIR=$(mktemp -d)
+trap 'rm -rf "$HOME_DIR"' EXIT
+
+xvfb-run -a -s "-screen 0 $SCREEN" java -Duser.home="$HOME_DIR" -cp "$JAR" pairs.bench.ClickLatency "$@"
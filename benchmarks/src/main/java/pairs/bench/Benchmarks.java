@@ -0,0 +1,79 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Param;
+
+import org.openjdk.jmh.profile.GCProfiler;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import pairs.model.PlayfieldModel;
+import pairs.model.PlayfieldModelBenchmark;
+
+/**
+ * Benchmark launcher.
+ * Runs the benchmarks selected on the command line with the GC profiler enabled.
+ */
+public class Benchmarks {
+	/**
+	 * Checks that the playfield size parameters cover exactly the allowed playfield sizes.
+	 *
+	 * @throws IllegalStateException if the parameters differ from {@link PlayfieldModel#getAllowedSizes()}.
+	 */
+	static void checkPlayfieldSizes() {
+		String[] sizes;
+		try {
+			sizes = PlayfieldModelBenchmark.ConstructionState.class.getField( "size" ).getAnnotation( Param.class ).value();
+		} catch ( NoSuchFieldException e ) {
+			throw new IllegalStateException( "Playfield size parameter not found", e );
+		}
+		Integer[] allowedSizes = PlayfieldModel.getAllowedSizes();
+		String[] expected = new String[ allowedSizes.length ];
+		for ( int i = 0; i != allowedSizes.length; ++i ) {
+			expected[ i ] = allowedSizes[ i ].toString();
+		}
+		if ( !Arrays.equals( expected, sizes ) ) {
+			throw new IllegalStateException( "Playfield size parameters " + Arrays.toString( sizes )
+					+ " differ from the allowed sizes " + Arrays.toString( expected ) );
+		}
+	}
+
+	/**
+	 * Entry point.
+	 *
+	 * @param args JMH command line options.
+	 *
+	 * @throws CommandLineOptionException if the command line is invalid.
+	 * @throws IllegalStateException if the benchmark parameters are out of date.
+	 * @throws RunnerException if a benchmark fails.
+	 */
+	public static void main( String... args ) throws CommandLineOptionException, RunnerException {
+		checkPlayfieldSizes();
+		CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+		new Runner( new OptionsBuilder().parent( commandLineOptions ).addProfiler( GCProfiler.class ).build() ).run();
+	}
+}
@@ -0,0 +1,437 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.awt.AWTException;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Robot;
+
+import java.awt.event.InputEvent;
+
+import java.awt.image.BufferedImage;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import java.lang.reflect.InvocationTargetException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import java.util.concurrent.CountDownLatch;
+
+import javax.swing.AbstractButton;
+import javax.swing.SwingUtilities;
+
+import pairs.data.CardPackage;
+
+import pairs.model.PlayfieldModel;
+
+import pairs.sim.Distribution;
+
+import pairs.tools.CommandLine;
+
+import pairs.ui.MainWindow;
+
+import static pairs.util.MessageKeys.*;
+
+/**
+ * End-to-end click latency harness.
+ *
+ * The harness opens the main window, starts games through {@link MainWindow#resetPlayfield(CardPackage, int)}
+ * and clicks face down cards with a {@link Robot}. The latency of a click is the time from the mouse press
+ * until the centre of the card button shows the card face on screen, so it covers event dispatch,
+ * card rendering and painting. The face is the picture the screen settles on once the button has been given
+ * its face and repainted; intermediate pictures, such as the pressed button look painted by the look and feel
+ * before the release, do not count. Card buttons are found by their component names, "card-" followed by the card index.
+ *
+ * The harness needs a display. On a headless machine, run it through click-latency.sh, which starts Xvfb.
+ */
+public class ClickLatency {
+	/**
+	 * Card button component name prefix.
+	 */
+	private static final String CARD_PREFIX = "card-";
+
+	/**
+	 * Face down card text.
+	 */
+	private static final String UNKNOWN_CARD_TEXT = "?";
+
+	/**
+	 * Time to wait for cards to be turned over again after a turn (ms).
+	 */
+	private static final long TURN_WAIT = 1300;
+
+	/**
+	 * Time to wait for a new playfield to be painted (ms).
+	 */
+	private static final long SETTLE_WAIT = 500;
+
+	/**
+	 * Latency resolution (µs).
+	 */
+	private static final long RESOLUTION = 10;
+
+	/**
+	 * Robot clicking cards and capturing the screen.
+	 */
+	private final Robot robot;
+
+	/**
+	 * Main window.
+	 */
+	private final MainWindow mainWindow;
+
+	/**
+	 * Maximum time to wait for a card face to appear (ms).
+	 */
+	private final long timeout;
+
+	/**
+	 * Randomness source for choosing cards.
+	 */
+	private final SplittableRandom random;
+
+	/**
+	 * Card buttons of the current game, by card index.
+	 */
+	private AbstractButton[] cardButtons;
+
+	/**
+	 * On screen areas of the card buttons of the current game, by card index.
+	 * The area of a card is the central quarter of its button, where the card face is painted.
+	 */
+	private Rectangle[] cardAreas;
+
+	/**
+	 * Creates a new click latency harness and opens the main window.
+	 *
+	 * @param timeout Maximum time to wait for a card face to appear (ms).
+	 * @param seed Seed for choosing cards.
+	 *
+	 * @throws AWTException if there is no display.
+	 * @throws InterruptedException if interrupted while opening the main window.
+	 * @throws InvocationTargetException if the main window cannot be opened.
+	 */
+	public ClickLatency( long timeout, long seed ) throws AWTException, InterruptedException, InvocationTargetException {
+		this.robot = new Robot();
+		this.timeout = timeout;
+		this.random = new SplittableRandom( seed );
+		final MainWindow[] window = new MainWindow[ 1 ];
+		SwingUtilities.invokeAndWait( new Runnable() {
+			public void run() {
+				window[ 0 ] = new MainWindow();
+			}
+		} );
+		this.mainWindow = window[ 0 ];
+	}
+
+	/**
+	 * Collects the card buttons of a container.
+	 *
+	 * @param container Container to search.
+	 * @param buttons List the card buttons are added to, by card index.
+	 */
+	private static void collectCardButtons( Container container, List<AbstractButton> buttons ) {
+		for ( Component component: container.getComponents() ) {
+			String name = component.getName();
+			if ( ( name != null ) && name.startsWith( CARD_PREFIX ) && ( component instanceof AbstractButton ) ) {
+				int index = Integer.parseInt( name.substring( CARD_PREFIX.length() ) );
+				while ( buttons.size() <= index ) {
+					buttons.add( null );
+				}
+				buttons.set( index, (AbstractButton) component );
+			} else if ( component instanceof Container ) {
+				collectCardButtons( (Container) component, buttons );
+			}
+		}
+	}
+
+	/**
+	 * Starts a new game and finds its card buttons and their on screen areas.
+	 *
+	 * @param cardPackage Card package.
+	 * @param size Playfield size.
+	 *
+	 * @throws InterruptedException if interrupted while starting the game.
+	 * @throws InvocationTargetException if the game cannot be started.
+	 */
+	private void startGame( final CardPackage cardPackage, final int size ) throws InterruptedException, InvocationTargetException {
+		final List<AbstractButton> buttons = new ArrayList<AbstractButton>();
+		final List<Rectangle> areas = new ArrayList<Rectangle>();
+		SwingUtilities.invokeAndWait( new Runnable() {
+			public void run() {
+				mainWindow.resetPlayfield( cardPackage, size );
+				mainWindow.toFront();
+			}
+		} );
+		robot.waitForIdle();
+		robot.delay( (int) SETTLE_WAIT );
+		SwingUtilities.invokeAndWait( new Runnable() {
+			public void run() {
+				collectCardButtons( mainWindow.getContentPane(), buttons );
+				for ( AbstractButton button: buttons ) {
+					Point location = button.getLocationOnScreen();
+					int width = button.getWidth();
+					int height = button.getHeight();
+					areas.add( new Rectangle( location.x + width / 4, location.y + height / 4, width / 2, height / 2 ) );
+				}
+			}
+		} );
+		cardButtons = buttons.toArray( new AbstractButton[ buttons.size() ] );
+		cardAreas = areas.toArray( new Rectangle[ areas.size() ] );
+	}
+
+	/**
+	 * Returns the indices of the face down cards.
+	 *
+	 * @return The indices of the cards currently showing the face down text are returned.
+	 *
+	 * @throws InterruptedException if interrupted while inspecting the playfield.
+	 * @throws InvocationTargetException if the playfield cannot be inspected.
+	 */
+	private int[] getFaceDownCards() throws InterruptedException, InvocationTargetException {
+		final List<AbstractButton> buttons = new ArrayList<AbstractButton>();
+		final int[][] result = new int[ 1 ][];
+		SwingUtilities.invokeAndWait( new Runnable() {
+			public void run() {
+				collectCardButtons( mainWindow.getContentPane(), buttons );
+				int[] indices = new int[ buttons.size() ];
+				int count = 0;
+				for ( int i = 0; i != buttons.size(); ++i ) {
+					if ( UNKNOWN_CARD_TEXT.equals( buttons.get( i ).getText() ) ) {
+						indices[ count++ ] = i;
+					}
+				}
+				result[ 0 ] = Arrays.copyOf( indices, count );
+			}
+		} );
+		return result[ 0 ];
+	}
+
+	/**
+	 * Clicks a card and waits for its face to appear.
+	 * The screen is captured continuously. Once the button has been given its face, a marker is passed twice
+	 * through the event queue, so it runs after the repaint requested by the click. The capture taken after the marker
+	 * is the card face, and the click latency ends at the last change of the captured pictures before it.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return The latency from the mouse press until the card face appears is returned in µs, or -1 on timeout.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the event queue.
+	 * @throws InvocationTargetException if the card button cannot be observed.
+	 */
+	private long click( int i ) throws InterruptedException, InvocationTargetException {
+		final AbstractButton button = cardButtons[ i ];
+		Rectangle area = cardAreas[ i ];
+		final CountDownLatch faceSet = new CountDownLatch( 1 );
+		final CountDownLatch painted = new CountDownLatch( 1 );
+		final PropertyChangeListener listener = new PropertyChangeListener() {
+			public void propertyChange( PropertyChangeEvent event ) {
+				if ( !UNKNOWN_CARD_TEXT.equals( button.getText() ) || ( button.getIcon() != null ) ) {
+					faceSet.countDown();
+				}
+			}
+		};
+		SwingUtilities.invokeAndWait( new Runnable() {
+			public void run() {
+				button.addPropertyChangeListener( listener );
+			}
+		} );
+		try {
+			BufferedImage previous = robot.createScreenCapture( area );
+			robot.mouseMove( area.x + area.width / 2, area.y + area.height / 2 );
+			robot.waitForIdle();
+			long start = System.nanoTime();
+			robot.mousePress( InputEvent.BUTTON1_DOWN_MASK );
+			robot.mouseRelease( InputEvent.BUTTON1_DOWN_MASK );
+			long deadline = start + timeout * 1000000;
+			long lastChange = -1;
+			boolean markerPosted = false;
+			do {
+				boolean settled = painted.getCount() == 0;
+				BufferedImage current = robot.createScreenCapture( area );
+				long now = System.nanoTime();
+				if ( !equalPixels( previous, current ) ) {
+					previous = current;
+					lastChange = now;
+				}
+				if ( settled ) {
+					return lastChange < 0 ? -1 : ( lastChange - start ) / 1000;
+				}
+				if ( !markerPosted && ( faceSet.getCount() == 0 ) ) {
+					SwingUtilities.invokeLater( new Runnable() {
+						public void run() {
+							SwingUtilities.invokeLater( new Runnable() {
+								public void run() {
+									painted.countDown();
+								}
+							} );
+						}
+					} );
+					markerPosted = true;
+				}
+			} while ( System.nanoTime() < deadline );
+			return -1;
+		} finally {
+			SwingUtilities.invokeAndWait( new Runnable() {
+				public void run() {
+					button.removePropertyChangeListener( listener );
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Compares two images pixel by pixel.
+	 *
+	 * @param a First image.
+	 * @param b Second image of the same size.
+	 *
+	 * @return True is returned if all pixels are equal, false otherwise.
+	 */
+	private static boolean equalPixels( BufferedImage a, BufferedImage b ) {
+		for ( int y = 0; y != a.getHeight(); ++y ) {
+			for ( int x = 0; x != a.getWidth(); ++x ) {
+				if ( a.getRGB( x, y ) != b.getRGB( x, y ) ) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Measures click latencies.
+	 * Turns of two random face down cards are played until enough clicks have been measured,
+	 * starting a new game whenever fewer than two cards are left face down.
+	 *
+	 * @param cardPackage Card package.
+	 * @param size Playfield size.
+	 * @param clicks Number of clicks to measure.
+	 *
+	 * @return The distribution of latencies in units of {@link #RESOLUTION} µs is returned.
+	 * 	Clicks timing out are not included.
+	 *
+	 * @throws InterruptedException if interrupted.
+	 * @throws InvocationTargetException if the playfield cannot be started or inspected.
+	 */
+	public Distribution measure( CardPackage cardPackage, int size, int clicks ) throws InterruptedException, InvocationTargetException {
+		Distribution result = new Distribution();
+		startGame( cardPackage, size );
+		for ( int measured = 0; measured < clicks; ) {
+			int[] faceDown = getFaceDownCards();
+			if ( faceDown.length < 2 ) {
+				startGame( cardPackage, size );
+				continue;
+			}
+			int first = random.nextInt( faceDown.length );
+			int second = random.nextInt( faceDown.length - 1 );
+			if ( second >= first ) {
+				++second;
+			}
+			for ( int card: new int[] { faceDown[ first ], faceDown[ second ] } ) {
+				if ( measured == clicks ) {
+					break;
+				}
+				long latency = click( card );
+				if ( latency >= 0 ) {
+					result.add( (int) ( latency / RESOLUTION ) );
+				}
+				++measured;
+			}
+			Thread.sleep( TURN_WAIT );
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the main window.
+	 */
+	public void close() {
+		SwingUtilities.invokeLater( new Runnable() {
+			public void run() {
+				mainWindow.dispose();
+			}
+		} );
+	}
+
+	/**
+	 * Formats a latency.
+	 *
+	 * @param value Latency in units of {@link #RESOLUTION} µs.
+	 *
+	 * @return The latency in ms is returned.
+	 */
+	private static String format( double value ) {
+		return String.format( Locale.ROOT, "%.2f", value * RESOLUTION / 1000 );
+	}
+
+	/**
+	 * Runs the harness and prints click latency percentiles in ms per package and size.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>clicks: Number of clicks per configuration (default 100).</li>
+	 * 	<li>packages: Comma-separated card package names (default: all packages).</li>
+	 * 	<li>sizes: Comma-separated playfield sizes (default: all allowed sizes).</li>
+	 * 	<li>timeout: Maximum time to wait for a card face in ms (default 5000).</li>
+	 * 	<li>seed: Seed for choosing cards (default 0).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 *
+	 * @throws Exception if the harness fails.
+	 */
+	public static void main( String... args ) throws Exception {
+		CommandLine commandLine = new CommandLine( args, ERROR_BENCHMARKARG, "clicks", "packages", "sizes", "timeout", "seed" );
+		int clicks = commandLine.getInt( "clicks", 100 );
+		List<CardPackage> cardPackages = commandLine.getCardPackages( "packages" );
+		List<Integer> sizes = commandLine.getIntList( "sizes", Arrays.asList( PlayfieldModel.getAllowedSizes() ) );
+		long timeout = commandLine.getLong( "timeout", 5000 );
+		long seed = commandLine.getLong( "seed", 0 );
+
+		ClickLatency harness = new ClickLatency( timeout, seed );
+		try {
+			System.out.println( "package\tsize\tclicks\ttimeouts\tmean\tp50\tp90\tp99\tmax" );
+			for ( CardPackage cardPackage: cardPackages ) {
+				for ( int size: sizes ) {
+					if ( size / 2 > cardPackage.size() ) {
+						continue;
+					}
+					Distribution distribution = harness.measure( cardPackage, size, clicks );
+					System.out.println( String.format( Locale.ROOT, "%s\t%d\t%d\t%d\t%s\t%s\t%s\t%s\t%s",
+							cardPackage.getKey(), size, clicks, clicks - distribution.getCount(),
+							format( distribution.getMean() ), format( distribution.getPercentile( 50 ) ),
+							format( distribution.getPercentile( 90 ) ), format( distribution.getPercentile( 99 ) ),
+							format( distribution.getMax() ) ) );
+				}
+			}
+		} finally {
+			harness.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.io.IOException;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pairs.data.CardPackage;
+
+/**
+ * Class loader loading pairs classes and resources afresh.
+ *
+ * Classes in the pairs packages are loaded by this class loader even if the parent could load them,
+ * so their static initialisation runs again. Resources are looked up in the override directory first,
+ * then in the pairs class path, then in the parent. All other classes come from the parent.
+ */
+class IsolatedClassLoader extends URLClassLoader {
+	/**
+	 * Package prefix of classes loaded by this class loader.
+	 */
+	private static final String PREFIX = "pairs.";
+
+	/**
+	 * Creates a new isolated class loader.
+	 *
+	 * @param overrides Directory with resources overriding the bundled ones, or null.
+	 *
+	 * @throws IOException if a class path location cannot be converted to a URL.
+	 */
+	IsolatedClassLoader( Path overrides ) throws IOException {
+		super( getUrls( overrides ), IsolatedClassLoader.class.getClassLoader() );
+	}
+
+	/**
+	 * Collects the class path of this class loader.
+	 *
+	 * @param overrides Directory with resources overriding the bundled ones, or null.
+	 *
+	 * @return The class path is returned.
+	 *
+	 * @throws IOException if a class path location cannot be converted to a URL.
+	 */
+	private static URL[] getUrls( Path overrides ) throws IOException {
+		List<URL> result = new ArrayList<URL>();
+		if ( overrides != null ) {
+			result.add( overrides.toUri().toURL() );
+		}
+		result.add( CardPackage.class.getProtectionDomain().getCodeSource().getLocation() );
+		URL benchmarks = IsolatedClassLoader.class.getProtectionDomain().getCodeSource().getLocation();
+		if ( !result.contains( benchmarks ) ) {
+			result.add( benchmarks );
+		}
+		return result.toArray( new URL[ result.size() ] );
+	}
+
+	protected @Override Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+		if ( !name.startsWith( PREFIX ) ) {
+			return super.loadClass( name, resolve );
+		}
+		synchronized ( getClassLoadingLock( name ) ) {
+			Class<?> result = findLoadedClass( name );
+			if ( result == null ) {
+				result = findClass( name );
+			}
+			if ( resolve ) {
+				resolveClass( result );
+			}
+			return result;
+		}
+	}
+
+	public @Override URL getResource( String name ) {
+		URL result = findResource( name );
+		return result != null ? result : super.getResource( name );
+	}
+}
@@ -0,0 +1,128 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.util.concurrent.Callable;
+
+import pairs.data.CardPackage;
+
+import pairs.util.Copyright;
+import pairs.util.ImageResourceLoader;
+import pairs.util.Licence;
+import pairs.util.Message;
+import pairs.util.Resources;
+
+/**
+ * Loading operation run inside an {@link IsolatedClassLoader}.
+ * Instances are created reflectively in the isolated class loader and called through {@link Callable},
+ * so all pairs classes they touch are loaded and initialised by that class loader.
+ */
+public class LoadTask implements Callable<Object> {
+	/**
+	 * Loads a card package.
+	 */
+	public static final String PACKAGE_GET = "packageGet";
+
+	/**
+	 * Loads all card packages.
+	 */
+	public static final String PACKAGE_GET_ALL = "packageGetAll";
+
+	/**
+	 * Loads an image.
+	 */
+	public static final String IMAGE_LOAD = "imageLoad";
+
+	/**
+	 * Loads all copyrights.
+	 */
+	public static final String COPYRIGHT_GET_ALL = "copyrightGetAll";
+
+	/**
+	 * Loads a licence text.
+	 */
+	public static final String LICENCE_GET_TEXT = "licenceGetText";
+
+	/**
+	 * Loads a resource.
+	 */
+	public static final String LOAD_RESOURCE = "loadResource";
+
+	/**
+	 * Looks up a message.
+	 */
+	public static final String MESSAGE = "message";
+
+	/**
+	 * Operation.
+	 */
+	private final String operation;
+
+	/**
+	 * Operation argument.
+	 */
+	private final String argument;
+
+	/**
+	 * Creates a new load task.
+	 *
+	 * @param operation Operation, one of the constants of this class.
+	 * @param argument Operation argument, or null if the operation takes none.
+	 */
+	public LoadTask( String operation, String argument ) {
+		this.operation = operation;
+		this.argument = argument;
+	}
+
+	/**
+	 * Creates a load task in a class loader.
+	 *
+	 * @param classLoader Class loader.
+	 * @param operation Operation, one of the constants of this class.
+	 * @param argument Operation argument, or null if the operation takes none.
+	 *
+	 * @return A new load task in the specified class loader is returned.
+	 *
+	 * @throws ReflectiveOperationException if the task cannot be created.
+	 */
+	@SuppressWarnings( "unchecked" )
+	static Callable<Object> create( ClassLoader classLoader, String operation, String argument ) throws ReflectiveOperationException {
+		Class<?> taskClass = Class.forName( LoadTask.class.getName(), false, classLoader );
+		return (Callable<Object>) taskClass.getConstructor( String.class, String.class ).newInstance( operation, argument );
+	}
+
+	public Object call() throws Exception {
+		if ( PACKAGE_GET.equals( operation ) ) {
+			return CardPackage.get( argument );
+		} else if ( PACKAGE_GET_ALL.equals( operation ) ) {
+			return CardPackage.getAll();
+		} else if ( IMAGE_LOAD.equals( operation ) ) {
+			return ImageResourceLoader.load( argument );
+		} else if ( COPYRIGHT_GET_ALL.equals( operation ) ) {
+			return Copyright.getAll();
+		} else if ( LICENCE_GET_TEXT.equals( operation ) ) {
+			return Licence.get( argument ).getText();
+		} else if ( LOAD_RESOURCE.equals( operation ) ) {
+			return Resources.loadResourceAsString( argument );
+		} else if ( MESSAGE.equals( operation ) ) {
+			return Message.__( argument );
+		}
+		throw new IllegalArgumentException( operation );
+	}
+}
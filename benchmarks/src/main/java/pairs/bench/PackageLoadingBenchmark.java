@@ -0,0 +1,199 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pairs.data.GeneratedPackages;
+
+import pairs.tools.PackageGenerator;
+
+/**
+ * Card package loading benchmark.
+ *
+ * Cold benchmarks run each load once in a fresh {@link IsolatedClassLoader}, so class loading,
+ * static initialisation of the package and message databases and the first JSON parse are counted.
+ * Warm benchmarks repeat the load in a class loader which has already loaded the package once.
+ * With pairs set to 0, the bundled test package is loaded, otherwise a text-only package of that many pairs
+ * written by {@link PackageGenerator} next to the bundled packages.
+ */
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PackageLoadingBenchmark {
+	/**
+	 * Number of card pairs of the synthetic package, or 0 for the bundled test package.
+	 */
+	@Param( { "0", "1000", "10000", "100000" } )
+	public int pairs;
+
+	/**
+	 * Generated database directory, or null.
+	 */
+	private Path overrides;
+
+	/**
+	 * Name of the loaded package.
+	 */
+	private String packageName;
+
+	/**
+	 * Class loader for warm loads.
+	 */
+	private IsolatedClassLoader warmClassLoader;
+
+	/**
+	 * Class loader for cold loads.
+	 */
+	private IsolatedClassLoader coldClassLoader;
+
+	/**
+	 * Warm package load.
+	 */
+	private Callable<Object> warmGet;
+
+	/**
+	 * Warm load of all packages.
+	 */
+	private Callable<Object> warmGetAll;
+
+	/**
+	 * Cold package load.
+	 */
+	private Callable<Object> coldGet;
+
+	/**
+	 * Cold load of all packages.
+	 */
+	private Callable<Object> coldGetAll;
+
+	/**
+	 * Creates the database and warms up the warm class loader.
+	 *
+	 * @throws Exception if the setup fails.
+	 */
+	@Setup( Level.Trial ) public void setupTrial() throws Exception {
+		if ( pairs == 0 ) {
+			overrides = null;
+			packageName = "test";
+		} else {
+			overrides = GeneratedPackages.generate( pairs );
+			packageName = PackageGenerator.PACKAGE_NAME;
+		}
+		warmClassLoader = new IsolatedClassLoader( overrides );
+		warmGet = LoadTask.create( warmClassLoader, LoadTask.PACKAGE_GET, packageName );
+		warmGetAll = LoadTask.create( warmClassLoader, LoadTask.PACKAGE_GET_ALL, null );
+		warmGet.call();
+		warmGetAll.call();
+	}
+
+	/**
+	 * Creates a fresh class loader for cold loads.
+	 *
+	 * @throws Exception if the setup fails.
+	 */
+	@Setup( Level.Iteration ) public void setupIteration() throws Exception {
+		if ( coldClassLoader != null ) {
+			coldClassLoader.close();
+		}
+		coldClassLoader = new IsolatedClassLoader( overrides );
+		coldGet = LoadTask.create( coldClassLoader, LoadTask.PACKAGE_GET, packageName );
+		coldGetAll = LoadTask.create( coldClassLoader, LoadTask.PACKAGE_GET_ALL, null );
+	}
+
+	/**
+	 * Closes the class loaders and deletes the database.
+	 *
+	 * @throws IOException if the database cannot be deleted.
+	 */
+	@TearDown( Level.Trial ) public void tearDown() throws IOException {
+		warmClassLoader.close();
+		coldClassLoader.close();
+		if ( overrides != null ) {
+			GeneratedPackages.delete( overrides );
+		}
+	}
+
+	/**
+	 * Loads the package in a fresh class loader.
+	 *
+	 * @return The package is returned.
+	 *
+	 * @throws Exception if loading fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.SingleShotTime ) @Warmup( iterations = 5 ) @Measurement( iterations = 20 )
+	public Object coldGet() throws Exception {
+		return coldGet.call();
+	}
+
+	/**
+	 * Loads all packages in a fresh class loader.
+	 *
+	 * @return The packages are returned.
+	 *
+	 * @throws Exception if loading fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.SingleShotTime ) @Warmup( iterations = 5 ) @Measurement( iterations = 20 )
+	public Object coldGetAll() throws Exception {
+		return coldGetAll.call();
+	}
+
+	/**
+	 * Loads the package again.
+	 *
+	 * @return The package is returned.
+	 *
+	 * @throws Exception if loading fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.AverageTime ) @Warmup( iterations = 5, time = 1 ) @Measurement( iterations = 5, time = 1 )
+	public Object warmGet() throws Exception {
+		return warmGet.call();
+	}
+
+	/**
+	 * Loads all packages again.
+	 *
+	 * @return The packages are returned.
+	 *
+	 * @throws Exception if loading fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.AverageTime ) @Warmup( iterations = 5, time = 1 ) @Measurement( iterations = 5, time = 1 )
+	public Object warmGetAll() throws Exception {
+		return warmGetAll.call();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.bench;
+
+import java.io.IOException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resource and database loading benchmark.
+ *
+ * As in {@link PackageLoadingBenchmark}, cold benchmarks run in a fresh {@link IsolatedClassLoader}
+ * per iteration, so static initialisation is counted, while warm benchmarks reuse a class loader.
+ */
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ResourceLoadingBenchmark {
+	/**
+	 * Task: an operation of {@link LoadTask}, optionally followed by a colon and the argument.
+	 */
+	@Param( {
+		LoadTask.IMAGE_LOAD + ":alligator",
+		LoadTask.COPYRIGHT_GET_ALL,
+		LoadTask.LICENCE_GET_TEXT + ":CC0",
+		LoadTask.LOAD_RESOURCE + ":packages/test.json",
+		LoadTask.MESSAGE + ":package-test"
+	} )
+	public String task;
+
+	/**
+	 * Class loader for warm loads.
+	 */
+	private IsolatedClassLoader warmClassLoader;
+
+	/**
+	 * Class loader for cold loads.
+	 */
+	private IsolatedClassLoader coldClassLoader;
+
+	/**
+	 * Warm task.
+	 */
+	private Callable<Object> warmTask;
+
+	/**
+	 * Cold task.
+	 */
+	private Callable<Object> coldTask;
+
+	/**
+	 * Creates a task in a class loader.
+	 *
+	 * @param classLoader Class loader.
+	 *
+	 * @return The task selected by the parameter is returned.
+	 *
+	 * @throws ReflectiveOperationException if the task cannot be created.
+	 */
+	private Callable<Object> createTask( ClassLoader classLoader ) throws ReflectiveOperationException {
+		int separator = task.indexOf( ':' );
+		if ( separator < 0 ) {
+			return LoadTask.create( classLoader, task, null );
+		}
+		return LoadTask.create( classLoader, task.substring( 0, separator ), task.substring( separator + 1 ) );
+	}
+
+	/**
+	 * Warms up the warm class loader.
+	 *
+	 * @throws Exception if the setup fails.
+	 */
+	@Setup( Level.Trial ) public void setupTrial() throws Exception {
+		warmClassLoader = new IsolatedClassLoader( null );
+		warmTask = createTask( warmClassLoader );
+		warmTask.call();
+	}
+
+	/**
+	 * Creates a fresh class loader for cold loads.
+	 *
+	 * @throws Exception if the setup fails.
+	 */
+	@Setup( Level.Iteration ) public void setupIteration() throws Exception {
+		if ( coldClassLoader != null ) {
+			coldClassLoader.close();
+		}
+		coldClassLoader = new IsolatedClassLoader( null );
+		coldTask = createTask( coldClassLoader );
+	}
+
+	/**
+	 * Closes the class loaders.
+	 *
+	 * @throws IOException if a class loader cannot be closed.
+	 */
+	@TearDown( Level.Trial ) public void tearDown() throws IOException {
+		warmClassLoader.close();
+		coldClassLoader.close();
+	}
+
+	/**
+	 * Runs the task in a fresh class loader.
+	 *
+	 * @return The task result is returned.
+	 *
+	 * @throws Exception if the task fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.SingleShotTime ) @Warmup( iterations = 5 ) @Measurement( iterations = 20 )
+	public Object cold() throws Exception {
+		return coldTask.call();
+	}
+
+	/**
+	 * Runs the task again.
+	 *
+	 * @return The task result is returned.
+	 *
+	 * @throws Exception if the task fails.
+	 */
+	@Benchmark @BenchmarkMode( Mode.AverageTime ) @Warmup( iterations = 5, time = 1 ) @Measurement( iterations = 5, time = 1 )
+	public Object warm() throws Exception {
+		return warmTask.call();
+	}
+}
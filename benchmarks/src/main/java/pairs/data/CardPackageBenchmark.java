@@ -0,0 +1,92 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import java.io.IOException;
+
+import java.util.SplittableRandom;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Card package sampling benchmark.
+ * Sampling should cost the same regardless of the package size.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class CardPackageBenchmark {
+	/**
+	 * Number of card pairs in the package.
+	 */
+	@Param( { "72", "1000", "10000", "100000" } )
+	public int packagePairs;
+
+	/**
+	 * Sample size. 72 pairs fill the largest playfield.
+	 */
+	@Param( { "8", "72" } )
+	public int sampleSize;
+
+	/**
+	 * Card package.
+	 */
+	private CardPackage cardPackage;
+
+	/**
+	 * Randomness source.
+	 */
+	private SplittableRandom random;
+
+	/**
+	 * Creates the card package and interns all of its cards,
+	 * so the benchmark does not measure first time interning.
+	 *
+	 * @throws IOException if the package cannot be generated.
+	 */
+	@Setup public void setup() throws IOException {
+		cardPackage = GeneratedPackages.create( packagePairs );
+		cardPackage.createRandomSample( packagePairs, new SplittableRandom( 0 ) );
+		random = new SplittableRandom( 42 );
+	}
+
+	/**
+	 * Samples the package.
+	 *
+	 * @return The sample is returned.
+	 */
+	@Benchmark public CardPair[] createRandomSample() {
+		return cardPackage.createRandomSample( sampleSize, random );
+	}
+}
@@ -0,0 +1,96 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+import pairs.tools.PackageGenerator;
+
+/**
+ * Text-only card packages of arbitrary size for benchmarks, written by {@link PackageGenerator}.
+ * The class lives in pairs.data to read a generated package without a resource override.
+ */
+public class GeneratedPackages {
+	/**
+	 * Writes a text-only package and the package database into a new temporary directory.
+	 *
+	 * @param pairs Number of card pairs.
+	 *
+	 * @return The directory holding the database is returned. It can be used as a resource override directory.
+	 *
+	 * @throws IOException if the database cannot be written.
+	 */
+	public static Path generate( int pairs ) throws IOException {
+		Path directory = Files.createTempDirectory( "pairs-bench" );
+		new PackageGenerator( directory, pairs, 0, 1, 0, 0 ).generate();
+		return directory;
+	}
+
+	/**
+	 * Creates a text-only card package.
+	 *
+	 * @param pairs Number of card pairs.
+	 *
+	 * @return A new card package with the specified number of pairs is returned.
+	 *
+	 * @throws IOException if the package cannot be generated.
+	 */
+	public static CardPackage create( int pairs ) throws IOException {
+		Path directory = generate( pairs );
+		try {
+			String jsonText = new String( Files.readAllBytes( directory.resolve( PackageGenerator.PACKAGE_RESOURCE ) ), StandardCharsets.UTF_8 );
+			return CardPackage.read( PackageGenerator.PACKAGE_NAME, "package-" + PackageGenerator.PACKAGE_NAME, jsonText );
+		} finally {
+			delete( directory );
+		}
+	}
+
+	/**
+	 * Deletes a generated database.
+	 *
+	 * @param directory Directory returned by {@link #generate(int)}.
+	 *
+	 * @throws IOException if the database cannot be deleted.
+	 */
+	public static void delete( Path directory ) throws IOException {
+		Files.walkFileTree( directory, new SimpleFileVisitor<Path>() {
+			public @Override FileVisitResult visitFile( Path file, BasicFileAttributes attributes ) throws IOException {
+				Files.delete( file );
+				return FileVisitResult.CONTINUE;
+			}
+
+			public @Override FileVisitResult postVisitDirectory( Path dir, IOException e ) throws IOException {
+				if ( e != null ) {
+					throw e;
+				}
+				Files.delete( dir );
+				return FileVisitResult.CONTINUE;
+			}
+		} );
+	}
+}
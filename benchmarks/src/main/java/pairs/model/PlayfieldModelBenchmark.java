@@ -0,0 +1,309 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.io.IOException;
+
+import java.util.Arrays;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import pairs.data.CardPackage;
+import pairs.data.GeneratedPackages;
+
+import static pairs.model.PlayfieldChangeListener.*;
+
+/**
+ * Playfield model benchmarks: construction, picking and listener notification.
+ * The benchmark lives in pairs.model to reach the protected listener notification.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PlayfieldModelBenchmark {
+	/**
+	 * Card package large enough for every playfield size.
+	 */
+	private static final CardPackage cardPackage;
+
+	static {
+		try {
+			cardPackage = GeneratedPackages.create( 72 );
+		} catch ( IOException e ) {
+			throw new IllegalStateException( e );
+		}
+	}
+
+	/**
+	 * Checks that a size is an allowed playfield size.
+	 *
+	 * @param size Playfield size.
+	 *
+	 * @throws IllegalArgumentException if size is not allowed.
+	 */
+	private static void checkSize( int size ) {
+		if ( !Arrays.asList( PlayfieldModel.getAllowedSizes() ).contains( size ) ) {
+			throw new IllegalArgumentException( "Not an allowed playfield size: " + size );
+		}
+	}
+
+	/**
+	 * Number of turns per measured batch of {@link #pickTurn(PickState)}.
+	 */
+	static final int TURNS_PER_BATCH = 100000;
+
+	/**
+	 * Construction state.
+	 */
+	@State( Scope.Thread )
+	public static class ConstructionState {
+		/**
+		 * Playfield size, one of the allowed sizes.
+		 * The launcher refuses to run if this list differs from {@link PlayfieldModel#getAllowedSizes()}.
+		 */
+		@Param( {
+			"2", "4", "6", "8", "10",
+			"12", "16", "18", "20", "24",
+			"28", "30", "32", "36", "40",
+			"42", "48", "50", "54", "56",
+			"60", "64", "66", "70", "72",
+			"80", "84", "88", "90", "96",
+			"100", "108", "110", "120", "132",
+			"144"
+		} )
+		public int size;
+
+		/**
+		 * Next layout seed.
+		 */
+		long seed;
+
+		/**
+		 * Checks the parameters.
+		 */
+		@Setup public void setup() {
+			checkSize( size );
+		}
+	}
+
+	/**
+	 * Creates a playfield model.
+	 *
+	 * @param state Construction state.
+	 *
+	 * @return The new playfield model is returned.
+	 */
+	@Benchmark public PlayfieldModel construct( ConstructionState state ) {
+		return new PlayfieldModel( cardPackage, state.size, state.seed++ );
+	}
+
+	/**
+	 * Pick state.
+	 * Turns are scripted: a matching turn picks the next pair, a mismatching turn picks two cards of different pairs.
+	 * Once all pairs are won, play moves on to the next playfield of a pool built from the same seed before each iteration,
+	 * so no playfield is built while measuring.
+	 */
+	@State( Scope.Thread )
+	public static class PickState {
+		/**
+		 * Playfield size.
+		 */
+		@Param( { "16", "144" } )
+		public int size;
+
+		/**
+		 * Percentage of mismatching turns.
+		 */
+		@Param( { "0", "50", "90" } )
+		public int mismatchPercent;
+
+		/**
+		 * Layout seed.
+		 */
+		private static final long SEED = 42;
+
+		/**
+		 * First card of each pair, in picking order.
+		 */
+		int[] first;
+
+		/**
+		 * Second card of each pair, in picking order.
+		 */
+		int[] second;
+
+		/**
+		 * Mismatch schedule, spread evenly over 100 turns.
+		 */
+		boolean[] mismatch;
+
+		/**
+		 * Playfield models for one iteration, enough for {@link #TURNS_PER_BATCH} matching turns.
+		 */
+		PlayfieldModel[] playfieldModels;
+
+		/**
+		 * Index of the current playfield model.
+		 */
+		int nextModel;
+
+		/**
+		 * Index of the next pair to win.
+		 */
+		int nextPair;
+
+		/**
+		 * Turn counter.
+		 */
+		int turn;
+
+		/**
+		 * Finds the pairs by trial, and builds the mismatch schedule.
+		 * Mismatching picks leave the playfield unchanged except for the failed pick count.
+		 */
+		@Setup public void setup() {
+			checkSize( size );
+			PlayfieldModel scratch = new PlayfieldModel( cardPackage, size, SEED );
+			first = new int[ size / 2 ];
+			second = new int[ size / 2 ];
+			int pairs = 0;
+			for ( int i = 0; i != size; ++i ) {
+				for ( int j = i + 1; ( j != size ) && !scratch.isWon( i ); ++j ) {
+					if ( scratch.isWon( j ) ) {
+						continue;
+					}
+					scratch.pickCard( i );
+					scratch.pickCard( j );
+					if ( scratch.isWon( i ) ) {
+						first[ pairs ] = i;
+						second[ pairs ] = j;
+						++pairs;
+					}
+				}
+			}
+			mismatch = new boolean[ 100 ];
+			for ( int i = 0; i != 100; ++i ) {
+				mismatch[ i ] = ( i + 1 ) * mismatchPercent / 100 != i * mismatchPercent / 100;
+			}
+			playfieldModels = new PlayfieldModel[ TURNS_PER_BATCH / first.length + 1 ];
+			turn = 0;
+		}
+
+		/**
+		 * Builds fresh playfield models for the next iteration.
+		 */
+		@Setup( Level.Iteration ) public void setupIteration() {
+			for ( int i = 0; i != playfieldModels.length; ++i ) {
+				playfieldModels[ i ] = new PlayfieldModel( cardPackage, size, SEED );
+			}
+			nextModel = 0;
+			nextPair = 0;
+		}
+	}
+
+	/**
+	 * Plays one turn of two picks.
+	 * Each iteration is a single batch of {@link #TURNS_PER_BATCH} turns, matching the pool of playfield models,
+	 * so the score is the time per batch.
+	 *
+	 * @param state Pick state.
+	 *
+	 * @return The playfield model is returned.
+	 */
+	@Benchmark @BenchmarkMode( Mode.SingleShotTime ) @OutputTimeUnit( TimeUnit.MICROSECONDS )
+	@Warmup( iterations = 10, batchSize = TURNS_PER_BATCH ) @Measurement( iterations = 20, batchSize = TURNS_PER_BATCH )
+	public PlayfieldModel pickTurn( PickState state ) {
+		if ( state.nextPair == state.first.length ) {
+			++state.nextModel;
+			state.nextPair = 0;
+		}
+		PlayfieldModel playfieldModel = state.playfieldModels[ state.nextModel ];
+		int pair = state.nextPair;
+		boolean mismatch = state.mismatch[ state.turn ];
+		state.turn = state.turn == 99 ? 0 : state.turn + 1;
+		if ( mismatch && ( pair + 1 != state.first.length ) ) {
+			playfieldModel.pickCard( state.first[ pair ] );
+			playfieldModel.pickCard( state.second[ pair + 1 ] );
+		} else {
+			playfieldModel.pickCard( state.first[ pair ] );
+			playfieldModel.pickCard( state.second[ pair ] );
+			state.nextPair = pair + 1;
+		}
+		return playfieldModel;
+	}
+
+	/**
+	 * Listener notification state.
+	 */
+	@State( Scope.Thread )
+	public static class ListenerState {
+		/**
+		 * Number of listeners.
+		 */
+		@Param( { "1", "16", "256" } )
+		public int listeners;
+
+		/**
+		 * Playfield model.
+		 */
+		PlayfieldModel playfieldModel;
+
+		/**
+		 * Creates the playfield model and attaches the listeners.
+		 *
+		 * @param blackhole Blackhole consuming the notifications.
+		 */
+		@Setup public void setup( final Blackhole blackhole ) {
+			playfieldModel = new PlayfieldModel( cardPackage, 16, 42 );
+			for ( int i = 0; i != listeners; ++i ) {
+				playfieldModel.addChangeListener( new PlayfieldChangeListener() {
+					public void playfieldChanged( PlayfieldModel playfieldModel, int i, ChangeType type ) {
+						blackhole.consume( i );
+					}
+				} );
+			}
+		}
+	}
+
+	/**
+	 * Notifies all listeners of a change.
+	 *
+	 * @param state Listener notification state.
+	 */
+	@Benchmark public void firePlayfieldChanged( ListenerState state ) {
+		state.playfieldModel.firePlayfieldChanged( 0, ChangeType.CARD_SHOWN );
+	}
+}
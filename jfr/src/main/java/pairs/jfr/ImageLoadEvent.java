@@ -0,0 +1,55 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import pairs.metrics.Span;
+
+/**
+ * Image load event.
+ */
+@Name( "pairs.ImageLoad" )
+@Label( "Image Load" )
+@Category( "Pairs" )
+@Description( "Loading an image resource, including parsing." )
+class ImageLoadEvent extends Event implements Span {
+	/**
+	 * Image name.
+	 */
+	@Label( "Image" )
+	String imageName;
+
+	/**
+	 * Creates a new event.
+	 *
+	 * @param imageName Image name.
+	 */
+	ImageLoadEvent( String imageName ) {
+		this.imageName = imageName;
+	}
+
+	public void finish() {
+		commit();
+	}
+}
@@ -0,0 +1,71 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import pairs.metrics.Span;
+
+/**
+ * Image render event.
+ */
+@Name( "pairs.ImageRender" )
+@Label( "Image Render" )
+@Category( "Pairs" )
+@Description( "Rasterising an image resource." )
+class ImageRenderEvent extends Event implements Span {
+	/**
+	 * Image name.
+	 */
+	@Label( "Image" )
+	String imageName;
+
+	/**
+	 * Image width.
+	 */
+	@Label( "Width" )
+	int width;
+
+	/**
+	 * Image height.
+	 */
+	@Label( "Height" )
+	int height;
+
+	/**
+	 * Creates a new event.
+	 *
+	 * @param imageName Image name.
+	 * @param width Image width.
+	 * @param height Image height.
+	 */
+	ImageRenderEvent( String imageName, int width, int height ) {
+		this.imageName = imageName;
+		this.width = width;
+		this.height = height;
+	}
+
+	public void finish() {
+		commit();
+	}
+}
@@ -0,0 +1,102 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.jfr;
+
+import jdk.jfr.EventType;
+
+import pairs.metrics.Probes;
+import pairs.metrics.Span;
+
+/**
+ * Probes emitting flight recorder events.
+ *
+ * Events are only created while a recording has them enabled, so tracing costs
+ * one check per span otherwise.
+ */
+public class JfrProbes implements Probes {
+	/**
+	 * Card package load event type.
+	 */
+	private static final EventType packageLoadType = EventType.getEventType( PackageLoadEvent.class );
+
+	/**
+	 * Image load event type.
+	 */
+	private static final EventType imageLoadType = EventType.getEventType( ImageLoadEvent.class );
+
+	/**
+	 * Image render event type.
+	 */
+	private static final EventType imageRenderType = EventType.getEventType( ImageRenderEvent.class );
+
+	/**
+	 * Card pick event type.
+	 */
+	private static final EventType cardPickType = EventType.getEventType( CardPickEvent.class );
+
+	/**
+	 * Playfield change event type.
+	 */
+	private static final EventType playfieldChangeType = EventType.getEventType( PlayfieldChangeEvent.class );
+
+	public Span packageLoad( String packageName ) {
+		if ( !packageLoadType.isEnabled() ) {
+			return Span.NONE;
+		}
+		PackageLoadEvent event = new PackageLoadEvent( packageName );
+		event.begin();
+		return event;
+	}
+
+	public Span imageLoad( String imageName ) {
+		if ( !imageLoadType.isEnabled() ) {
+			return Span.NONE;
+		}
+		ImageLoadEvent event = new ImageLoadEvent( imageName );
+		event.begin();
+		return event;
+	}
+
+	public Span imageRender( String imageName, int width, int height ) {
+		if ( !imageRenderType.isEnabled() ) {
+			return Span.NONE;
+		}
+		ImageRenderEvent event = new ImageRenderEvent( imageName, width, height );
+		event.begin();
+		return event;
+	}
+
+	public Span cardPick( int index ) {
+		if ( !cardPickType.isEnabled() ) {
+			return Span.NONE;
+		}
+		CardPickEvent event = new CardPickEvent( index );
+		event.begin();
+		return event;
+	}
+
+	public Span playfieldChange( int index, String changeType ) {
+		if ( !playfieldChangeType.isEnabled() ) {
+			return Span.NONE;
+		}
+		PlayfieldChangeEvent event = new PlayfieldChangeEvent( index, changeType );
+		event.begin();
+		return event;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import pairs.metrics.Span;
+
+/**
+ * Card package load event.
+ */
+@Name( "pairs.PackageLoad" )
+@Label( "Card Package Load" )
+@Category( "Pairs" )
+@Description( "Loading a card package, including its description." )
+class PackageLoadEvent extends Event implements Span {
+	/**
+	 * Card package name.
+	 */
+	@Label( "Package" )
+	String packageName;
+
+	/**
+	 * Creates a new event.
+	 *
+	 * @param packageName Card package name.
+	 */
+	PackageLoadEvent( String packageName ) {
+		this.packageName = packageName;
+	}
+
+	public void finish() {
+		commit();
+	}
+}
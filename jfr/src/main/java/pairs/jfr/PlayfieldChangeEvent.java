@@ -0,0 +1,63 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import pairs.metrics.Span;
+
+/**
+ * Playfield change event.
+ */
+@Name( "pairs.PlayfieldChange" )
+@Label( "Playfield Change" )
+@Category( "Pairs" )
+@Description( "Notifying playfield listeners of a change." )
+class PlayfieldChangeEvent extends Event implements Span {
+	/**
+	 * Index of the changed card.
+	 */
+	@Label( "Card" )
+	int index;
+
+	/**
+	 * Change type.
+	 */
+	@Label( "Change Type" )
+	String changeType;
+
+	/**
+	 * Creates a new event.
+	 *
+	 * @param index Index of the changed card.
+	 * @param changeType Name of the change type.
+	 */
+	PlayfieldChangeEvent( int index, String changeType ) {
+		this.index = index;
+		this.changeType = changeType;
+	}
+
+	public void finish() {
+		commit();
+	}
+}
@@ -0,0 +1,188 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import java.util.regex.Pattern;
+
+/**
+ * Build-time generator of message key constants.
+ *
+ * Reads Messages.properties and its locale variants and writes the class pairs.util.MessageKeys,
+ * which holds one int constant per message key.
+ * The build fails if a key is not made up of lower case letters, digits and hyphens,
+ * or if a locale variant contains a key the base file lacks.
+ * Code referring to a key the base file lacks does not compile.
+ */
+public class MessagesGenerator {
+	/**
+	 * Base name of the messages bundle.
+	 */
+	private static final String BASE_NAME = "Messages";
+
+	/**
+	 * Pattern matching valid message keys.
+	 */
+	private static final Pattern KEY_PATTERN = Pattern.compile( "[a-z0-9-]+" );
+
+	/**
+	 * Reads a properties file.
+	 *
+	 * @param file Properties file in UTF-8 format.
+	 *
+	 * @return The properties read are returned.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 */
+	private static Properties load( File file ) throws IOException {
+		Properties result = new Properties();
+		Reader reader = new InputStreamReader( new FileInputStream( file ), "UTF-8" );
+		try {
+			result.load( reader );
+		} finally {
+			reader.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Converts a message key to a Java constant name.
+	 *
+	 * @param key Valid message key, such as "label-time".
+	 *
+	 * @return The constant name, such as "LABEL_TIME", is returned.
+	 */
+	private static String toIdentifier( String key ) {
+		String result = key.toUpperCase( java.util.Locale.ROOT ).replace( '-', '_' );
+		if ( !Character.isJavaIdentifierStart( result.charAt( 0 ) ) ) {
+			result = "KEY_" + result;
+		}
+		return result;
+	}
+
+	/**
+	 * Generates the message keys class.
+	 *
+	 * @param args Resource directory containing the properties files, and output source directory.
+	 *
+	 * @throws IOException if reading or writing fails.
+	 */
+	public static void main( String... args ) throws IOException {
+		if ( args.length != 2 ) {
+			System.err.println( "Usage: MessagesGenerator <resource directory> <output directory>" );
+			System.exit( 2 );
+		}
+		File resourceDirectory = new File( args[ 0 ] );
+		File outputDirectory = new File( args[ 1 ], "pairs/util" );
+
+		/* Read and check keys */
+		Set<String> keys = new TreeSet<String>();
+		for ( Object key: load( new File( resourceDirectory, BASE_NAME + ".properties" ) ).keySet() ) {
+			keys.add( (String) key );
+		}
+		boolean failed = false;
+		for ( String key: keys ) {
+			if ( !KEY_PATTERN.matcher( key ).matches() ) {
+				System.err.println( "Invalid message key, expected " + KEY_PATTERN.pattern() + ": " + key );
+				failed = true;
+			}
+		}
+		File[] variants = resourceDirectory.listFiles();
+		if ( variants == null ) {
+			throw new IOException( "Cannot list " + resourceDirectory );
+		}
+		for ( File variant: variants ) {
+			String fileName = variant.getName();
+			if ( !fileName.startsWith( BASE_NAME + "_" ) || !fileName.endsWith( ".properties" ) ) {
+				continue;
+			}
+			for ( Object key: load( variant ).keySet() ) {
+				if ( !keys.contains( key ) ) {
+					System.err.println( fileName + ": key not in " + BASE_NAME + ".properties: " + key );
+					failed = true;
+				}
+			}
+		}
+		Set<String> identifiers = new HashSet<String>();
+		for ( String key: keys ) {
+			if ( KEY_PATTERN.matcher( key ).matches() && !identifiers.add( toIdentifier( key ) ) ) {
+				System.err.println( "Ambiguous message key: " + key );
+				failed = true;
+			}
+		}
+		if ( failed ) {
+			System.exit( 1 );
+		}
+
+		/* Write class */
+		if ( !outputDirectory.isDirectory() && !outputDirectory.mkdirs() ) {
+			throw new IOException( "Cannot create " + outputDirectory );
+		}
+		PrintWriter out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( new File( outputDirectory, "MessageKeys.java" ) ), "UTF-8" ) );
+		try {
+			out.println( "/* Generated from " + BASE_NAME + ".properties by MessagesGenerator. Do not edit. */" );
+			out.println();
+			out.println( "package pairs.util;" );
+			out.println();
+			out.println( "/**" );
+			out.println( " * Message keys." );
+			out.println( " */" );
+			out.println( "public final class MessageKeys {" );
+			out.println( "\t/**" );
+			out.println( "\t * Message keys, by index." );
+			out.println( "\t */" );
+			out.println( "\tstatic final String[] KEYS = {" );
+			for ( String key: keys ) {
+				out.println( "\t\t\"" + key + "\"," );
+			}
+			out.println( "\t};" );
+			int index = 0;
+			for ( String key: keys ) {
+				out.println();
+				out.println( "\t/**" );
+				out.println( "\t * Index of message {@code " + key + "}." );
+				out.println( "\t */" );
+				out.println( "\tpublic static final int " + toIdentifier( key ) + " = " + index++ + ";" );
+			}
+			out.println();
+			out.println( "\t/**" );
+			out.println( "\t * No instances." );
+			out.println( "\t */" );
+			out.println( "\tprivate MessageKeys() {" );
+			out.println( "\t}" );
+			out.println( "}" );
+		} finally {
+			out.close();
+		}
+		if ( out.checkError() ) {
+			throw new IOException( "Cannot write MessageKeys.java" );
+		}
+	}
+}
@@ -18,8 +18,15 @@
 
 package pairs;
 
+import java.io.IOException;
+
+import java.util.Arrays;
+
 import javax.swing.*;
 
+import pairs.tools.ContactSheetRenderer;
+
+import pairs.ui.EdtWatchdog;
 import pairs.ui.MainWindow;
 
 import pairs.util.Message;
@@ -28,12 +35,27 @@ import pairs.util.Message;
  * Main class.
  */
 public class Main {
+	/**
+	 * Command running the contact sheet renderer instead of the game.
+	 */
+	private static final String CONTACT_SHEET_COMMAND = "contact-sheet";
+
 	/**
 	 * Entry point.
+	 * Without arguments, the game is started. With the first argument {@value #CONTACT_SHEET_COMMAND},
+	 * contact sheets are rendered instead, see {@link ContactSheetRenderer#main(String...)} for the remaining arguments.
 	 *
 	 * @param args Program arguments.
+	 *
+	 * @throws IOException if contact sheets cannot be written.
+	 * @throws InterruptedException if interrupted while rendering contact sheets.
 	 */
-	public static void main( String... args ) {
+	public static void main( String... args ) throws IOException, InterruptedException {
+		if ( ( args.length != 0 ) && CONTACT_SHEET_COMMAND.equals( args[ 0 ] ) ) {
+			ContactSheetRenderer.main( Arrays.copyOfRange( args, 1, args.length ) );
+			return;
+		}
+		new EdtWatchdog( EdtWatchdog.DEFAULT_THRESHOLD ).start();
 		SwingUtilities.invokeLater( new Runnable() {
 			public void run() {
 				new MainWindow();
@@ -22,6 +22,7 @@ import pairs.util.ImageResource;
 
 /**
  * A card.
+ * Cards are obtained from the {@link CardInterner}, so there is only one instance for each card content.
  */
 public class Card {
 	/**
@@ -32,6 +33,11 @@ public class Card {
 		TEXT
 	}
 
+	/**
+	 * Content ID.
+	 */
+	private final long id;
+
 	/**
 	 * Card type.
 	 */
@@ -45,14 +51,16 @@ public class Card {
 	/**
 	 * Creates a new image card.
 	 *
+	 * @param id Content ID.
 	 * @param imageResource The image resource for the card.
 	 *
 	 * @throws NullPointerException if imageResource is null.
 	 */
-	Card( ImageResource imageResource ) {
+	Card( long id, ImageResource imageResource ) {
 		if ( imageResource == null ) {
 			throw new NullPointerException();
 		}
+		this.id = id;
 		this.type = Type.IMAGE;
 		this.content = imageResource;
 	}
@@ -60,18 +68,30 @@ public class Card {
 	/**
 	 * Creates a new text card.
 	 *
+	 * @param id Content ID.
 	 * @param text Card text.
 	 *
 	 * @throws NullPointerException if text is null.
 	 */
-	Card( String text ) {
+	Card( long id, String text ) {
 		if ( text == null ) {
 			throw new NullPointerException();
 		}
+		this.id = id;
 		this.type = Type.TEXT;
 		this.content = text;
 	}
 
+	/**
+	 * Returns the content ID of this card.
+	 * Cards with equal content have equal IDs, see {@link CardInterner#getId(Type, String)}.
+	 *
+	 * @return The 64-bit content ID of this card is returned.
+	 */
+	public long getId() {
+		return id;
+	}
+
 	/**
 	 * Returns the type of this card.
 	 *
@@ -102,4 +122,51 @@ public class Card {
 	public String getText() {
 		return (String) content;
 	}
+
+	/**
+	 * Returns the content key of this card.
+	 *
+	 * @return The image name of an image card or the text of a text card is returned.
+	 */
+	private String getKey() {
+		return type == Type.IMAGE ? getImageResource().getName() : getText();
+	}
+
+	/**
+	 * Returns the hash code for this card.
+	 *
+	 * @return A hash code derived from the content ID is returned.
+	 */
+	public @Override int hashCode() {
+		return (int) ( id ^ ( id >>> 32 ) );
+	}
+
+	/**
+	 * Compares this card for equality with another.
+	 * Two cards are equal if they have the same type and the same text or image name.
+	 *
+	 * @param o Some object.
+	 *
+	 * @return If o is a card with the same content as this card, true is returned.
+	 * 	Otherwise, false is returned.
+	 */
+	public @Override boolean equals( Object o ) {
+		if ( o == this ) {
+			return true;
+		}
+		if ( !( o instanceof Card ) ) {
+			return false;
+		}
+		Card c = (Card) o;
+		return ( id == c.id ) && ( type == c.type ) && getKey().equals( c.getKey() );
+	}
+
+	/**
+	 * Renders this card as a string.
+	 *
+	 * @return The type and the text or image name of this card is returned.
+	 */
+	public @Override String toString() {
+		return type + ":" + getKey();
+	}
 }
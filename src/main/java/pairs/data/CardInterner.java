@@ -0,0 +1,146 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import pairs.metrics.Counter;
+import pairs.metrics.Metrics;
+
+import pairs.util.ImageResourceLoader;
+
+/**
+ * Interner for cards.
+ *
+ * Each distinct card content, that is, the card type together with the card text or image name,
+ * is represented by one canonical card, shared between all packages and games.
+ * In particular, each image is loaded only once.
+ */
+public class CardInterner {
+	/**
+	 * FNV-1a 64-bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * FNV-1a 64-bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Canonical text cards, by text.
+	 */
+	private static final ConcurrentMap<String, Card> textCards = new ConcurrentHashMap<String, Card>();
+
+	/**
+	 * Canonical image cards, by image name.
+	 */
+	private static final ConcurrentMap<String, Card> imageCards = new ConcurrentHashMap<String, Card>();
+
+	/**
+	 * Interner hits.
+	 */
+	private static final Counter hits = Metrics.counter( "cardinterner.hit" );
+
+	/**
+	 * Interner misses.
+	 */
+	private static final Counter misses = Metrics.counter( "cardinterner.miss" );
+
+	/**
+	 * Computes the content ID of a card.
+	 * The ID is the FNV-1a hash of the type ordinal followed by the UTF-16 code units of the text or image name.
+	 * It is stable across runs.
+	 *
+	 * @param type Card type.
+	 * @param key Card text for text cards, or image name for image cards.
+	 *
+	 * @return The 64-bit content ID is returned.
+	 */
+	public static long getId( Card.Type type, String key ) {
+		long hash = ( FNV_OFFSET_BASIS ^ type.ordinal() ) * FNV_PRIME;
+		int length = key.length();
+		for ( int i = 0; i != length; ++i ) {
+			char c = key.charAt( i );
+			hash = ( hash ^ ( c & 0xff ) ) * FNV_PRIME;
+			hash = ( hash ^ ( c >>> 8 ) ) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Obtains the canonical text card.
+	 *
+	 * @param text Card text.
+	 *
+	 * @return The canonical card with the specified text is returned.
+	 *
+	 * @throws NullPointerException if text is null.
+	 */
+	public static Card getTextCard( String text ) {
+		Card result = textCards.get( text );
+		if ( result == null ) {
+			misses.increment();
+			result = new Card( getId( Card.Type.TEXT, text ), text );
+			Card previous = textCards.putIfAbsent( text, result );
+			if ( previous != null ) {
+				result = previous;
+			}
+		} else {
+			hits.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains the canonical image card.
+	 * The image is loaded on first request.
+	 *
+	 * @param imageName Image name.
+	 *
+	 * @return The canonical card with the specified image is returned.
+	 *
+	 * @throws NullPointerException if imageName is null.
+	 * @throws IllegalArgumentException if there is no image with the specified name.
+	 */
+	public static Card getImageCard( String imageName ) {
+		Card result = imageCards.get( imageName );
+		if ( result == null ) {
+			misses.increment();
+			result = new Card( getId( Card.Type.IMAGE, imageName ), ImageResourceLoader.load( imageName ) );
+			Card previous = imageCards.putIfAbsent( imageName, result );
+			if ( previous != null ) {
+				result = previous;
+			}
+		} else {
+			hits.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of canonical cards.
+	 *
+	 * @return The number of distinct cards interned so far is returned.
+	 */
+	public static int size() {
+		return textCards.size() + imageCards.size();
+	}
+}
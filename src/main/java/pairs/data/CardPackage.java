@@ -20,20 +20,29 @@ package pairs.data;
 
 import java.io.IOException;
 
-import java.util.Arrays;
 import java.util.Iterator;
+import java.util.SplittableRandom;
 import java.util.Vector;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.fasterxml.jackson.core.JsonParser;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import pairs.util.ImageResourceLoader;
+import pairs.metrics.Counter;
+import pairs.metrics.Histogram;
+import pairs.metrics.Metrics;
+import pairs.metrics.Span;
+import pairs.metrics.Tracing;
+
 import pairs.util.Random;
 import pairs.util.Resources;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * A card package.
@@ -69,6 +78,31 @@ public class CardPackage {
 		}
 	}
 
+	/**
+	 * Shared card packages, by package key.
+	 */
+	private static final ConcurrentMap<String, CardPackage> sharedPackages = new ConcurrentHashMap<String, CardPackage>();
+
+	/**
+	 * Card package load times (ns).
+	 */
+	private static final Histogram loadTime = Metrics.histogram( "cardpackage.load" );
+
+	/**
+	 * Shared card package cache hits.
+	 */
+	private static final Counter sharedHits = Metrics.counter( "cardpackage.shared.hit" );
+
+	/**
+	 * Shared card package cache misses.
+	 */
+	private static final Counter sharedMisses = Metrics.counter( "cardpackage.shared.miss" );
+
+	/**
+	 * Package key in the packages database.
+	 */
+	private final String key;
+
 	/**
 	 * Package name.
 	 */
@@ -80,26 +114,43 @@ public class CardPackage {
 	private final String description;
 
 	/**
-	 * Card pairs.
+	 * Cards. The cards with indices 2i and 2i + 1 make up the ith card pair.
+	 */
+	private final CardTable cards;
+
+	/**
+	 * Content fingerprint, or 0 if not computed yet.
 	 */
-	private final CardPair[] cardPairs;
+	private volatile long fingerprint;
 
 	/**
 	 * Creates a new card package.
 	 *
+	 * @param key Card package key.
 	 * @param name Card package name.
 	 * @param description Package description.
-	 * @param cardPairs Array of card pairs.
+	 * @param cards Card table holding an even number of cards.
 	 *
 	 * @throws NullPointerException if one of the arguments is null.
 	 */
-	protected CardPackage( String name, String description, CardPair[] cardPairs ) {
-		if ( ( name == null ) || ( cardPairs == null ) ) {
+	CardPackage( String key, String name, String description, CardTable cards ) {
+		if ( ( key == null ) || ( name == null ) || ( cards == null ) ) {
 			throw new NullPointerException();
 		}
+		this.key = key;
 		this.name = name;
 		this.description = description;
-		this.cardPairs = cardPairs;
+		this.cards = cards;
+	}
+
+	/**
+	 * Gets the key of this package.
+	 * The key identifies the package in the packages database.
+	 *
+	 * @return The key of this package is returned.
+	 */
+	public String getKey() {
+		return key;
 	}
 
 	/**
@@ -126,7 +177,7 @@ public class CardPackage {
 	 * @return The number of card pairs in this package is returned.
 	 */
 	public int size() {
-		return cardPairs.length;
+		return cards.size() / 2;
 	}
 
 	/**
@@ -139,17 +190,117 @@ public class CardPackage {
 	 * @throws IllegalArgumentException if n is negative or greather than the package size.
 	 */
 	public CardPair[] createRandomSample( int n ) {
-		if ( ( n < 0 ) || ( n > cardPairs.length ) ) {
-			throw new IllegalArgumentException( __( "error-randomsample", name, cardPairs.length, n ) );
+		return createRandomSample( n, new SplittableRandom( Random.nextSeed() ) );
+	}
+
+	/**
+	 * Returns a random sample of this card package using the specified randomness source.
+	 * The sample depends only on the package contents and the state of the randomness source.
+	 * This package is not modified, so it may be sampled concurrently.
+	 * The cost is proportional to n rather than to the package size.
+	 * The cards of the sampled pairs are obtained from the {@link CardInterner}.
+	 *
+	 * @param n Sample size.
+	 * @param random Randomness source.
+	 *
+	 * @return A random sample of n card pairs is returned.
+	 *
+	 * @throws IllegalArgumentException if n is negative or greather than the package size.
+	 */
+	public CardPair[] createRandomSample( int n, SplittableRandom random ) {
+		int size = size();
+		if ( ( n < 0 ) || ( n > size ) ) {
+			throw new IllegalArgumentException( __( ERROR_RANDOMSAMPLE, name, size, n ) );
 		}
-		Random.randomiseArray( cardPairs ); // Yep, always randomise the entire array. The niftier methods might be too much for Java's 48-bit default RNG
-		return Arrays.copyOf( cardPairs, n );
+		int[] indices = Random.sampleIndices( size, n, random );
+		CardPair[] result = new CardPair[ n ];
+		for ( int i = 0; i != n; ++i ) {
+			int first = 2 * indices[ i ];
+			result[ i ] = new CardPair( cards.getCard( first ), cards.getCard( first + 1 ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a card pair of this card package.
+	 * The cards are obtained from the {@link CardInterner}.
+	 *
+	 * @param i Pair index, between 0 (inclusive) and the package size (exclusive).
+	 *
+	 * @return The card pair with the specified index is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	public CardPair getPair( int i ) {
+		if ( ( i < 0 ) || ( i >= size() ) ) {
+			throw new IndexOutOfBoundsException( Integer.toString( i ) );
+		}
+		return new CardPair( cards.getCard( 2 * i ), cards.getCard( 2 * i + 1 ) );
+	}
+
+	/**
+	 * Computes the content fingerprint of this package.
+	 * The fingerprint hashes the content IDs of all cards in package order,
+	 * so it changes whenever a pair is added, removed, reordered or altered.
+	 * Image resources are not loaded. The fingerprint is computed once and then cached.
+	 *
+	 * @return The 64-bit content fingerprint of this package is returned.
+	 */
+	public long getFingerprint() {
+		long result = fingerprint;
+		if ( result == 0 ) {
+			result = 1;
+			int cardCount = cards.size();
+			for ( int i = 0; i != cardCount; ++i ) {
+				result = 31 * result + cards.getId( i );
+			}
+			fingerprint = result;
+		}
+		return result;
 	}
 
 	public @Override String toString() {
 		return getName();
 	}
 
+	/**
+	 * Reads a card package resource.
+	 *
+	 * @param name Name of the card package.
+	 * @param packageKey Message key of the package name.
+	 * @param jsonText Contents of the package resource.
+	 *
+	 * @return A new card package with the pairs of the resource is returned.
+	 *
+	 * @throws IOException if the resource is not valid JSON.
+	 * @throws RuntimeException if the resource is not a valid card package.
+	 */
+	static CardPackage read( String name, String packageKey, String jsonText ) throws IOException {
+		JsonNode packageResource = objectMapper.readTree( jsonText );
+		String packageDescriptionKey = packageResource.get( "descriptionKey" ).textValue();
+		JsonNode pairs = packageResource.get( "pairs" );
+
+		int size = pairs.size();
+		CardTable cards = new CardTable();
+		for( int i = 0; i != size; ++i ) {
+			JsonNode pair = pairs.get( i );
+			for( int j = 0; j != 2; ++j ) {
+				JsonNode card = pair.get( j );
+				Card.Type type = Card.Type.valueOf( Card.Type.class, card.get( "type" ).textValue() );
+				switch( type ) {
+					case IMAGE:
+						cards.addImage( card.get( "image" ).textValue() );
+						break;
+					case TEXT:
+						cards.addText( card.get( "value" ).textValue() );
+						break;
+				}
+			}
+		}
+		cards.trim();
+		return new CardPackage( name, __( packageKey ), __( packageDescriptionKey ), cards );
+	}
+
 	/**
 	 * Obtains the named card package.
 	 *
@@ -160,39 +311,45 @@ public class CardPackage {
 	 * @throws IllegalArgumentException if there is no package with the specified name.
 	 */
 	public static CardPackage get( String name ) {
+		long start = System.nanoTime();
+		Span span = Tracing.packageLoad( name );
 		try {
 			JsonNode packageNode = database.get( name );
 			String packageKey = packageNode.get( "key" ).textValue();
 			String packageResourceName = packageNode.get( "resource" ).textValue();
+			return read( name, packageKey, Resources.loadResourceAsString( packageResourceName ) );
+		} catch ( Exception e ) {
+			throw new IllegalArgumentException( __( ERROR_CARDPACKAGE, name ), e );
+		} finally {
+			loadTime.recordSince( start );
+			span.finish();
+		}
+	}
 
-			String jsonText = Resources.loadResourceAsString( packageResourceName );
-			JsonNode packageResource = objectMapper.readTree( jsonText );
-			String packageDescriptionKey = packageResource.get( "descriptionKey" ).textValue();
-			JsonNode pairs = packageResource.get( "pairs" );
-
-			int size = pairs.size();
-			CardPair[] cardPairs = new CardPair[ size ];
-			for( int i = 0; i != size; ++i ) {
-				JsonNode pair = pairs.get( i );
-				Card[] cardPair = new Card[ 2 ];
-				for( int j = 0; j != 2; ++j ) {
-					JsonNode card = pair.get( j );
-					Card.Type type = Card.Type.valueOf( Card.Type.class, card.get( "type" ).textValue() );
-					switch( type ) {
-						case IMAGE:
-							cardPair[ j ] = new Card( ImageResourceLoader.load( card.get( "image" ).textValue() ) );
-							break;
-						case TEXT:
-							cardPair[ j ] = new Card( card.get( "value" ).textValue() );
-							break;
-					}
-				}
-				cardPairs[ i ] = new CardPair( cardPair[ 0 ], cardPair[ 1 ] );
+	/**
+	 * Obtains the named card package, sharing it with all other callers.
+	 * The package is loaded only once, on first request.
+	 * Use this method instead of {@link #get(String)} if many games are created from the same package.
+	 *
+	 * @param name Name of the requested card package.
+	 *
+	 * @return The shared instance of the named card package is returned.
+	 *
+	 * @throws IllegalArgumentException if there is no package with the specified name.
+	 */
+	public static CardPackage getShared( String name ) {
+		CardPackage result = sharedPackages.get( name );
+		if ( result == null ) {
+			sharedMisses.increment();
+			result = get( name );
+			CardPackage previous = sharedPackages.putIfAbsent( name, result );
+			if ( previous != null ) {
+				result = previous;
 			}
-			return new CardPackage( __( packageKey ), __( packageDescriptionKey ), cardPairs );
-		} catch ( Exception e ) {
-			throw new IllegalArgumentException( __( "error-cardpackage", name ), e );
+		} else {
+			sharedHits.increment();
 		}
+		return result;
 	}
 
 	/**
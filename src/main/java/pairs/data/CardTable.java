@@ -0,0 +1,283 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import pairs.util.ImageResourceLoader;
+
+/**
+ * Columnar storage for the cards of a card package.
+ *
+ * Cards are kept in packed arrays: one type tag and one content index per card.
+ * The content index of a text card refers to a shared character pool, the content index of an image card
+ * refers to a table of image names. Equal texts and equal image names are stored only once.
+ * {@link Card} objects, including their image resources, are only obtained on request.
+ */
+class CardTable {
+	/**
+	 * Initial capacity of the card arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Card types, by ordinal.
+	 */
+	private static final Card.Type[] TYPES = Card.Type.values();
+
+	/**
+	 * Card type tags, indexed by card.
+	 */
+	private byte[] types;
+
+	/**
+	 * Content indices, indexed by card.
+	 */
+	private int[] contents;
+
+	/**
+	 * Number of cards.
+	 */
+	private int cardCount;
+
+	/**
+	 * Text character pool.
+	 */
+	private char[] textPool;
+
+	/**
+	 * Number of characters in the text pool.
+	 */
+	private int textPoolSize;
+
+	/**
+	 * Text start offsets into the text pool, followed by the text pool size.
+	 */
+	private int[] textOffsets;
+
+	/**
+	 * Number of texts.
+	 */
+	private int textCount;
+
+	/**
+	 * Image names.
+	 */
+	private String[] imageNames;
+
+	/**
+	 * Number of image names.
+	 */
+	private int imageCount;
+
+	/**
+	 * Text indices, by text. Only used while cards are added.
+	 */
+	private Map<String, Integer> textIndices;
+
+	/**
+	 * Image name indices, by image name. Only used while cards are added.
+	 */
+	private Map<String, Integer> imageIndices;
+
+	/**
+	 * Creates a new, empty card table.
+	 */
+	CardTable() {
+		this.types = new byte[ INITIAL_CAPACITY ];
+		this.contents = new int[ INITIAL_CAPACITY ];
+		this.cardCount = 0;
+		this.textPool = new char[ 16 * INITIAL_CAPACITY ];
+		this.textPoolSize = 0;
+		this.textOffsets = new int[ INITIAL_CAPACITY + 1 ];
+		this.textCount = 0;
+		this.imageNames = new String[ INITIAL_CAPACITY ];
+		this.imageCount = 0;
+		this.textIndices = new HashMap<String, Integer>();
+		this.imageIndices = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Appends a card.
+	 *
+	 * @param type Card type.
+	 * @param content Content index.
+	 */
+	private void addCard( Card.Type type, int content ) {
+		if ( cardCount == types.length ) {
+			types = Arrays.copyOf( types, 2 * cardCount );
+			contents = Arrays.copyOf( contents, 2 * cardCount );
+		}
+		types[ cardCount ] = (byte) type.ordinal();
+		contents[ cardCount ] = content;
+		++cardCount;
+	}
+
+	/**
+	 * Appends a text card.
+	 *
+	 * @param text Card text.
+	 *
+	 * @throws NullPointerException if text is null.
+	 * @throws IllegalStateException if this table has been trimmed.
+	 */
+	void addText( String text ) {
+		if ( text == null ) {
+			throw new NullPointerException();
+		}
+		if ( textIndices == null ) {
+			throw new IllegalStateException();
+		}
+		Integer index = textIndices.get( text );
+		if ( index == null ) {
+			int length = text.length();
+			if ( textPoolSize + length > textPool.length ) {
+				textPool = Arrays.copyOf( textPool, Math.max( textPoolSize + length, 2 * textPool.length ) );
+			}
+			text.getChars( 0, length, textPool, textPoolSize );
+			if ( textCount + 1 == textOffsets.length ) {
+				textOffsets = Arrays.copyOf( textOffsets, 2 * textOffsets.length );
+			}
+			textOffsets[ textCount ] = textPoolSize;
+			textPoolSize += length;
+			textOffsets[ textCount + 1 ] = textPoolSize;
+			index = textCount++;
+			textIndices.put( text, index );
+		}
+		addCard( Card.Type.TEXT, index );
+	}
+
+	/**
+	 * Appends an image card.
+	 * The image resource is not loaded.
+	 *
+	 * @param imageName Image name.
+	 *
+	 * @throws NullPointerException if imageName is null.
+	 * @throws IllegalArgumentException if there is no image with the specified name.
+	 * @throws IllegalStateException if this table has been trimmed.
+	 */
+	void addImage( String imageName ) {
+		if ( imageName == null ) {
+			throw new NullPointerException();
+		}
+		if ( imageIndices == null ) {
+			throw new IllegalStateException();
+		}
+		Integer index = imageIndices.get( imageName );
+		if ( index == null ) {
+			ImageResourceLoader.checkExists( imageName );
+			if ( imageCount == imageNames.length ) {
+				imageNames = Arrays.copyOf( imageNames, 2 * imageCount );
+			}
+			imageNames[ imageCount ] = imageName;
+			index = imageCount++;
+			imageIndices.put( imageName, index );
+		}
+		addCard( Card.Type.IMAGE, index );
+	}
+
+	/**
+	 * Releases excess capacity and the lookup tables used while adding cards.
+	 * No cards can be added afterwards.
+	 */
+	void trim() {
+		types = Arrays.copyOf( types, cardCount );
+		contents = Arrays.copyOf( contents, cardCount );
+		textPool = Arrays.copyOf( textPool, textPoolSize );
+		textOffsets = Arrays.copyOf( textOffsets, textCount + 1 );
+		imageNames = Arrays.copyOf( imageNames, imageCount );
+		textIndices = null;
+		imageIndices = null;
+	}
+
+	/**
+	 * Returns the number of cards.
+	 *
+	 * @return The number of cards in this table is returned.
+	 */
+	int size() {
+		return cardCount;
+	}
+
+	/**
+	 * Returns the type of a card.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return The type of the specified card is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	Card.Type getType( int i ) {
+		if ( i >= cardCount ) {
+			throw new IndexOutOfBoundsException();
+		}
+		return TYPES[ types[ i ] ];
+	}
+
+	/**
+	 * Computes the content ID of a card without obtaining the card.
+	 * Image resources are not loaded.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return The content ID of the specified card is returned, see {@link CardInterner#getId(Card.Type, String)}.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	long getId( int i ) {
+		int content = contents[ i ];
+		switch ( getType( i ) ) {
+			case IMAGE:
+				return CardInterner.getId( Card.Type.IMAGE, imageNames[ content ] );
+			case TEXT:
+				int offset = textOffsets[ content ];
+				return CardInterner.getId( Card.Type.TEXT, new String( textPool, offset, textOffsets[ content + 1 ] - offset ) );
+			default:
+				throw new AssertionError( "This should not happen" );
+		}
+	}
+
+	/**
+	 * Obtains a card.
+	 * The image resource of an image card is loaded on first request.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return The canonical card with the contents of the specified card is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 * @throws IllegalArgumentException if the image of an image card cannot be loaded.
+	 */
+	Card getCard( int i ) {
+		int content = contents[ i ];
+		switch ( getType( i ) ) {
+			case IMAGE:
+				return CardInterner.getImageCard( imageNames[ content ] );
+			case TEXT:
+				int offset = textOffsets[ content ];
+				return CardInterner.getTextCard( new String( textPool, offset, textOffsets[ content + 1 ] - offset ) );
+			default:
+				throw new AssertionError( "This should not happen" );
+		}
+	}
+}
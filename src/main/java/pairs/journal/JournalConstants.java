@@ -0,0 +1,49 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.journal;
+
+/**
+ * Interface collecting constants of the game journal format.
+ *
+ * A journal starts with a header: the magic number (u32), the layout seed (i64), the playfield size (u16),
+ * the wall clock start time in milliseconds since the epoch (i64), the card package key
+ * (u16 byte count followed by UTF-8 data), the number of pairs in the package (i32) and the package
+ * content fingerprint (i64, see {@link pairs.data.CardPackage#getFingerprint()}).
+ * All integers in the header are big-endian.
+ *
+ * The header is followed by one record per pick: the time since the previous pick (or the start of the game)
+ * in microseconds, followed by the card index, both as unsigned LEB128 variable-length integers.
+ * An incomplete record at the end of a journal is the result of a crash and is ignored.
+ */
+public interface JournalConstants {
+	/**
+	 * Magic number and format version ("PRJ2").
+	 */
+	public static final int MAGIC = 0x50524a32;
+
+	/**
+	 * Journal file name extension.
+	 */
+	public static final String EXTENSION = ".journal";
+
+	/**
+	 * Maximum size of an encoded pick record in bytes.
+	 */
+	public static final int MAX_RECORD_SIZE = 10 + 5;
+}
@@ -0,0 +1,416 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Collections;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import pairs.data.CardPackage;
+
+import pairs.model.PlayfieldModel;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Append-only writer for a game journal, see {@link JournalConstants} for the format.
+ *
+ * All file operations, including creating the journal and writing its header, run on a background thread,
+ * so recording a pick never blocks on the disk. Picks are buffered in memory until the journal is open,
+ * and then written and synced to disk in batches, either once {@link #BATCH_SIZE} picks are pending
+ * or {@link #SYNC_DELAY} ms after the first pending pick. Open journals are synced on JVM shutdown.
+ */
+public class JournalWriter implements Closeable, JournalConstants {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( JournalWriter.class );
+
+	/**
+	 * Number of pending picks triggering an immediate sync.
+	 */
+	public static final int BATCH_SIZE = 64;
+
+	/**
+	 * Maximum time a pick stays pending before it is synced (ms).
+	 */
+	public static final long SYNC_DELAY = 1000;
+
+	/**
+	 * Initial capacity of the pick buffers in bytes.
+	 */
+	private static final int BUFFER_SIZE = 4096;
+
+	/**
+	 * Maximum time to wait for the open journals to be closed on shutdown (ms).
+	 */
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	/**
+	 * Executor performing all journal file operations in the background.
+	 */
+	private static final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+		public Thread newThread( Runnable runnable ) {
+			Thread thread = new Thread( runnable, "pairs-journal-sync" );
+			thread.setDaemon( true );
+			return thread;
+		}
+	} );
+
+	/**
+	 * Journals which are currently open.
+	 */
+	private static final Set<JournalWriter> openJournals = Collections.newSetFromMap( new ConcurrentHashMap<JournalWriter, Boolean>() );
+
+	/**
+	 * Syncs all open journals on shutdown.
+	 */
+	static {
+		Runtime.getRuntime().addShutdownHook( new Thread( "pairs-journal-shutdown" ) {
+			public @Override void run() {
+				for ( JournalWriter journal: openJournals ) {
+					journal.close();
+				}
+				try {
+					awaitSync( SHUTDOWN_TIMEOUT );
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				} catch ( TimeoutException e ) {
+					logger.error( __( ERROR_JOURNAL ), e );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Waits until all file operations scheduled so far, such as those of {@link #close()}, are done.
+	 *
+	 * @param timeout Timeout in milliseconds.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 * @throws TimeoutException if the operations are not done within the timeout.
+	 */
+	static void awaitSync( long timeout ) throws InterruptedException, TimeoutException {
+		Future<?> done = syncExecutor.submit( new Runnable() {
+			public void run() {
+			}
+		} );
+		try {
+			done.get( timeout, TimeUnit.MILLISECONDS );
+		} catch ( ExecutionException e ) {
+			throw new AssertionError( "This should not happen" );
+		}
+	}
+
+	/**
+	 * Path of the journal file.
+	 */
+	private final Path path;
+
+	/**
+	 * Card package of the journalled game.
+	 */
+	private final CardPackage cardPackage;
+
+	/**
+	 * Layout seed of the journalled game.
+	 */
+	private final long seed;
+
+	/**
+	 * Playfield size of the journalled game.
+	 */
+	private final int size;
+
+	/**
+	 * Wall clock start time (ms since the epoch).
+	 */
+	private final long startTime;
+
+	/**
+	 * Journal file channel, or null if the journal is not open (yet).
+	 * Only accessed by the sync executor.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * Buffer being written to disk by the sync executor, in write mode.
+	 * Swapped with {@link #pending} while holding the lock of this writer.
+	 */
+	private ByteBuffer batch;
+
+	/**
+	 * Pending picks, in write mode.
+	 */
+	private ByteBuffer pending;
+
+	/**
+	 * Number of pending picks.
+	 */
+	private int pendingPicks;
+
+	/**
+	 * Whether a sync has been scheduled.
+	 */
+	private boolean syncScheduled;
+
+	/**
+	 * Whether this journal has been closed. Closed journals do not record picks.
+	 */
+	private boolean closed;
+
+	/**
+	 * Time of the previous pick as per {@link System#nanoTime()}.
+	 */
+	private long previousPick;
+
+	/**
+	 * Task syncing this journal.
+	 */
+	private final Runnable syncTask = new Runnable() {
+		public void run() {
+			sync();
+		}
+	};
+
+	/**
+	 * Creates a new journal writer.
+	 *
+	 * @param path Path of the new journal file.
+	 * @param cardPackage Card package of the journalled game.
+	 * @param playfieldModel Playfield model of the game, before any card has been picked.
+	 */
+	private JournalWriter( Path path, CardPackage cardPackage, PlayfieldModel playfieldModel ) {
+		this.path = path;
+		this.cardPackage = cardPackage;
+		this.seed = playfieldModel.getSeed();
+		this.size = playfieldModel.getSize();
+		this.startTime = System.currentTimeMillis();
+		this.channel = null;
+		this.batch = ByteBuffer.allocate( BUFFER_SIZE );
+		this.pending = ByteBuffer.allocate( BUFFER_SIZE );
+		this.pendingPicks = 0;
+		this.syncScheduled = false;
+		this.closed = false;
+		this.previousPick = System.nanoTime();
+	}
+
+	/**
+	 * Creates a new journal for a game.
+	 * The journal file must not exist yet. Missing parent directories are created.
+	 * This method returns immediately; the file is created in the background,
+	 * and picks recorded in the meantime are written once it exists.
+	 * If the journal cannot be created, the error is logged and picks are discarded.
+	 *
+	 * @param path Path of the new journal file.
+	 * @param cardPackage Card package the game is based on.
+	 * @param playfieldModel Playfield model of the game, before any card has been picked.
+	 *
+	 * @return A new journal writer is returned.
+	 *
+	 * @throws NullPointerException if one of the arguments is null.
+	 */
+	public static JournalWriter create( Path path, CardPackage cardPackage, PlayfieldModel playfieldModel ) {
+		if ( ( path == null ) || ( cardPackage == null ) || ( playfieldModel == null ) ) {
+			throw new NullPointerException();
+		}
+		final JournalWriter result = new JournalWriter( path, cardPackage, playfieldModel );
+		openJournals.add( result );
+		syncExecutor.execute( new Runnable() {
+			public void run() {
+				result.open();
+			}
+		} );
+		return result;
+	}
+
+	/**
+	 * Creates the journal file and writes its header.
+	 * Runs on the sync executor.
+	 */
+	private void open() {
+		byte[] key = cardPackage.getKey().getBytes( StandardCharsets.UTF_8 );
+		ByteBuffer header = ByteBuffer.allocate( 4 + 8 + 2 + 8 + 2 + key.length + 4 + 8 );
+		header.putInt( MAGIC );
+		header.putLong( seed );
+		header.putShort( (short) size );
+		header.putLong( startTime );
+		header.putShort( (short) key.length );
+		header.put( key );
+		header.putInt( cardPackage.size() );
+		header.putLong( cardPackage.getFingerprint() );
+		header.flip();
+		FileChannel result = null;
+		try {
+			Path directory = path.toAbsolutePath().getParent();
+			if ( directory != null ) {
+				Files.createDirectories( directory );
+			}
+			result = FileChannel.open( path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+			while ( header.hasRemaining() ) {
+				result.write( header );
+			}
+			result.force( true );
+			channel = result;
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_JOURNAL ), e );
+			closeChannel( result );
+			openJournals.remove( this );
+			synchronized ( this ) {
+				closed = true;
+				pending.clear();
+			}
+		}
+	}
+
+	/**
+	 * Appends an unsigned variable-length integer to the pending buffer.
+	 *
+	 * @param value Non-negative value.
+	 */
+	private void putVarLong( long value ) {
+		while ( ( value & ~0x7fL ) != 0 ) {
+			pending.put( (byte) ( ( value & 0x7f ) | 0x80 ) );
+			value >>>= 7;
+		}
+		pending.put( (byte) value );
+	}
+
+	/**
+	 * Records a pick.
+	 * Should be called right before {@link PlayfieldModel#pickCard(int)}.
+	 * Does not block on file operations.
+	 *
+	 * @param i Index of the picked card.
+	 */
+	public synchronized void recordPick( int i ) {
+		if ( closed ) {
+			return;
+		}
+		if ( pending.remaining() < MAX_RECORD_SIZE ) { // journal still being created
+			ByteBuffer larger = ByteBuffer.allocate( 2 * pending.capacity() );
+			pending.flip();
+			larger.put( pending );
+			pending = larger;
+		}
+		long now = System.nanoTime();
+		putVarLong( TimeUnit.NANOSECONDS.toMicros( now - previousPick ) );
+		putVarLong( i );
+		previousPick = now;
+		++pendingPicks;
+		if ( pendingPicks >= BATCH_SIZE ) {
+			syncExecutor.execute( syncTask );
+			pendingPicks = 0;
+			syncScheduled = true;
+		} else if ( !syncScheduled ) {
+			syncExecutor.schedule( syncTask, SYNC_DELAY, TimeUnit.MILLISECONDS );
+			syncScheduled = true;
+		}
+	}
+
+	/**
+	 * Writes all pending picks to the journal file and syncs it.
+	 * Runs on the sync executor.
+	 */
+	private void sync() {
+		ByteBuffer data;
+		synchronized ( this ) {
+			syncScheduled = false;
+			pendingPicks = 0;
+			data = pending;
+			pending = batch;
+			batch = data;
+		}
+		data.flip();
+		try {
+			if ( ( channel == null ) || !data.hasRemaining() ) {
+				return;
+			}
+			while ( data.hasRemaining() ) {
+				channel.write( data );
+			}
+			channel.force( false );
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_JOURNAL ), e );
+		} finally {
+			data.clear();
+		}
+	}
+
+	/**
+	 * Closes a channel, logging errors.
+	 *
+	 * @param channel Channel to close, or null.
+	 */
+	private static void closeChannel( FileChannel channel ) {
+		if ( channel == null ) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_JOURNAL ), e );
+		}
+	}
+
+	/**
+	 * Closes this journal.
+	 * Picks recorded afterwards are ignored.
+	 * The pending picks are synced and the file is closed in the background.
+	 */
+	public synchronized void close() {
+		if ( closed ) {
+			return;
+		}
+		closed = true;
+		syncExecutor.execute( new Runnable() {
+			public void run() {
+				sync();
+				closeChannel( channel );
+				channel = null;
+				openJournals.remove( JournalWriter.this );
+			}
+		} );
+	}
+}
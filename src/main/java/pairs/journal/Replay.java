@@ -0,0 +1,305 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.journal;
+
+import java.io.IOException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Arrays;
+
+import pairs.data.CardPackage;
+
+import pairs.model.PlayfieldModel;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * A game read back from a journal, see {@link JournalConstants} for the format.
+ *
+ * The replay rebuilds the exact playfield of the journalled game from its package and seed,
+ * and feeds the journalled picks through it without any delay.
+ */
+public class Replay implements JournalConstants {
+	/**
+	 * Card package key.
+	 */
+	private final String packageKey;
+
+	/**
+	 * Layout seed.
+	 */
+	private final long seed;
+
+	/**
+	 * Playfield size.
+	 */
+	private final int size;
+
+	/**
+	 * Wall clock start time (ms since the epoch).
+	 */
+	private final long startTime;
+
+	/**
+	 * Number of pairs in the card package when the game was journalled.
+	 */
+	private final int packageSize;
+
+	/**
+	 * Content fingerprint of the card package when the game was journalled.
+	 */
+	private final long packageFingerprint;
+
+	/**
+	 * Picked card indices.
+	 */
+	private final int[] picks;
+
+	/**
+	 * Pick times (µs since the start of the game).
+	 */
+	private final long[] pickTimes;
+
+	/**
+	 * Creates a new replay from journal data.
+	 *
+	 * @param data Journal data.
+	 *
+	 * @throws IOException if the data is not a valid journal.
+	 */
+	private Replay( ByteBuffer data ) throws IOException {
+		try {
+			if ( data.getInt() != MAGIC ) {
+				throw new IOException( __( ERROR_JOURNALFORMAT ) );
+			}
+			this.seed = data.getLong();
+			this.size = data.getShort() & 0xffff;
+			this.startTime = data.getLong();
+			byte[] key = new byte[ data.getShort() & 0xffff ];
+			data.get( key );
+			this.packageKey = new String( key, StandardCharsets.UTF_8 );
+			this.packageSize = data.getInt();
+			this.packageFingerprint = data.getLong();
+		} catch ( BufferUnderflowException e ) {
+			throw new IOException( __( ERROR_JOURNALFORMAT ), e );
+		}
+
+		int[] picks = new int[ 64 ];
+		long[] pickTimes = new long[ 64 ];
+		int count = 0;
+		long time = 0;
+		for ( ;; ) {
+			int recordStart = data.position();
+			long delta = getVarLong( data );
+			long index = getVarLong( data );
+			if ( index < 0 ) { // end of journal, or torn record
+				data.position( recordStart );
+				break;
+			}
+			if ( index >= size ) {
+				throw new IOException( __( ERROR_JOURNALFORMAT ) );
+			}
+			if ( count == picks.length ) {
+				picks = Arrays.copyOf( picks, 2 * count );
+				pickTimes = Arrays.copyOf( pickTimes, 2 * count );
+			}
+			time += delta;
+			picks[ count ] = (int) index;
+			pickTimes[ count ] = time;
+			++count;
+		}
+		this.picks = Arrays.copyOf( picks, count );
+		this.pickTimes = Arrays.copyOf( pickTimes, count );
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer.
+	 *
+	 * @param data Data buffer.
+	 *
+	 * @return The decoded value is returned, or -1 if the data ends before the integer is complete.
+	 */
+	private static long getVarLong( ByteBuffer data ) {
+		long result = 0;
+		for ( int shift = 0; shift < 64; shift += 7 ) {
+			if ( !data.hasRemaining() ) {
+				return -1;
+			}
+			byte b = data.get();
+			result |= (long) ( b & 0x7f ) << shift;
+			if ( b >= 0 ) {
+				return result;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads a journal.
+	 *
+	 * @param path Path of the journal file.
+	 *
+	 * @return The replay of the journalled game is returned.
+	 *
+	 * @throws IOException if the journal cannot be read or is invalid.
+	 */
+	public static Replay open( Path path ) throws IOException {
+		return new Replay( ByteBuffer.wrap( Files.readAllBytes( path ) ) );
+	}
+
+	/**
+	 * Gets the card package key.
+	 *
+	 * @return The key of the card package of the journalled game is returned.
+	 */
+	public String getPackageKey() {
+		return packageKey;
+	}
+
+	/**
+	 * Gets the layout seed.
+	 *
+	 * @return The layout seed of the journalled game is returned.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the playfield size.
+	 *
+	 * @return The playfield size of the journalled game is returned.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the start time.
+	 *
+	 * @return The wall clock start time of the journalled game in milliseconds since the epoch is returned.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Gets the number of journalled picks.
+	 *
+	 * @return The number of picks is returned.
+	 */
+	public int getPickCount() {
+		return picks.length;
+	}
+
+	/**
+	 * Gets a journalled pick.
+	 *
+	 * @param n Pick number.
+	 *
+	 * @return The index of the card picked by the nth pick is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if n is out of bounds.
+	 */
+	public int getPick( int n ) {
+		return picks[ n ];
+	}
+
+	/**
+	 * Gets the time of a journalled pick.
+	 *
+	 * @param n Pick number.
+	 *
+	 * @return The time of the nth pick in microseconds since the start of the game is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if n is out of bounds.
+	 */
+	public long getPickTime( int n ) {
+		return pickTimes[ n ];
+	}
+
+	/**
+	 * Rebuilds the playfield of the journalled game, before any card has been picked.
+	 *
+	 * @return A new playfield model equal to the one of the journalled game is returned.
+	 *
+	 * @throws IllegalArgumentException if the card package does not exist,
+	 * 	or if its contents differ from those at the time the game was journalled.
+	 */
+	public PlayfieldModel createPlayfieldModel() {
+		CardPackage cardPackage = CardPackage.getShared( packageKey );
+		if ( ( cardPackage.size() != packageSize ) || ( cardPackage.getFingerprint() != packageFingerprint ) ) {
+			throw new IllegalArgumentException( __( ERROR_JOURNALPACKAGE, packageKey ) );
+		}
+		return new PlayfieldModel( cardPackage, size, seed );
+	}
+
+	/**
+	 * Feeds the journalled picks through a playfield model.
+	 *
+	 * @param playfieldModel Playfield model as returned by {@link #createPlayfieldModel()}.
+	 * 	Listeners may be attached before calling this method.
+	 */
+	public void replay( PlayfieldModel playfieldModel ) {
+		for ( int pick: picks ) {
+			playfieldModel.pickCard( pick );
+		}
+	}
+
+	/**
+	 * Rebuilds the journalled game and feeds all journalled picks through it.
+	 *
+	 * @return A playfield model in the final state of the journalled game is returned.
+	 *
+	 * @throws IllegalArgumentException if the card package does not exist,
+	 * 	or if its contents differ from those at the time the game was journalled.
+	 */
+	public PlayfieldModel replay() {
+		PlayfieldModel result = createPlayfieldModel();
+		replay( result );
+		return result;
+	}
+
+	/**
+	 * Prints a summary of journals.
+	 *
+	 * @param args Paths of journal files.
+	 *
+	 * @throws IOException if a journal cannot be read or is invalid.
+	 */
+	public static void main( String... args ) throws IOException {
+		for ( String arg: args ) {
+			Replay replay = open( Paths.get( arg ) );
+			PlayfieldModel playfieldModel = replay.replay();
+			long duration = replay.getPickCount() == 0 ? 0 : replay.getPickTime( replay.getPickCount() - 1 ) / 1000;
+			System.out.println( arg + ": package " + replay.getPackageKey() + ", size " + replay.getSize()
+					+ ", seed " + replay.getSeed() + ", " + replay.getPickCount() + " picks in " + duration + " ms, "
+					+ playfieldModel.failedPicks() + " failed, " + ( playfieldModel.isAllWon() ? "won" : "not won" ) );
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped event counter.
+ * Incrementing is lock-free and scales with the number of threads.
+ */
+public class Counter implements CounterMXBean {
+	/**
+	 * Count.
+	 */
+	private final LongAdder count;
+
+	/**
+	 * Creates a new counter.
+	 * Use {@link Metrics#counter(String)} to create registered counters.
+	 */
+	Counter() {
+		this.count = new LongAdder();
+	}
+
+	/**
+	 * Increments this counter by one.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * Adds to this counter.
+	 *
+	 * @param n Amount to add.
+	 */
+	public void add( long n ) {
+		count.add( n );
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public void reset() {
+		count.reset();
+	}
+}
@@ -0,0 +1,36 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+/**
+ * Management interface of a counter.
+ */
+public interface CounterMXBean {
+	/**
+	 * Returns the count.
+	 *
+	 * @return The current count is returned.
+	 */
+	public long getCount();
+
+	/**
+	 * Resets the count to zero.
+	 */
+	public void reset();
+}
@@ -0,0 +1,156 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Histogram of non-negative values with power-of-two buckets.
+ * Recording is lock-free: each bucket is a striped counter.
+ */
+public class Histogram implements HistogramMXBean {
+	/**
+	 * Number of buckets. Bucket i holds the values v with 2<sup>i-1</sup> &le; v &lt; 2<sup>i</sup>, bucket 0 holds 0.
+	 */
+	private static final int BUCKETS = 64;
+
+	/**
+	 * Maximum operator.
+	 */
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		public long applyAsLong( long a, long b ) {
+			return Math.max( a, b );
+		}
+	};
+
+	/**
+	 * Bucket counts.
+	 */
+	private final LongAdder[] buckets;
+
+	/**
+	 * Sum of all values.
+	 */
+	private final LongAdder sum;
+
+	/**
+	 * Largest value.
+	 */
+	private final LongAccumulator max;
+
+	/**
+	 * Creates a new histogram.
+	 * Use {@link Metrics#histogram(String)} to create registered histograms.
+	 */
+	Histogram() {
+		this.buckets = new LongAdder[ BUCKETS ];
+		for ( int i = 0; i != BUCKETS; ++i ) {
+			this.buckets[ i ] = new LongAdder();
+		}
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator( MAX, 0 );
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value Value. Negative values are recorded as 0.
+	 */
+	public void record( long value ) {
+		if ( value < 0 ) {
+			value = 0;
+		}
+		buckets[ 64 - Long.numberOfLeadingZeros( value ) ].increment();
+		sum.add( value );
+		max.accumulate( value );
+	}
+
+	/**
+	 * Records the time elapsed since a start time.
+	 *
+	 * @param startTime Start time as per {@link System#nanoTime()}.
+	 */
+	public void recordSince( long startTime ) {
+		record( System.nanoTime() - startTime );
+	}
+
+	public long getCount() {
+		long result = 0;
+		for ( LongAdder bucket: buckets ) {
+			result += bucket.sum();
+		}
+		return result;
+	}
+
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) sum.sum() / count;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns a percentile.
+	 *
+	 * @param p Percentile between 0 and 100.
+	 *
+	 * @return The upper bound of the bucket containing the specified percentile is returned.
+	 */
+	public long getPercentile( double p ) {
+		long[] counts = new long[ BUCKETS ];
+		long count = 0;
+		for ( int i = 0; i != BUCKETS; ++i ) {
+			counts[ i ] = buckets[ i ].sum();
+			count += counts[ i ];
+		}
+		long threshold = (long) Math.ceil( p / 100 * count );
+		long cumulative = 0;
+		for ( int i = 0; i != BUCKETS; ++i ) {
+			cumulative += counts[ i ];
+			if ( ( cumulative >= threshold ) && ( cumulative != 0 ) ) {
+				return Math.min( ( 1L << i ) - 1, getMax() );
+			}
+		}
+		return getMax();
+	}
+
+	public long getPercentile50() {
+		return getPercentile( 50 );
+	}
+
+	public long getPercentile90() {
+		return getPercentile( 90 );
+	}
+
+	public long getPercentile99() {
+		return getPercentile( 99 );
+	}
+
+	public void reset() {
+		for ( LongAdder bucket: buckets ) {
+			bucket.reset();
+		}
+		sum.reset();
+		max.reset();
+	}
+}
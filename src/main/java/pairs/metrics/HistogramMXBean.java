@@ -0,0 +1,73 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+/**
+ * Management interface of a histogram.
+ * All values are in the unit of the recorded values, usually nanoseconds.
+ * Percentiles are upper bounds with a relative error of less than a factor of two.
+ */
+public interface HistogramMXBean {
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return The number of recorded values is returned.
+	 */
+	public long getCount();
+
+	/**
+	 * Returns the mean.
+	 *
+	 * @return The mean of all recorded values is returned, or 0 if there are none.
+	 */
+	public double getMean();
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return The largest recorded value is returned, or 0 if there are none.
+	 */
+	public long getMax();
+
+	/**
+	 * Returns the median.
+	 *
+	 * @return An upper bound of the median is returned.
+	 */
+	public long getPercentile50();
+
+	/**
+	 * Returns the 90th percentile.
+	 *
+	 * @return An upper bound of the 90th percentile is returned.
+	 */
+	public long getPercentile90();
+
+	/**
+	 * Returns the 99th percentile.
+	 *
+	 * @return An upper bound of the 99th percentile is returned.
+	 */
+	public long getPercentile99();
+
+	/**
+	 * Discards all recorded values.
+	 */
+	public void reset();
+}
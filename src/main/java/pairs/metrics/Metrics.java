@@ -0,0 +1,138 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Registry of process-wide metrics.
+ *
+ * Metrics are created once, usually into static fields of the measured class, and are exported
+ * as MXBeans named <code>pairs:type=Counter,name=…</code> or <code>pairs:type=Histogram,name=…</code>,
+ * so they can be inspected with any JMX console. Updating a metric never takes a lock.
+ * Log messages are not localised, as metrics may be created while {@link pairs.util.Message} is being initialised.
+ */
+public final class Metrics {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( Metrics.class );
+
+	/**
+	 * JMX domain of all metrics.
+	 */
+	public static final String DOMAIN = "pairs";
+
+	/**
+	 * Registered counters by name.
+	 */
+	private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	/**
+	 * Registered histograms by name.
+	 */
+	private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * Not instantiable.
+	 */
+	private Metrics() {
+	}
+
+	/**
+	 * Exports a metric via JMX.
+	 * A metric of the same name exported by another copy of this class, for example in a separate class loader, is replaced.
+	 * Failure to export is logged but otherwise ignored, as the metric itself still works.
+	 *
+	 * @param metric Metric MXBean.
+	 * @param type Metric type.
+	 * @param name Metric name.
+	 */
+	private static void register( Object metric, String type, String name ) {
+		try {
+			ObjectName objectName = new ObjectName( DOMAIN + ":type=" + type + ",name=" + ObjectName.quote( name ) );
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			try {
+				server.registerMBean( metric, objectName );
+			} catch ( InstanceAlreadyExistsException e ) {
+				server.unregisterMBean( objectName );
+				server.registerMBean( metric, objectName );
+			}
+		} catch ( JMException e ) {
+			logger.warn( "Unable to export metric " + name, e );
+		}
+	}
+
+	/**
+	 * Returns a counter, creating and exporting it if necessary.
+	 *
+	 * @param name Counter name, e.g. <code>cardpackage.cache.hit</code>.
+	 *
+	 * @return The counter with the specified name is returned.
+	 */
+	public static Counter counter( String name ) {
+		if ( name == null ) {
+			throw new NullPointerException();
+		}
+		Counter counter = counters.get( name );
+		if ( counter == null ) {
+			counter = new Counter();
+			Counter oldCounter = counters.putIfAbsent( name, counter );
+			if ( oldCounter != null ) {
+				return oldCounter;
+			}
+			register( counter, "Counter", name );
+		}
+		return counter;
+	}
+
+	/**
+	 * Returns a histogram, creating and exporting it if necessary.
+	 *
+	 * @param name Histogram name, e.g. <code>cardpackage.load</code>.
+	 *
+	 * @return The histogram with the specified name is returned.
+	 */
+	public static Histogram histogram( String name ) {
+		if ( name == null ) {
+			throw new NullPointerException();
+		}
+		Histogram histogram = histograms.get( name );
+		if ( histogram == null ) {
+			histogram = new Histogram();
+			Histogram oldHistogram = histograms.putIfAbsent( name, histogram );
+			if ( oldHistogram != null ) {
+				return oldHistogram;
+			}
+			register( histogram, "Histogram", name );
+		}
+		return histogram;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+/**
+ * Service provider interface for tracing the card pipeline, for example with flight recorder events.
+ *
+ * Implementations are found with {@link java.util.ServiceLoader}, see {@link Tracing}.
+ * Each method starts a span and returns it; implementations should return {@link Span#NONE}
+ * without allocating if the span would not be recorded.
+ */
+public interface Probes {
+	/**
+	 * Starts a card package load span.
+	 *
+	 * @param packageName Name of the card package.
+	 *
+	 * @return A span is returned.
+	 */
+	public Span packageLoad( String packageName );
+
+	/**
+	 * Starts an image load span. Image loading includes parsing.
+	 *
+	 * @param imageName Image name.
+	 *
+	 * @return A span is returned.
+	 */
+	public Span imageLoad( String imageName );
+
+	/**
+	 * Starts an image render span.
+	 *
+	 * @param imageName Image name.
+	 * @param width Image width.
+	 * @param height Image height.
+	 *
+	 * @return A span is returned.
+	 */
+	public Span imageRender( String imageName, int width, int height );
+
+	/**
+	 * Starts a card pick span. Card picks include listener notification.
+	 *
+	 * @param index Index of the picked card.
+	 *
+	 * @return A span is returned.
+	 */
+	public Span cardPick( int index );
+
+	/**
+	 * Starts a playfield change notification span.
+	 *
+	 * @param index Index of the changed card.
+	 * @param changeType Name of the change type.
+	 *
+	 * @return A span is returned.
+	 */
+	public Span playfieldChange( int index, String changeType );
+}
@@ -0,0 +1,38 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+/**
+ * A timed section of work reported to a {@link Probes} implementation.
+ * Spans are ended exactly once, usually in a <code>finally</code> block.
+ */
+public interface Span {
+	/**
+	 * Span doing nothing, returned while tracing is off.
+	 */
+	public static final Span NONE = new Span() {
+		public void finish() {
+		}
+	};
+
+	/**
+	 * Ends this span and reports it.
+	 */
+	public void finish();
+}
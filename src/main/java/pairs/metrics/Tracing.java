@@ -0,0 +1,156 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Entry point for tracing.
+ *
+ * The first {@link Probes} implementation found on the class path is used. Without one,
+ * all spans are {@link Span#NONE}, so tracing costs no more than a call to an empty method.
+ * Log messages are not localised, as tracing may start while {@link pairs.util.Message} is being initialised.
+ */
+public final class Tracing {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( Tracing.class );
+
+	/**
+	 * Probes doing nothing.
+	 */
+	private static final class NoProbes implements Probes {
+		public Span packageLoad( String packageName ) {
+			return Span.NONE;
+		}
+
+		public Span imageLoad( String imageName ) {
+			return Span.NONE;
+		}
+
+		public Span imageRender( String imageName, int width, int height ) {
+			return Span.NONE;
+		}
+
+		public Span cardPick( int index ) {
+			return Span.NONE;
+		}
+
+		public Span playfieldChange( int index, String changeType ) {
+			return Span.NONE;
+		}
+	}
+
+	/**
+	 * Probes in use.
+	 */
+	private static final Probes probes = loadProbes();
+
+	/**
+	 * Not instantiable.
+	 */
+	private Tracing() {
+	}
+
+	/**
+	 * Loads the probes implementation.
+	 *
+	 * @return The first available probes implementation is returned, or probes doing nothing if there is none.
+	 */
+	private static Probes loadProbes() {
+		try {
+			Iterator<Probes> iterator = ServiceLoader.load( Probes.class, Tracing.class.getClassLoader() ).iterator();
+			if ( iterator.hasNext() ) {
+				Probes result = iterator.next();
+				logger.info( "Tracing with " + result.getClass().getName() );
+				return result;
+			}
+		} catch ( ServiceConfigurationError e ) {
+			logger.warn( "Unable to load tracing probes", e );
+		} catch ( LinkageError e ) {
+			/* For example, a provider compiled for a newer Java version */
+			logger.warn( "Unable to load tracing probes", e );
+		}
+		return new NoProbes();
+	}
+
+	/**
+	 * Starts a card package load span.
+	 *
+	 * @param packageName Name of the card package.
+	 *
+	 * @return A span is returned.
+	 */
+	public static Span packageLoad( String packageName ) {
+		return probes.packageLoad( packageName );
+	}
+
+	/**
+	 * Starts an image load span.
+	 *
+	 * @param imageName Image name.
+	 *
+	 * @return A span is returned.
+	 */
+	public static Span imageLoad( String imageName ) {
+		return probes.imageLoad( imageName );
+	}
+
+	/**
+	 * Starts an image render span.
+	 *
+	 * @param imageName Image name.
+	 * @param width Image width.
+	 * @param height Image height.
+	 *
+	 * @return A span is returned.
+	 */
+	public static Span imageRender( String imageName, int width, int height ) {
+		return probes.imageRender( imageName, width, height );
+	}
+
+	/**
+	 * Starts a card pick span.
+	 *
+	 * @param index Index of the picked card.
+	 *
+	 * @return A span is returned.
+	 */
+	public static Span cardPick( int index ) {
+		return probes.cardPick( index );
+	}
+
+	/**
+	 * Starts a playfield change notification span.
+	 *
+	 * @param index Index of the changed card.
+	 * @param changeType Name of the change type.
+	 *
+	 * @return A span is returned.
+	 */
+	public static Span playfieldChange( int index, String changeType ) {
+		return probes.playfieldChange( index, changeType );
+	}
+}
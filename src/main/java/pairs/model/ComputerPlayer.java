@@ -0,0 +1,260 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Computer player with limited memory.
+ *
+ * The player remembers the positions of the most recently revealed cards, regardless of who revealed them.
+ * Its strength is determined by how many positions it can remember and how reliably it recalls a remembered position.
+ * All state is allocated on construction; taking a turn neither allocates nor takes more than time linear in the playfield size.
+ */
+public class ComputerPlayer implements Player, PlayfieldChangeListener {
+	/**
+	 * Marker for an unused memory slot or an unremembered card.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Playfield model.
+	 */
+	private final PlayfieldModel playfieldModel;
+
+	/**
+	 * Probability of recalling a remembered card.
+	 */
+	private final double recall;
+
+	/**
+	 * Randomness source.
+	 */
+	private final SplittableRandom random;
+
+	/**
+	 * Remembered card indices, used as ring buffer.
+	 */
+	private final int[] memory;
+
+	/**
+	 * Memory slot for each card, or {@link #NONE}.
+	 */
+	private final int[] memorySlots;
+
+	/**
+	 * Scratch space for candidate card indices.
+	 */
+	private final int[] candidates;
+
+	/**
+	 * Next memory slot to be overwritten.
+	 */
+	private int nextSlot;
+
+	/**
+	 * Creates a new computer player and attaches it to the specified playfield.
+	 *
+	 * @param playfieldModel Playfield to play on.
+	 * @param memorySize Maximum number of remembered cards. Capped to the playfield size.
+	 * @param recall Probability of recalling a remembered card, between 0 and 1.
+	 * @param random Randomness source.
+	 *
+	 * @throws IllegalArgumentException if memorySize is negative or recall is out of range.
+	 * @throws NullPointerException if playfieldModel or random is null.
+	 */
+	public ComputerPlayer( PlayfieldModel playfieldModel, int memorySize, double recall, SplittableRandom random ) {
+		if ( ( playfieldModel == null ) || ( random == null ) ) {
+			throw new NullPointerException();
+		}
+		if ( memorySize < 0 ) {
+			throw new IllegalArgumentException( __( ERROR_MEMORYSIZE, memorySize ) );
+		}
+		if ( !( ( recall >= 0 ) && ( recall <= 1 ) ) ) {
+			throw new IllegalArgumentException( __( ERROR_RECALL, recall ) );
+		}
+		int size = playfieldModel.getSize();
+		this.playfieldModel = playfieldModel;
+		this.recall = recall;
+		this.random = random;
+		this.memory = new int[ Math.min( memorySize, size ) ];
+		Arrays.fill( this.memory, NONE );
+		this.memorySlots = new int[ size ];
+		Arrays.fill( this.memorySlots, NONE );
+		this.candidates = new int[ size ];
+		this.nextSlot = 0;
+		for ( int i = 0; i != size; ++i ) {
+			if ( playfieldModel.isShown( i ) && !playfieldModel.isWon( i ) ) {
+				remember( i );
+			}
+		}
+		playfieldModel.addChangeListener( this );
+	}
+
+	/**
+	 * Remembers a revealed card, forgetting the oldest remembered card if the memory is full.
+	 *
+	 * @param i Card index.
+	 */
+	private void remember( int i ) {
+		if ( ( memory.length == 0 ) || ( memorySlots[ i ] != NONE ) ) {
+			return;
+		}
+		int evicted = memory[ nextSlot ];
+		if ( evicted != NONE ) {
+			memorySlots[ evicted ] = NONE;
+		}
+		memory[ nextSlot ] = i;
+		memorySlots[ i ] = nextSlot;
+		nextSlot = ( nextSlot + 1 ) % memory.length;
+	}
+
+	/**
+	 * Forgets a card.
+	 *
+	 * @param i Card index.
+	 */
+	private void forget( int i ) {
+		int slot = memorySlots[ i ];
+		if ( slot != NONE ) {
+			memory[ slot ] = NONE;
+			memorySlots[ i ] = NONE;
+		}
+	}
+
+	/**
+	 * Tries to recall a card.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return If the card is remembered and recalled successfully, true is returned.
+	 * 	Otherwise, false is returned.
+	 */
+	private boolean recalls( int i ) {
+		return ( memorySlots[ i ] != NONE ) && ( random.nextDouble() < recall );
+	}
+
+	/**
+	 * Looks for a remembered pair.
+	 *
+	 * @return The index of one card of a recalled pair is returned, or {@link #NONE} if no pair is recalled.
+	 */
+	private int findRecalledPair() {
+		for ( int slot = 0; slot != memory.length; ++slot ) {
+			int i = memory[ slot ];
+			if ( ( i != NONE ) && ( memorySlots[ playfieldModel.getPartnerIndex( i ) ] != NONE ) ) {
+				if ( recalls( i ) && recalls( playfieldModel.getPartnerIndex( i ) ) ) {
+					return i;
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Chooses a random card in play, preferring cards not remembered.
+	 *
+	 * @param excluded Index of a card which must not be chosen, or {@link #NONE}.
+	 *
+	 * @return The index of the chosen card is returned, or {@link #NONE} if there is no card to choose.
+	 */
+	private int chooseRandomCard( int excluded ) {
+		int size = playfieldModel.getSize();
+		int unknown = 0;
+		int known = candidates.length;
+		for ( int i = 0; i != size; ++i ) {
+			if ( ( i == excluded ) || playfieldModel.isWon( i ) ) {
+				continue;
+			}
+			if ( memorySlots[ i ] == NONE ) {
+				candidates[ unknown++ ] = i; // unknown cards fill the scratch space from the front
+			} else {
+				candidates[ --known ] = i; // known cards from the back
+			}
+		}
+		if ( unknown != 0 ) {
+			return candidates[ random.nextInt( unknown ) ];
+		}
+		if ( known != candidates.length ) {
+			return candidates[ known + random.nextInt( candidates.length - known ) ];
+		}
+		return NONE;
+	}
+
+	/**
+	 * Chooses the second card of a turn once the first card has been revealed.
+	 *
+	 * @param first Index of the first card.
+	 *
+	 * @return The index of the recalled partner of the first card is returned, or a random card if the partner is not recalled.
+	 */
+	private int chooseSecondCard( int first ) {
+		int partner = playfieldModel.getPartnerIndex( first );
+		return recalls( partner ) ? partner : chooseRandomCard( first );
+	}
+
+	/**
+	 * Plays one turn, that is, picks two cards.
+	 * If a card is already picked when the turn starts, it is used as the first card of the turn.
+	 * If the game is already won, no operation is performed.
+	 */
+	public void playTurn() {
+		if ( playfieldModel.isAllWon() ) {
+			return;
+		}
+		int first = playfieldModel.getPickedCardIndex();
+		int second;
+		if ( first == NONE ) {
+			first = findRecalledPair();
+			if ( first == NONE ) {
+				first = chooseRandomCard( NONE );
+				second = chooseSecondCard( first ); // before picking, as remembering the first card may evict its partner
+			} else {
+				second = playfieldModel.getPartnerIndex( first );
+			}
+			playfieldModel.pickCard( first );
+		} else {
+			second = chooseSecondCard( first );
+		}
+		playfieldModel.pickCard( second );
+	}
+
+	/**
+	 * Keeps track of revealed and removed cards.
+	 *
+	 * @param playfieldModel The playfield that has changed.
+	 * @param i Index of the card that has changed.
+	 * @param type Change type.
+	 */
+	public void playfieldChanged( PlayfieldModel playfieldModel, int i, ChangeType type ) {
+		switch ( type ) {
+			case CARD_SHOWN:
+			case CARD_HIDDEN: // the second card of a failed pick is only reported as hidden
+				remember( i );
+				break;
+			case CARD_REMOVED:
+				forget( i );
+				break;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.Arrays;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game clock.
+ *
+ * The clock measures the playing time of a game with {@link System#nanoTime()}, so it is not affected
+ * by wall clock adjustments. It can be paused and resumed, and records the playing time of each pick as a split.
+ * Instances of this class are not thread-safe.
+ */
+public class GameClock {
+	/**
+	 * Initial capacity of the splits array.
+	 */
+	private static final int INITIAL_SPLITS = 64;
+
+	/**
+	 * Start time as per {@link System#nanoTime()}, moved forward by the time spent paused.
+	 */
+	private long startTime;
+
+	/**
+	 * Time at which the clock was paused or stopped as per {@link System#nanoTime()}.
+	 */
+	private long frozenTime;
+
+	/**
+	 * Whether the clock has been started and not stopped since.
+	 */
+	private boolean running;
+
+	/**
+	 * Whether the clock is paused.
+	 */
+	private boolean paused;
+
+	/**
+	 * Split times (ns of playing time).
+	 */
+	private long[] splits;
+
+	/**
+	 * Number of splits.
+	 */
+	private int splitCount;
+
+	/**
+	 * Creates a new, stopped game clock.
+	 */
+	public GameClock() {
+		this.startTime = System.nanoTime();
+		this.frozenTime = this.startTime;
+		this.running = false;
+		this.paused = false;
+		this.splits = new long[ INITIAL_SPLITS ];
+		this.splitCount = 0;
+	}
+
+	/**
+	 * Starts the clock from zero, discarding all splits.
+	 */
+	public void start() {
+		startTime = System.nanoTime();
+		running = true;
+		paused = false;
+		splitCount = 0;
+	}
+
+	/**
+	 * Stops the clock.
+	 * The elapsed time is retained until the clock is started again.
+	 */
+	public void stop() {
+		if ( running && !paused ) {
+			frozenTime = System.nanoTime();
+		}
+		running = false;
+		paused = false;
+	}
+
+	/**
+	 * Pauses the clock.
+	 * If the clock is not running or already paused, no operation is performed.
+	 */
+	public void pause() {
+		if ( running && !paused ) {
+			frozenTime = System.nanoTime();
+			paused = true;
+		}
+	}
+
+	/**
+	 * Resumes the clock after a pause.
+	 * If the clock is not paused, no operation is performed.
+	 */
+	public void resume() {
+		if ( paused ) {
+			startTime += System.nanoTime() - frozenTime;
+			paused = false;
+		}
+	}
+
+	/**
+	 * Returns whether the clock is running.
+	 *
+	 * @return If the clock has been started and not stopped since, true is returned, even if it is paused.
+	 * 	Otherwise, false is returned.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns whether the clock is paused.
+	 *
+	 * @return If the clock is paused, true is returned. Otherwise, false is returned.
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Returns the elapsed playing time.
+	 *
+	 * @return The playing time since the clock was started, excluding pauses, is returned in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return ( running && !paused ? System.nanoTime() : frozenTime ) - startTime;
+	}
+
+	/**
+	 * Returns the elapsed playing time.
+	 *
+	 * @param unit Time unit.
+	 *
+	 * @return The playing time since the clock was started, excluding pauses, is returned in the specified unit.
+	 */
+	public long getElapsed( TimeUnit unit ) {
+		return unit.convert( getElapsedNanos(), TimeUnit.NANOSECONDS );
+	}
+
+	/**
+	 * Records a split.
+	 * If the clock is not running, no split is recorded.
+	 *
+	 * @return The elapsed playing time at the split is returned in nanoseconds.
+	 */
+	public long split() {
+		long result = getElapsedNanos();
+		if ( running ) {
+			if ( splitCount == splits.length ) {
+				splits = Arrays.copyOf( splits, 2 * splitCount );
+			}
+			splits[ splitCount++ ] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of splits.
+	 *
+	 * @return The number of splits recorded since the clock was started is returned.
+	 */
+	public int getSplitCount() {
+		return splitCount;
+	}
+
+	/**
+	 * Returns a split.
+	 *
+	 * @param n Split number.
+	 *
+	 * @return The elapsed playing time at the nth split is returned in nanoseconds.
+	 *
+	 * @throws IndexOutOfBoundsException if n is out of bounds.
+	 */
+	public long getSplit( int n ) {
+		if ( ( n < 0 ) || ( n >= splitCount ) ) {
+			throw new IndexOutOfBoundsException();
+		}
+		return splits[ n ];
+	}
+}
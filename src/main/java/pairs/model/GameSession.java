@@ -0,0 +1,141 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A headless game managed by a {@link SessionManager}.
+ *
+ * The playfield model of a session is confined to the event loop the session is bound to.
+ * All access to the model must therefore go through {@link #submit(Callable)} or {@link #pickCard(int)}.
+ */
+public class GameSession {
+	/**
+	 * Session ID.
+	 */
+	private final long id;
+
+	/**
+	 * Playfield model of this session.
+	 */
+	private final PlayfieldModel playfieldModel;
+
+	/**
+	 * Event loop this session is bound to.
+	 */
+	private final ExecutorService eventLoop;
+
+	/**
+	 * Time of last access as per {@link System#nanoTime()}.
+	 */
+	private volatile long lastAccess;
+
+	/**
+	 * Creates a new game session.
+	 *
+	 * @param id Session ID.
+	 * @param playfieldModel Playfield model of the new session.
+	 * @param eventLoop Event loop the new session is bound to.
+	 *
+	 * @throws NullPointerException if one of the arguments is null.
+	 */
+	GameSession( long id, PlayfieldModel playfieldModel, ExecutorService eventLoop ) {
+		if ( ( playfieldModel == null ) || ( eventLoop == null ) ) {
+			throw new NullPointerException();
+		}
+		this.id = id;
+		this.playfieldModel = playfieldModel;
+		this.eventLoop = eventLoop;
+		this.lastAccess = System.nanoTime();
+	}
+
+	/**
+	 * Gets the session ID.
+	 *
+	 * @return The session ID is returned.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Marks this session as accessed now.
+	 */
+	void touch() {
+		lastAccess = System.nanoTime();
+	}
+
+	/**
+	 * Returns how long this session has been idle.
+	 *
+	 * @param now Current time as per {@link System#nanoTime()}.
+	 *
+	 * @return The idle time of this session in nanoseconds is returned.
+	 */
+	long getIdleNanos( long now ) {
+		return now - lastAccess;
+	}
+
+	/**
+	 * Runs a task against the playfield model of this session on the session's event loop.
+	 *
+	 * @param task Task to run. The task may access the model through {@link #getPlayfieldModel()}.
+	 *
+	 * @return A future for the result of the task is returned.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException if the session manager has been shut down.
+	 * @throws NullPointerException if task is null.
+	 */
+	public <T> Future<T> submit( Callable<T> task ) {
+		touch();
+		return eventLoop.submit( task );
+	}
+
+	/**
+	 * Picks a card on the session's event loop.
+	 *
+	 * @param i Index of the card to pick.
+	 *
+	 * @return A future completing once the card has been picked is returned.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException if the session manager has been shut down.
+	 * @see PlayfieldModel#pickCard(int)
+	 */
+	public Future<?> pickCard( final int i ) {
+		touch();
+		return eventLoop.submit( new Runnable() {
+			public void run() {
+				playfieldModel.pickCard( i );
+			}
+		} );
+	}
+
+	/**
+	 * Gets the playfield model of this session.
+	 * The model must only be accessed from within tasks submitted to this session.
+	 *
+	 * @return The playfield model of this session is returned.
+	 */
+	public PlayfieldModel getPlayfieldModel() {
+		return playfieldModel;
+	}
+}
@@ -19,10 +19,7 @@
 package pairs.model;
 
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.SplittableRandom;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
@@ -31,12 +28,18 @@ import pairs.data.Card;
 import pairs.data.CardPackage;
 import pairs.data.CardPair;
 
+import pairs.metrics.Histogram;
+import pairs.metrics.Metrics;
+import pairs.metrics.Span;
+import pairs.metrics.Tracing;
+
 import pairs.util.Random;
 import pairs.util.UnorderedPair;
 
 import static pairs.model.PlayfieldChangeListener.*;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Pairs playfield model.
@@ -47,6 +50,16 @@ public class PlayfieldModel {
 	 */
 	private static final Logger logger = LogManager.getLogger( PlayfieldModel.class );
 
+	/**
+	 * Pick times, including listener notification (ns).
+	 */
+	private static final Histogram pickTime = Metrics.histogram( "playfield.pick" );
+
+	/**
+	 * Empty listener array.
+	 */
+	private static final PlayfieldChangeListener[] NO_LISTENERS = new PlayfieldChangeListener[ 0 ];
+
 	/**
 	 * Allowed playfield sizes.
 	 */
@@ -84,6 +97,16 @@ public class PlayfieldModel {
 		{ 12, 12 }
 	};
 
+	/**
+	 * Seed the playfield layout was created from.
+	 */
+	private final long seed;
+
+	/**
+	 * Card package this model is based on.
+	 */
+	private final CardPackage cardPackage;
+
 	/**
 	 * Playfield size.
 	 */
@@ -100,14 +123,14 @@ public class PlayfieldModel {
 	private final int height;
 
 	/**
-	 * Card pairs this playfield is based on.
+	 * Cards on the playfield.
 	 */
-	private final Set<CardPair> cardPairs;
+	private final Card[] cards;
 
 	/**
-	 * Cards on the playfield.
+	 * Index of the matching card for each card on the playfield.
 	 */
-	private final Card[] cards;
+	private final int[] partnerIndices;
 
 	/**
 	 * Index of the card currently picked, or -1 if none.
@@ -135,9 +158,10 @@ public class PlayfieldModel {
 	private int failedPicks;
 
 	/**
-	 * Listener list.
+	 * Listeners. The array is replaced rather than modified when a listener is added,
+	 * so notification can loop over it without allocating an iterator.
 	 */
-	private final List<PlayfieldChangeListener> listenerList;
+	private PlayfieldChangeListener[] listeners;
 
 	/**
 	 * Creates a new random playfield model.
@@ -148,6 +172,20 @@ public class PlayfieldModel {
 	 * @throws NullPointerException if the card package is null.
 	 */
 	public PlayfieldModel( CardPackage cardPackage, int sizeHint ) {
+		this( cardPackage, sizeHint, Random.nextSeed() );
+	}
+
+	/**
+	 * Creates a new playfield model with a layout determined by the specified seed.
+	 * Equal card packages, size hints and seeds yield equal layouts.
+	 *
+	 * @param cardPackage Card package this model is based on.
+	 * @param sizeHint Suggested size of the playfield.
+	 * @param seed Layout seed.
+	 *
+	 * @throws NullPointerException if the card package is null.
+	 */
+	public PlayfieldModel( CardPackage cardPackage, int sizeHint, long seed ) {
 		if ( cardPackage == null ) {
 			throw new NullPointerException();
 		}
@@ -159,24 +197,33 @@ public class PlayfieldModel {
 			if ( sizeIndex >= ALLOWED_SIZES.length ) {
 				sizeIndex = ALLOWED_SIZES.length - 1;
 			}
-			logger.warn( __( "warn-playfieldsize", ALLOWED_SIZES[ sizeIndex ], sizeHint ) );
+			logger.warn( __( WARN_PLAYFIELDSIZE, ALLOWED_SIZES[ sizeIndex ], sizeHint ) );
 		}
 		this.size = ALLOWED_SIZES[ sizeIndex ];
 		this.width = PLAYFIELD_DIMENSIONS[ sizeIndex ][ 0 ];
 		this.height = PLAYFIELD_DIMENSIONS[ sizeIndex ][ 1 ];
 
 		/* Cards and card pairs */
-		CardPair[] cardPairs = cardPackage.createRandomSample( this.size / 2 );
+		this.seed = seed;
+		this.cardPackage = cardPackage;
+		SplittableRandom random = new SplittableRandom( seed );
+		CardPair[] cardPairs = cardPackage.createRandomSample( this.size / 2, random );
+		Integer[] positions = new Integer[ this.size ];
+		for ( int i = 0; i != this.size; ++i ) {
+			positions[ i ] = i;
+		}
+		Random.randomiseArray( positions, random );
 		this.cards = new Card[ this.size ];
-		int index = 0;
-		for ( final CardPair cardPair: cardPairs ) {
-			this.cards[ index++ ] = cardPair.getFirst();
-			this.cards[ index++ ] = cardPair.getSecond();
+		int[] cardIndices = new int[ this.size ];
+		for ( int i = 0; i != this.size; ++i ) {
+			int position = positions[ i ];
+			CardPair cardPair = cardPairs[ position / 2 ];
+			this.cards[ i ] = ( position % 2 == 0 ) ? cardPair.getFirst() : cardPair.getSecond();
+			cardIndices[ position ] = i;
 		}
-		Random.randomiseArray( this.cards );
-		this.cardPairs = new HashSet( Arrays.asList( cardPairs ) );
-		if ( 2 * this.cardPairs.size() != this.cards.length ) {
-			throw new AssertionError( "This should not happen" );
+		this.partnerIndices = new int[ this.size ];
+		for ( int i = 0; i != this.size; ++i ) {
+			this.partnerIndices[ i ] = cardIndices[ positions[ i ] ^ 1 ];
 		}
 		this.pickedCardIndex = -1;
 		this.cardsShown = new boolean[ this.size ];
@@ -191,7 +238,7 @@ public class PlayfieldModel {
 		}
 		this.cardPairsLeft = cardPairs.length;
 		this.failedPicks = 0;
-		this.listenerList = new LinkedList();
+		this.listeners = NO_LISTENERS;
 	}
 
 	/**
@@ -200,7 +247,9 @@ public class PlayfieldModel {
 	 * @param listener Playfield change listener.
 	 */
 	public void addChangeListener( PlayfieldChangeListener listener ) {
-		listenerList.add( listener );
+		PlayfieldChangeListener[] newListeners = Arrays.copyOf( listeners, listeners.length + 1 );
+		newListeners[ listeners.length ] = listener;
+		listeners = newListeners;
 	}
 
 	/**
@@ -210,11 +259,35 @@ public class PlayfieldModel {
 	 * @param type Change type.
 	 */
 	protected void firePlayfieldChanged( int i, ChangeType type ) {
-		for ( PlayfieldChangeListener listener: listenerList ) {
-			listener.playfieldChanged( this, i, type );
+		Span span = Tracing.playfieldChange( i, type.name() );
+		try {
+			PlayfieldChangeListener[] listeners = this.listeners;
+			for ( int j = 0; j != listeners.length; ++j ) {
+				listeners[ j ].playfieldChanged( this, i, type );
+			}
+		} finally {
+			span.finish();
 		}
 	}
 
+	/**
+	 * Gets the card package this playfield is based on.
+	 *
+	 * @return The card package is returned.
+	 */
+	public CardPackage getCardPackage() {
+		return cardPackage;
+	}
+
+	/**
+	 * Gets the seed the layout of this playfield was created from.
+	 *
+	 * @return The layout seed is returned.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
 	/**
 	 * Gets the playfield size.
 	 *
@@ -255,6 +328,20 @@ public class PlayfieldModel {
 		return cards[ i ];
 	}
 
+	/**
+	 * Gets the index of the card matching the card at the specified index.
+	 * This is for players who know the content of both cards, such as {@link ComputerPlayer}.
+	 *
+	 * @param i Index.
+	 *
+	 * @return The index of the matching card is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	int getPartnerIndex( int i ) {
+		return partnerIndices[ i ];
+	}
+
 	/**
 	 * Returns the currently picked card.
 	 *
@@ -283,6 +370,7 @@ public class PlayfieldModel {
 	 * If the card is the currently picked card, no operation is performed.
 	 * If no card is currently picked, the card at the specified position becomes the picked card.
 	 * Otherwise, if the currently picked card and the specified card form a valid pair, they are marked as won.
+	 * Cards are compared by content ID, so a card matches any card with the same content as its partner.
 	 * Otherwise, no card will be marked as picked, and the number of failed picks is increased by one.
 	 *
 	 * @param i Index.
@@ -290,8 +378,26 @@ public class PlayfieldModel {
 	 * @throws IndexOutOfBoundsException if i is out of bounds.
 	 */
 	public void pickCard( int i ) {
+		long start = System.nanoTime();
+		Span span = Tracing.cardPick( i );
+		try {
+			doPickCard( i );
+		} finally {
+			pickTime.recordSince( start );
+			span.finish();
+		}
+	}
+
+	/**
+	 * Picks a card at the specified index, see {@link #pickCard(int)}.
+	 *
+	 * @param i Index.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	private void doPickCard( int i ) {
 		Card wannaPick = cards[ i ];
-		if ( cardsWon[ i ] ) {
+		if ( !isPickable( i ) ) {
 			return;
 		}
 		if ( pickedCardIndex == -1 ) {
@@ -300,12 +406,16 @@ public class PlayfieldModel {
 			firePlayfieldChanged( i, ChangeType.CARD_SHOWN );
 			return;
 		}
-		if ( pickedCardIndex == i ) {
-			return;
-		}
-		Card pickedCard = cards[ pickedCardIndex ];
-		CardPair candidate = new CardPair( pickedCard, wannaPick );
-		if ( cardPairs.contains( candidate ) ) {
+		int pickedPartnerIndex = partnerIndices[ pickedCardIndex ];
+		if ( cards[ pickedPartnerIndex ].getId() == wannaPick.getId() ) {
+			if ( pickedPartnerIndex != i ) {
+				/* Equal content from another pair: the leftover cards now form a pair */
+				int partnerIndex = partnerIndices[ i ];
+				partnerIndices[ pickedPartnerIndex ] = partnerIndex;
+				partnerIndices[ partnerIndex ] = pickedPartnerIndex;
+				partnerIndices[ pickedCardIndex ] = i;
+				partnerIndices[ i ] = pickedCardIndex;
+			}
 			cardsWon[ i ] = true;
 			cardsWon[ pickedCardIndex ] = true;
 			--cardPairsLeft;
@@ -325,6 +435,20 @@ public class PlayfieldModel {
 		return;
 	}
 
+	/**
+	 * Returns whether picking the card at the specified index changes the playfield.
+	 *
+	 * @param i Index.
+	 *
+	 * @return If the card at the specified index is neither won nor the currently picked card, true is returned.
+	 * 	Otherwise, {@link #pickCard(int)} performs no operation, and false is returned.
+	 *
+	 * @throws IndexOutOfBoundsException if i is out of bounds.
+	 */
+	public boolean isPickable( int i ) {
+		return !cardsWon[ i ] && ( pickedCardIndex != i );
+	}
+
 	/**
 	 * Returns whether the card at the specified index is won.
 	 *
@@ -0,0 +1,214 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.Iterator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import pairs.data.CardPackage;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Manager for many concurrent headless games.
+ *
+ * Sessions are distributed over a small, fixed pool of single-threaded event loops.
+ * Card packages are shared between all sessions, see {@link CardPackage#getShared(String)}.
+ * Sessions which have not been accessed for longer than the idle timeout are expired automatically.
+ */
+public class SessionManager {
+	/**
+	 * Minimum interval between two expiry runs (ms).
+	 */
+	private static final long MIN_EXPIRY_INTERVAL = 10;
+
+	/**
+	 * Creates a thread factory for daemon threads.
+	 *
+	 * @param prefix Thread name prefix.
+	 *
+	 * @return A new thread factory is returned.
+	 */
+	private static ThreadFactory daemonThreadFactory( final String prefix ) {
+		return new ThreadFactory() {
+			private final AtomicLong count = new AtomicLong();
+
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, prefix + count.getAndIncrement() );
+				thread.setDaemon( true );
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Event loops.
+	 */
+	private final ExecutorService[] eventLoops;
+
+	/**
+	 * Idle timeout (ns).
+	 */
+	private final long idleTimeout;
+
+	/**
+	 * Active sessions.
+	 */
+	private final ConcurrentMap<Long, GameSession> sessions;
+
+	/**
+	 * Next session ID.
+	 */
+	private final AtomicLong nextId;
+
+	/**
+	 * Executor for expiring idle sessions.
+	 */
+	private final ScheduledExecutorService expiryExecutor;
+
+	/**
+	 * Creates a new session manager.
+	 *
+	 * @param eventLoopCount Number of event loops.
+	 * @param idleTimeout Time after which an idle session expires.
+	 * @param unit Time unit of idleTimeout.
+	 *
+	 * @throws IllegalArgumentException if eventLoopCount or idleTimeout is not positive.
+	 * @throws NullPointerException if unit is null.
+	 */
+	public SessionManager( int eventLoopCount, long idleTimeout, TimeUnit unit ) {
+		if ( eventLoopCount <= 0 ) {
+			throw new IllegalArgumentException( __( ERROR_EVENTLOOPS, eventLoopCount ) );
+		}
+		if ( idleTimeout <= 0 ) {
+			throw new IllegalArgumentException( __( ERROR_IDLETIMEOUT, idleTimeout ) );
+		}
+		this.idleTimeout = unit.toNanos( idleTimeout );
+		this.sessions = new ConcurrentHashMap<Long, GameSession>();
+		this.nextId = new AtomicLong();
+		this.eventLoops = new ExecutorService[ eventLoopCount ];
+		ThreadFactory loopFactory = daemonThreadFactory( "pairs-session-loop-" );
+		for ( int i = 0; i != eventLoopCount; ++i ) {
+			this.eventLoops[ i ] = Executors.newSingleThreadExecutor( loopFactory );
+		}
+		this.expiryExecutor = Executors.newSingleThreadScheduledExecutor( daemonThreadFactory( "pairs-session-expiry-" ) );
+		long expiryInterval = Math.max( MIN_EXPIRY_INTERVAL, unit.toMillis( idleTimeout ) / 4 );
+		this.expiryExecutor.scheduleWithFixedDelay( new Runnable() {
+			public void run() {
+				expireIdleSessions();
+			}
+		}, expiryInterval, expiryInterval, TimeUnit.MILLISECONDS );
+	}
+
+	/**
+	 * Creates a new session with a random playfield.
+	 *
+	 * @param packageName Name of the card package to use.
+	 * @param sizeHint Suggested size of the playfield.
+	 *
+	 * @return The new session is returned.
+	 *
+	 * @throws IllegalArgumentException if there is no package with the specified name.
+	 */
+	public GameSession createSession( String packageName, int sizeHint ) {
+		PlayfieldModel playfieldModel = new PlayfieldModel( CardPackage.getShared( packageName ), sizeHint );
+		long id = nextId.getAndIncrement();
+		GameSession session = new GameSession( id, playfieldModel, eventLoops[ (int) ( id % eventLoops.length ) ] );
+		sessions.put( id, session );
+		return session;
+	}
+
+	/**
+	 * Looks up a session.
+	 * Looking up a session counts as an access.
+	 *
+	 * @param id Session ID.
+	 *
+	 * @return The session with the specified ID is returned, or null if there is no such session.
+	 */
+	public GameSession getSession( long id ) {
+		GameSession session = sessions.get( id );
+		if ( session != null ) {
+			session.touch();
+		}
+		return session;
+	}
+
+	/**
+	 * Removes a session.
+	 *
+	 * @param id Session ID.
+	 *
+	 * @return If a session with the specified ID existed, true is returned.
+	 * 	Otherwise, false is returned.
+	 */
+	public boolean removeSession( long id ) {
+		return sessions.remove( id ) != null;
+	}
+
+	/**
+	 * Gets the number of active sessions.
+	 *
+	 * @return The number of active sessions is returned.
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Removes all sessions which have been idle for longer than the idle timeout.
+	 * This method is called periodically, but may also be called explicitly.
+	 *
+	 * @return The number of expired sessions is returned.
+	 */
+	public int expireIdleSessions() {
+		int expired = 0;
+		long now = System.nanoTime();
+		Iterator<GameSession> iterator = sessions.values().iterator();
+		while ( iterator.hasNext() ) {
+			if ( iterator.next().getIdleNanos( now ) > idleTimeout ) {
+				iterator.remove();
+				++expired;
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Shuts down this session manager.
+	 * All sessions are removed. Tasks already submitted to a session still complete.
+	 */
+	public void shutdown() {
+		expiryExecutor.shutdownNow();
+		for ( ExecutorService eventLoop: eventLoops ) {
+			eventLoop.shutdown();
+		}
+		sessions.clear();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.net;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct byte buffers of a fixed size.
+ * Instances of this class are not thread-safe; each pool is meant to be owned by a single selector thread.
+ */
+class BufferPool {
+	/**
+	 * Buffer capacity in bytes.
+	 */
+	private final int bufferSize;
+
+	/**
+	 * Maximum number of idle buffers kept in the pool.
+	 */
+	private final int maxIdle;
+
+	/**
+	 * Idle buffers.
+	 */
+	private final ArrayDeque<ByteBuffer> idle;
+
+	/**
+	 * Creates a new buffer pool.
+	 *
+	 * @param bufferSize Capacity of the pooled buffers in bytes.
+	 * @param maxIdle Maximum number of idle buffers kept in the pool.
+	 */
+	BufferPool( int bufferSize, int maxIdle ) {
+		this.bufferSize = bufferSize;
+		this.maxIdle = maxIdle;
+		this.idle = new ArrayDeque<ByteBuffer>( maxIdle );
+	}
+
+	/**
+	 * Takes a cleared buffer from the pool, allocating a new one if the pool is empty.
+	 *
+	 * @return A cleared direct buffer is returned.
+	 */
+	ByteBuffer acquire() {
+		ByteBuffer buffer = idle.pollFirst();
+		if ( buffer == null ) {
+			return ByteBuffer.allocateDirect( bufferSize );
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool.
+	 *
+	 * @param buffer Buffer previously obtained from {@link #acquire()}. Ignored if null.
+	 */
+	void release( ByteBuffer buffer ) {
+		if ( ( buffer != null ) && ( idle.size() < maxIdle ) ) {
+			idle.addFirst( buffer );
+		}
+	}
+}
@@ -0,0 +1,423 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.net;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+
+import pairs.data.Card;
+import pairs.data.CardPackage;
+
+import pairs.model.PlayfieldChangeListener;
+import pairs.model.PlayfieldModel;
+
+/**
+ * Server side of a remote play connection.
+ *
+ * A connection owns one game at a time. All methods must be called from the selector thread.
+ * Incoming frames may be pipelined; all frames received in one read are processed before the
+ * resulting change notifications are written out in a single write.
+ */
+class Connection implements PlayfieldChangeListener, ProtocolConstants {
+	/**
+	 * Maximum number of bytes of a string sent to the client.
+	 * Longer strings are truncated at a character boundary.
+	 */
+	private static final int MAX_STRING_LENGTH = 1024;
+
+	/**
+	 * Size of a state delta frame without card content.
+	 */
+	private static final int DELTA_FRAME_SIZE = LENGTH_FIELD_SIZE + 4;
+
+	/**
+	 * Maximum size of a state delta frame with card content.
+	 */
+	private static final int SHOWN_FRAME_SIZE = DELTA_FRAME_SIZE + 3 + MAX_STRING_LENGTH;
+
+	/**
+	 * Size of a game won frame.
+	 */
+	private static final int GAME_WON_FRAME_SIZE = LENGTH_FIELD_SIZE + 5;
+
+	/**
+	 * Size of a game started frame.
+	 */
+	private static final int GAME_STARTED_FRAME_SIZE = LENGTH_FIELD_SIZE + 5;
+
+	/**
+	 * Size of an error frame.
+	 */
+	private static final int ERROR_FRAME_SIZE = LENGTH_FIELD_SIZE + 2;
+
+	/**
+	 * Output space which must be available before a client frame is processed.
+	 * A pick produces at most one shown frame, two further state delta frames and a game won frame.
+	 */
+	private static final int MAX_OUTPUT_PER_FRAME = SHOWN_FRAME_SIZE + 2 * DELTA_FRAME_SIZE + GAME_WON_FRAME_SIZE;
+
+	/**
+	 * Socket channel.
+	 */
+	private final SocketChannel channel;
+
+	/**
+	 * Selection key of the channel.
+	 */
+	private final SelectionKey key;
+
+	/**
+	 * Buffer pool the I/O buffers are taken from.
+	 */
+	private final BufferPool bufferPool;
+
+	/**
+	 * UTF-8 encoder shared by all connections of the selector thread.
+	 */
+	private final CharsetEncoder encoder;
+
+	/**
+	 * UTF-8 decoder shared by all connections of the selector thread.
+	 */
+	private final CharsetDecoder decoder;
+
+	/**
+	 * Input buffer, in write mode.
+	 */
+	private ByteBuffer in;
+
+	/**
+	 * Output buffer, in write mode.
+	 */
+	private ByteBuffer out;
+
+	/**
+	 * Current game, or null if no game has been started yet.
+	 */
+	private PlayfieldModel playfieldModel;
+
+	/**
+	 * Creates a new connection.
+	 *
+	 * @param channel Socket channel, already in non-blocking mode.
+	 * @param key Selection key of the channel.
+	 * @param bufferPool Buffer pool.
+	 * @param encoder UTF-8 encoder.
+	 * @param decoder UTF-8 decoder.
+	 */
+	Connection( SocketChannel channel, SelectionKey key, BufferPool bufferPool, CharsetEncoder encoder, CharsetDecoder decoder ) {
+		this.channel = channel;
+		this.key = key;
+		this.bufferPool = bufferPool;
+		this.encoder = encoder;
+		this.decoder = decoder;
+		this.in = bufferPool.acquire();
+		this.out = bufferPool.acquire();
+		this.playfieldModel = null;
+	}
+
+	/**
+	 * Handles a readable channel.
+	 *
+	 * @throws IOException if an I/O error occurs or the client violates the protocol.
+	 */
+	void onReadable() throws IOException {
+		if ( channel.read( in ) < 0 ) {
+			throw new IOException( "Connection closed by peer" );
+		}
+		processAndFlush();
+	}
+
+	/**
+	 * Handles a writable channel.
+	 *
+	 * @throws IOException if an I/O error occurs or the client violates the protocol.
+	 */
+	void onWritable() throws IOException {
+		processAndFlush();
+	}
+
+	/**
+	 * Processes pending input, writes pending output and updates the interest set.
+	 *
+	 * @throws IOException if an I/O error occurs or the client violates the protocol.
+	 */
+	private void processAndFlush() throws IOException {
+		boolean stalled;
+		do {
+			stalled = !processFrames();
+			out.flip();
+			channel.write( out );
+			out.compact();
+		} while ( stalled && ( out.remaining() >= MAX_OUTPUT_PER_FRAME ) ); // continue while the output drains
+		int interestOps = 0;
+		if ( !stalled ) {
+			interestOps |= SelectionKey.OP_READ;
+		}
+		if ( out.position() != 0 ) {
+			interestOps |= SelectionKey.OP_WRITE;
+		}
+		key.interestOps( interestOps );
+	}
+
+	/**
+	 * Processes all complete frames in the input buffer.
+	 *
+	 * @return If all complete frames have been processed, true is returned.
+	 * 	If processing stopped because the output buffer is full, false is returned.
+	 *
+	 * @throws IOException if the client violates the protocol.
+	 */
+	private boolean processFrames() throws IOException {
+		in.flip();
+		try {
+			while ( in.remaining() >= LENGTH_FIELD_SIZE ) {
+				int start = in.position();
+				int length = in.getShort( start ) & 0xffff;
+				if ( length == 0 ) {
+					throw new IOException( "Empty frame" );
+				}
+				if ( LENGTH_FIELD_SIZE + length > in.capacity() ) {
+					throw new IOException( "Frame too long: " + length );
+				}
+				if ( in.remaining() < LENGTH_FIELD_SIZE + length ) {
+					break;
+				}
+				if ( out.remaining() < MAX_OUTPUT_PER_FRAME ) {
+					return false;
+				}
+				int end = start + LENGTH_FIELD_SIZE + length;
+				int limit = in.limit();
+				in.position( start + LENGTH_FIELD_SIZE );
+				in.limit( end );
+				try {
+					processFrame();
+				} finally {
+					in.limit( limit );
+					in.position( end );
+				}
+			}
+			return true;
+		} finally {
+			in.compact();
+		}
+	}
+
+	/**
+	 * Processes a single frame.
+	 * The input buffer is positioned at the frame type, its limit is the end of the frame.
+	 *
+	 * @throws IOException if the client violates the protocol.
+	 */
+	private void processFrame() throws IOException {
+		byte type = in.get();
+		switch ( type ) {
+			case FRAME_NEW_GAME:
+				if ( in.remaining() < 2 ) {
+					throw new IOException( "Truncated frame" );
+				}
+				newGame( in.getShort() & 0xffff, getString() );
+				break;
+			case FRAME_PICK:
+				if ( in.remaining() < 2 ) {
+					throw new IOException( "Truncated frame" );
+				}
+				pick( in.getShort() & 0xffff );
+				break;
+			default:
+				putError( ERROR_BAD_FRAME );
+				break;
+		}
+	}
+
+	/**
+	 * Starts a new game.
+	 *
+	 * @param sizeHint Suggested size of the playfield.
+	 * @param packageName Name of the card package.
+	 */
+	private void newGame( int sizeHint, String packageName ) {
+		CardPackage cardPackage;
+		try {
+			cardPackage = CardPackage.getShared( packageName );
+		} catch ( IllegalArgumentException e ) {
+			putError( ERROR_UNKNOWN_PACKAGE );
+			return;
+		}
+		try {
+			playfieldModel = new PlayfieldModel( cardPackage, sizeHint );
+		} catch ( IllegalArgumentException e ) {
+			putError( ERROR_PACKAGE_TOO_SMALL );
+			return;
+		}
+		playfieldModel.addChangeListener( this );
+		out.putShort( (short) ( GAME_STARTED_FRAME_SIZE - LENGTH_FIELD_SIZE ) );
+		out.put( FRAME_GAME_STARTED );
+		out.putShort( (short) playfieldModel.getSize() );
+		out.put( (byte) playfieldModel.getWidth() );
+		out.put( (byte) playfieldModel.getHeight() );
+	}
+
+	/**
+	 * Picks a card.
+	 * The content of the picked card is sent to the client before the resulting changes.
+	 *
+	 * @param i Card index.
+	 */
+	private void pick( int i ) {
+		if ( playfieldModel == null ) {
+			putError( ERROR_NO_GAME );
+			return;
+		}
+		if ( i >= playfieldModel.getSize() ) {
+			putError( ERROR_BAD_INDEX );
+			return;
+		}
+		if ( playfieldModel.isWon( i ) || ( playfieldModel.getPickedCardIndex() == i ) ) {
+			return;
+		}
+		putShownDelta( i, playfieldModel.getCard( i ) );
+		playfieldModel.pickCard( i );
+	}
+
+	/**
+	 * Appends a state delta frame for a shown card.
+	 *
+	 * @param i Card index.
+	 * @param card The shown card.
+	 */
+	private void putShownDelta( int i, Card card ) {
+		int start = out.position();
+		out.position( start + LENGTH_FIELD_SIZE );
+		out.put( FRAME_STATE_DELTA );
+		out.putShort( (short) i );
+		out.put( (byte) ChangeType.CARD_SHOWN.ordinal() );
+		out.put( (byte) card.getType().ordinal() );
+		switch ( card.getType() ) {
+			case IMAGE:
+				putString( card.getImageResource().getName() );
+				break;
+			case TEXT:
+				putString( card.getText() );
+				break;
+		}
+		out.putShort( start, (short) ( out.position() - start - LENGTH_FIELD_SIZE ) );
+	}
+
+	/**
+	 * Appends an error frame.
+	 *
+	 * @param code Error code.
+	 */
+	private void putError( byte code ) {
+		out.putShort( (short) ( ERROR_FRAME_SIZE - LENGTH_FIELD_SIZE ) );
+		out.put( FRAME_ERROR );
+		out.put( code );
+	}
+
+	/**
+	 * Appends a string, truncating it to {@link #MAX_STRING_LENGTH} bytes if necessary.
+	 *
+	 * @param s String to append.
+	 */
+	private void putString( String s ) {
+		int start = out.position();
+		int limit = out.limit();
+		out.position( start + 2 );
+		out.limit( Math.min( limit, start + 2 + MAX_STRING_LENGTH ) );
+		encoder.reset();
+		encoder.encode( CharBuffer.wrap( s ), out, true ); // stops at a character boundary on overflow
+		encoder.flush( out );
+		out.limit( limit );
+		out.putShort( start, (short) ( out.position() - start - 2 ) );
+	}
+
+	/**
+	 * Reads a string from the current frame.
+	 *
+	 * @return The decoded string is returned.
+	 *
+	 * @throws IOException if the string is truncated or malformed.
+	 */
+	private String getString() throws IOException {
+		if ( in.remaining() < 2 ) {
+			throw new IOException( "Truncated frame" );
+		}
+		int length = in.getShort() & 0xffff;
+		if ( in.remaining() < length ) {
+			throw new IOException( "Truncated frame" );
+		}
+		int limit = in.limit();
+		in.limit( in.position() + length );
+		try {
+			return decoder.decode( in ).toString();
+		} finally {
+			in.limit( limit );
+		}
+	}
+
+	/**
+	 * Appends frames for changes of the current game.
+	 * Shown cards are reported by {@link #pick(int)} already.
+	 *
+	 * @param playfieldModel The playfield that has changed.
+	 * @param i Index of the card that has changed.
+	 * @param type Change type.
+	 */
+	public void playfieldChanged( PlayfieldModel playfieldModel, int i, ChangeType type ) {
+		switch ( type ) {
+			case CARD_HIDDEN:
+			case CARD_REMOVED:
+				out.putShort( (short) ( DELTA_FRAME_SIZE - LENGTH_FIELD_SIZE ) );
+				out.put( FRAME_STATE_DELTA );
+				out.putShort( (short) i );
+				out.put( (byte) type.ordinal() );
+				break;
+			case GAME_WON:
+				out.putShort( (short) ( GAME_WON_FRAME_SIZE - LENGTH_FIELD_SIZE ) );
+				out.put( FRAME_GAME_WON );
+				out.putInt( playfieldModel.failedPicks() );
+				break;
+		}
+	}
+
+	/**
+	 * Closes this connection and returns its buffers to the pool.
+	 */
+	void close() {
+		key.cancel();
+		try {
+			channel.close();
+		} catch ( IOException e ) {
+			// ignored
+		}
+		bufferPool.release( in );
+		bufferPool.release( out );
+		in = null;
+		out = null;
+	}
+}
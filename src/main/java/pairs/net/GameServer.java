@@ -0,0 +1,229 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Iterator;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Server for remote play over the binary protocol described in {@link ProtocolConstants}.
+ *
+ * All connections are served by a single non-blocking selector thread, which also owns the games.
+ */
+public class GameServer implements Runnable, Closeable {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( GameServer.class );
+
+	/**
+	 * Default port.
+	 */
+	public static final int DEFAULT_PORT = 7357;
+
+	/**
+	 * Size of the pooled I/O buffers.
+	 */
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	/**
+	 * Maximum number of idle buffers kept in the pool.
+	 */
+	private static final int MAX_IDLE_BUFFERS = 1024;
+
+	/**
+	 * Selector.
+	 */
+	private final Selector selector;
+
+	/**
+	 * Server socket channel.
+	 */
+	private final ServerSocketChannel serverChannel;
+
+	/**
+	 * Buffer pool.
+	 */
+	private final BufferPool bufferPool;
+
+	/**
+	 * UTF-8 encoder for all connections.
+	 */
+	private final CharsetEncoder encoder;
+
+	/**
+	 * UTF-8 decoder for all connections.
+	 */
+	private final CharsetDecoder decoder;
+
+	/**
+	 * Whether this server is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Creates a new game server bound to the specified address.
+	 *
+	 * @param address Local address to bind to.
+	 *
+	 * @throws IOException if the server socket cannot be opened.
+	 */
+	public GameServer( InetSocketAddress address ) throws IOException {
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.bind( address );
+		this.serverChannel.configureBlocking( false );
+		this.serverChannel.register( selector, SelectionKey.OP_ACCEPT );
+		this.bufferPool = new BufferPool( BUFFER_SIZE, MAX_IDLE_BUFFERS );
+		this.encoder = StandardCharsets.UTF_8.newEncoder();
+		this.decoder = StandardCharsets.UTF_8.newDecoder();
+		this.running = true;
+	}
+
+	/**
+	 * Gets the local address this server is bound to.
+	 *
+	 * @return The local address is returned.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public InetSocketAddress getLocalAddress() throws IOException {
+		return (InetSocketAddress) serverChannel.getLocalAddress();
+	}
+
+	/**
+	 * Starts serving on a new daemon thread.
+	 *
+	 * @return The server thread is returned.
+	 */
+	public Thread start() {
+		Thread thread = new Thread( this, "pairs-server" );
+		thread.setDaemon( true );
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Runs the selector loop until this server is closed.
+	 */
+	public void run() {
+		try {
+			while ( running ) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while ( keys.hasNext() ) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if ( !key.isValid() ) {
+						continue;
+					}
+					if ( key.isAcceptable() ) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					try {
+						if ( key.isReadable() ) {
+							connection.onReadable();
+						} else if ( key.isWritable() ) {
+							connection.onWritable();
+						}
+					} catch ( IOException e ) {
+						connection.close();
+					} catch ( RuntimeException e ) {
+						logger.error( __( ERROR_CONNECTION ), e );
+						connection.close();
+					}
+				}
+			}
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_SERVERLOOP ), e );
+		} finally {
+			for ( SelectionKey key: selector.keys() ) {
+				if ( key.attachment() instanceof Connection ) {
+					( (Connection) key.attachment() ).close();
+				}
+			}
+			try {
+				serverChannel.close();
+				selector.close();
+			} catch ( IOException e ) {
+				// ignored
+			}
+		}
+	}
+
+	/**
+	 * Accepts pending connections.
+	 *
+	 * @throws IOException if an I/O error occurs on the server socket.
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ( ( channel = serverChannel.accept() ) != null ) {
+			channel.configureBlocking( false );
+			channel.setOption( StandardSocketOptions.TCP_NODELAY, true );
+			SelectionKey key = channel.register( selector, SelectionKey.OP_READ );
+			key.attach( new Connection( channel, key, bufferPool, encoder, decoder ) );
+		}
+	}
+
+	/**
+	 * Stops this server and closes all connections.
+	 */
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Runs a game server in the foreground.
+	 *
+	 * @param args Optional port, optionally followed by the address to bind to.
+	 * 	By default, the server listens on the loopback interface.
+	 *
+	 * @throws IOException if the server socket cannot be opened.
+	 */
+	public static void main( String... args ) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : DEFAULT_PORT;
+		InetAddress address = args.length > 1 ? InetAddress.getByName( args[ 1 ] ) : InetAddress.getLoopbackAddress();
+		new GameServer( new InetSocketAddress( address, port ) ).run();
+	}
+}
@@ -0,0 +1,108 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.net;
+
+/**
+ * Interface collecting constants of the remote play protocol.
+ *
+ * Each frame consists of an unsigned 16-bit body length, followed by the body.
+ * The body starts with a one-byte frame type, followed by the type-specific payload.
+ * All integers are big-endian. Strings are encoded as an unsigned 16-bit byte count, followed by UTF-8 data.
+ *
+ * Client frames:
+ * <ul>
+ * 	<li>{@link #FRAME_NEW_GAME}: u16 size hint, string package name.</li>
+ * 	<li>{@link #FRAME_PICK}: u16 card index.</li>
+ * </ul>
+ *
+ * Server frames:
+ * <ul>
+ * 	<li>{@link #FRAME_GAME_STARTED}: u16 size, u8 width, u8 height.</li>
+ * 	<li>{@link #FRAME_STATE_DELTA}: u16 card index, u8 change type ordinal.
+ * 		For a shown card, this is followed by u8 card type ordinal and a string containing the card text or image name.</li>
+ * 	<li>{@link #FRAME_GAME_WON}: u32 number of failed picks.</li>
+ * 	<li>{@link #FRAME_ERROR}: u8 error code.</li>
+ * </ul>
+ */
+public interface ProtocolConstants {
+	/**
+	 * Size of the frame length field in bytes.
+	 */
+	public static final int LENGTH_FIELD_SIZE = 2;
+
+	/**
+	 * Maximum frame body length in bytes.
+	 */
+	public static final int MAX_FRAME_LENGTH = 0xffff;
+
+	/**
+	 * Client frame: start a new game.
+	 */
+	public static final byte FRAME_NEW_GAME = 0x01;
+
+	/**
+	 * Client frame: pick a card.
+	 */
+	public static final byte FRAME_PICK = 0x02;
+
+	/**
+	 * Server frame: a new game has started.
+	 */
+	public static final byte FRAME_GAME_STARTED = (byte) 0x81;
+
+	/**
+	 * Server frame: a card has changed.
+	 */
+	public static final byte FRAME_STATE_DELTA = (byte) 0x82;
+
+	/**
+	 * Server frame: the game is won.
+	 */
+	public static final byte FRAME_GAME_WON = (byte) 0x83;
+
+	/**
+	 * Server frame: a client frame could not be processed.
+	 */
+	public static final byte FRAME_ERROR = (byte) 0xff;
+
+	/**
+	 * Error code: the requested card package does not exist.
+	 */
+	public static final byte ERROR_UNKNOWN_PACKAGE = 1;
+
+	/**
+	 * Error code: a card was picked while no game is running.
+	 */
+	public static final byte ERROR_NO_GAME = 2;
+
+	/**
+	 * Error code: the card index is out of bounds.
+	 */
+	public static final byte ERROR_BAD_INDEX = 3;
+
+	/**
+	 * Error code: unknown frame type.
+	 */
+	public static final byte ERROR_BAD_FRAME = 4;
+
+	/**
+	 * Error code: the card package has too few pairs for the requested playfield size.
+	 */
+	public static final byte ERROR_PACKAGE_TOO_SMALL = 5;
+}
@@ -0,0 +1,163 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.sim;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of non-negative integer observations, such as the number of failed picks per game.
+ * Instances of this class are not thread-safe.
+ */
+public class Distribution {
+	/**
+	 * Initial histogram capacity.
+	 */
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * Number of observations for each value.
+	 */
+	private long[] counts;
+
+	/**
+	 * Total number of observations.
+	 */
+	private long count;
+
+	/**
+	 * Sum of all observations.
+	 */
+	private double sum;
+
+	/**
+	 * Sum of the squares of all observations.
+	 */
+	private double sumOfSquares;
+
+	/**
+	 * Largest observation.
+	 */
+	private int max;
+
+	/**
+	 * Creates a new, empty distribution.
+	 */
+	public Distribution() {
+		this.counts = new long[ INITIAL_CAPACITY ];
+		this.count = 0;
+		this.sum = 0;
+		this.sumOfSquares = 0;
+		this.max = 0;
+	}
+
+	/**
+	 * Adds an observation.
+	 *
+	 * @param value Observed value.
+	 *
+	 * @throws IllegalArgumentException if value is negative.
+	 */
+	public void add( int value ) {
+		if ( value < 0 ) {
+			throw new IllegalArgumentException( Integer.toString( value ) );
+		}
+		if ( value >= counts.length ) {
+			counts = Arrays.copyOf( counts, Math.max( value + 1, 2 * counts.length ) );
+		}
+		++counts[ value ];
+		++count;
+		sum += value;
+		sumOfSquares += (double) value * value;
+		max = Math.max( max, value );
+	}
+
+	/**
+	 * Adds all observations of another distribution to this distribution.
+	 *
+	 * @param other Other distribution.
+	 */
+	public void addAll( Distribution other ) {
+		if ( other.max >= counts.length ) {
+			counts = Arrays.copyOf( counts, other.max + 1 );
+		}
+		for ( int i = 0; i <= other.max; ++i ) {
+			counts[ i ] += other.counts[ i ];
+		}
+		count += other.count;
+		sum += other.sum;
+		sumOfSquares += other.sumOfSquares;
+		max = Math.max( max, other.max );
+	}
+
+	/**
+	 * Returns the number of observations.
+	 *
+	 * @return The number of observations is returned.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean.
+	 *
+	 * @return The mean of all observations is returned, or NaN if there are none.
+	 */
+	public double getMean() {
+		return sum / count;
+	}
+
+	/**
+	 * Returns the standard deviation.
+	 *
+	 * @return The population standard deviation of all observations is returned, or NaN if there are none.
+	 */
+	public double getStandardDeviation() {
+		double mean = getMean();
+		return Math.sqrt( Math.max( 0, sumOfSquares / count - mean * mean ) );
+	}
+
+	/**
+	 * Returns the largest observation.
+	 *
+	 * @return The largest observation is returned, or 0 if there are none.
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns a percentile.
+	 *
+	 * @param p Percentile between 0 and 100.
+	 *
+	 * @return The smallest value such that at least p percent of all observations are less than or equal to it is returned.
+	 */
+	public int getPercentile( double p ) {
+		long threshold = (long) Math.ceil( p / 100 * count );
+		long cumulative = 0;
+		for ( int i = 0; i <= max; ++i ) {
+			cumulative += counts[ i ];
+			if ( ( cumulative >= threshold ) && ( cumulative != 0 ) ) {
+				return i;
+			}
+		}
+		return max;
+	}
+}
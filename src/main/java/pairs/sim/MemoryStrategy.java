@@ -0,0 +1,122 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.sim;
+
+import java.util.SplittableRandom;
+
+import pairs.model.ComputerPlayer;
+import pairs.model.Player;
+import pairs.model.PlayfieldModel;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Strategy of a {@link ComputerPlayer} with a given memory.
+ */
+public class MemoryStrategy implements Strategy {
+	/**
+	 * Strategy picking cards at random.
+	 */
+	public static final MemoryStrategy RANDOM = new MemoryStrategy( "random", 0, 0 );
+
+	/**
+	 * Strategy remembering every card.
+	 */
+	public static final MemoryStrategy PERFECT = new MemoryStrategy( "perfect", Integer.MAX_VALUE, 1 );
+
+	/**
+	 * Strategy name.
+	 */
+	private final String name;
+
+	/**
+	 * Memory size.
+	 */
+	private final int memorySize;
+
+	/**
+	 * Recall probability.
+	 */
+	private final double recall;
+
+	/**
+	 * Creates a new memory strategy.
+	 *
+	 * @param name Strategy name.
+	 * @param memorySize Maximum number of remembered cards.
+	 * @param recall Probability of recalling a remembered card.
+	 *
+	 * @throws IllegalArgumentException if memorySize is negative or recall is out of range.
+	 * @throws NullPointerException if name is null.
+	 */
+	public MemoryStrategy( String name, int memorySize, double recall ) {
+		if ( name == null ) {
+			throw new NullPointerException();
+		}
+		if ( memorySize < 0 ) {
+			throw new IllegalArgumentException( __( ERROR_MEMORYSIZE, memorySize ) );
+		}
+		if ( !( ( recall >= 0 ) && ( recall <= 1 ) ) ) {
+			throw new IllegalArgumentException( __( ERROR_RECALL, recall ) );
+		}
+		this.name = name;
+		this.memorySize = memorySize;
+		this.recall = recall;
+	}
+
+	/**
+	 * Parses a strategy.
+	 *
+	 * @param spec Either "random", "perfect", or "limited:&lt;memory size&gt;:&lt;recall probability&gt;".
+	 *
+	 * @return The specified strategy is returned.
+	 *
+	 * @throws IllegalArgumentException if spec is not a valid strategy specification.
+	 */
+	public static MemoryStrategy parse( String spec ) {
+		if ( RANDOM.getName().equals( spec ) ) {
+			return RANDOM;
+		}
+		if ( PERFECT.getName().equals( spec ) ) {
+			return PERFECT;
+		}
+		String[] parts = spec.split( ":" );
+		if ( ( parts.length != 3 ) || !"limited".equals( parts[ 0 ] ) ) {
+			throw new IllegalArgumentException( __( ERROR_STRATEGY, spec ) );
+		}
+		try {
+			return new MemoryStrategy( spec, Integer.parseInt( parts[ 1 ] ), Double.parseDouble( parts[ 2 ] ) );
+		} catch ( NumberFormatException e ) {
+			throw new IllegalArgumentException( __( ERROR_STRATEGY, spec ), e );
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Player createPlayer( PlayfieldModel playfieldModel, SplittableRandom random ) {
+		return new ComputerPlayer( playfieldModel, memorySize, recall, random );
+	}
+
+	public @Override String toString() {
+		return getName();
+	}
+}
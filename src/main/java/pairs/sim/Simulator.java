@@ -0,0 +1,237 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import pairs.data.CardPackage;
+
+import pairs.model.Player;
+import pairs.model.PlayfieldModel;
+
+import pairs.tools.CommandLine;
+
+import pairs.util.Random;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Headless Monte Carlo simulator playing complete games.
+ *
+ * Games are spread over all cores with fork/join. Each game derives its own seed from the
+ * simulation seed and its game number, so results do not depend on how the games are scheduled.
+ */
+public class Simulator {
+	/**
+	 * Number of games below which a task is not split any further.
+	 */
+	private static final long GAMES_PER_TASK = 64;
+
+	/**
+	 * Fork/join pool running the simulations.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new simulator.
+	 *
+	 * @param parallelism Number of worker threads.
+	 */
+	public Simulator( int parallelism ) {
+		this.pool = new ForkJoinPool( parallelism );
+	}
+
+	/**
+	 * Plays a single game to the end.
+	 *
+	 * @param cardPackage Card package.
+	 * @param size Playfield size.
+	 * @param strategy Playing strategy.
+	 * @param seed Game seed.
+	 *
+	 * @return The number of failed picks is returned.
+	 */
+	static int playGame( CardPackage cardPackage, int size, Strategy strategy, long seed ) {
+		SplittableRandom random = new SplittableRandom( seed );
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, size, random.nextLong() );
+		Player player = strategy.createPlayer( playfieldModel, random.split() );
+		while ( !playfieldModel.isAllWon() ) {
+			player.playTurn();
+		}
+		return playfieldModel.failedPicks();
+	}
+
+	/**
+	 * Task simulating a range of games.
+	 */
+	private static class SimulationTask extends RecursiveTask<Distribution> {
+		/**
+		 * Card package.
+		 */
+		private final CardPackage cardPackage;
+
+		/**
+		 * Playfield size.
+		 */
+		private final int size;
+
+		/**
+		 * Playing strategy.
+		 */
+		private final Strategy strategy;
+
+		/**
+		 * Simulation seed.
+		 */
+		private final long seed;
+
+		/**
+		 * First game number (inclusive).
+		 */
+		private final long from;
+
+		/**
+		 * Last game number (exclusive).
+		 */
+		private final long to;
+
+		/**
+		 * Creates a new simulation task.
+		 *
+		 * @param cardPackage Card package.
+		 * @param size Playfield size.
+		 * @param strategy Playing strategy.
+		 * @param seed Simulation seed.
+		 * @param from First game number (inclusive).
+		 * @param to Last game number (exclusive).
+		 */
+		SimulationTask( CardPackage cardPackage, int size, Strategy strategy, long seed, long from, long to ) {
+			this.cardPackage = cardPackage;
+			this.size = size;
+			this.strategy = strategy;
+			this.seed = seed;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected @Override Distribution compute() {
+			if ( to - from <= GAMES_PER_TASK ) {
+				Distribution result = new Distribution();
+				for ( long game = from; game != to; ++game ) {
+					result.add( playGame( cardPackage, size, strategy, Random.deriveSeed( seed, game ) ) );
+				}
+				return result;
+			}
+			long middle = ( from + to ) >>> 1;
+			SimulationTask left = new SimulationTask( cardPackage, size, strategy, seed, from, middle );
+			left.fork();
+			Distribution result = new SimulationTask( cardPackage, size, strategy, seed, middle, to ).compute();
+			result.addAll( left.join() );
+			return result;
+		}
+	}
+
+	/**
+	 * Simulates games and collects the distribution of failed picks.
+	 *
+	 * @param cardPackage Card package.
+	 * @param size Playfield size. Should be one of the allowed sizes, see {@link PlayfieldModel#getAllowedSizes()}.
+	 * @param strategy Playing strategy.
+	 * @param games Number of games.
+	 * @param seed Simulation seed. Equal arguments yield equal distributions.
+	 *
+	 * @return The distribution of failed picks is returned.
+	 */
+	public Distribution simulate( CardPackage cardPackage, int size, Strategy strategy, long games, long seed ) {
+		return pool.invoke( new SimulationTask( cardPackage, size, strategy, seed, 0, games ) );
+	}
+
+	/**
+	 * Shuts down the worker threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Runs simulations and prints a report of failed picks per package, size and strategy.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>games: Number of games per configuration (default 10000).</li>
+	 * 	<li>seed: Simulation seed (default 0).</li>
+	 * 	<li>packages: Comma-separated card package names (default: all packages).</li>
+	 * 	<li>sizes: Comma-separated playfield sizes (default: all allowed sizes).</li>
+	 * 	<li>strategies: Comma-separated strategies, see {@link MemoryStrategy#parse(String)} (default: random,perfect).</li>
+	 * 	<li>threads: Number of worker threads (default: number of processors).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 */
+	public static void main( String... args ) {
+		CommandLine commandLine = new CommandLine( args, ERROR_SIMULATORARG, "games", "seed", "packages", "sizes", "strategies", "threads" );
+		long games = commandLine.getLong( "games", 10000 );
+		long seed = commandLine.getLong( "seed", 0 );
+		List<CardPackage> cardPackages = commandLine.getCardPackages( "packages" );
+		List<Integer> allowedSizes = Arrays.asList( PlayfieldModel.getAllowedSizes() );
+		List<Integer> sizes = commandLine.getIntList( "sizes", allowedSizes );
+		for ( Integer size: sizes ) {
+			if ( !allowedSizes.contains( size ) ) {
+				throw new IllegalArgumentException( __( ERROR_SIMULATORARG, size ) );
+			}
+		}
+		List<Strategy> strategies = new ArrayList<Strategy>();
+		for ( String strategy: commandLine.getList( "strategies", Arrays.asList( MemoryStrategy.RANDOM.getName(), MemoryStrategy.PERFECT.getName() ) ) ) {
+			strategies.add( MemoryStrategy.parse( strategy ) );
+		}
+		int threads = commandLine.getInt( "threads", Runtime.getRuntime().availableProcessors() );
+
+		Simulator simulator = new Simulator( threads );
+		try {
+			System.out.println( "package\tsize\tstrategy\tgames\tmean\tstddev\tp10\tp50\tp90\tp99\tmax\tms" );
+			for ( CardPackage cardPackage: cardPackages ) {
+				for ( int size: sizes ) {
+					if ( size / 2 > cardPackage.size() ) {
+						continue;
+					}
+					for ( Strategy strategy: strategies ) {
+						long start = System.nanoTime();
+						Distribution distribution = simulator.simulate( cardPackage, size, strategy, games, seed );
+						long elapsed = ( System.nanoTime() - start ) / 1000000;
+						System.out.println( String.format( Locale.ROOT, "%s\t%d\t%s\t%d\t%.2f\t%.2f\t%d\t%d\t%d\t%d\t%d\t%d",
+								cardPackage.getKey(), size, strategy.getName(), distribution.getCount(),
+								distribution.getMean(), distribution.getStandardDeviation(),
+								distribution.getPercentile( 10 ), distribution.getPercentile( 50 ),
+								distribution.getPercentile( 90 ), distribution.getPercentile( 99 ),
+								distribution.getMax(), elapsed ) );
+					}
+				}
+			}
+		} finally {
+			simulator.shutdown();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.sim;
+
+import java.util.SplittableRandom;
+
+import pairs.model.Player;
+import pairs.model.PlayfieldModel;
+
+/**
+ * Playing strategy for simulated games.
+ */
+public interface Strategy {
+	/**
+	 * Returns the name of this strategy.
+	 *
+	 * @return A short name identifying this strategy in reports is returned.
+	 */
+	public String getName();
+
+	/**
+	 * Creates a player following this strategy.
+	 *
+	 * @param playfieldModel Playfield the player plays on.
+	 * @param random Randomness source of the player.
+	 *
+	 * @return A new player is returned.
+	 */
+	public Player createPlayer( PlayfieldModel playfieldModel, SplittableRandom random );
+}
@@ -0,0 +1,156 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.stats;
+
+import java.util.Comparator;
+
+/**
+ * Result of a finished game.
+ */
+public class GameResult {
+	/**
+	 * Orders results from best to worst: by failed picks, then by elapsed time, then by timestamp.
+	 */
+	public static final Comparator<GameResult> BY_SCORE = new Comparator<GameResult>() {
+		public int compare( GameResult a, GameResult b ) {
+			if ( a.failedPicks != b.failedPicks ) {
+				return a.failedPicks < b.failedPicks ? -1 : 1;
+			}
+			if ( a.elapsedTime != b.elapsedTime ) {
+				return a.elapsedTime < b.elapsedTime ? -1 : 1;
+			}
+			if ( a.timestamp != b.timestamp ) {
+				return a.timestamp < b.timestamp ? -1 : 1;
+			}
+			return 0;
+		}
+	};
+
+	/**
+	 * Player name.
+	 */
+	private final String player;
+
+	/**
+	 * Card package key.
+	 */
+	private final String packageKey;
+
+	/**
+	 * Playfield size.
+	 */
+	private final int size;
+
+	/**
+	 * Number of failed picks.
+	 */
+	private final int failedPicks;
+
+	/**
+	 * Elapsed playing time (ms).
+	 */
+	private final long elapsedTime;
+
+	/**
+	 * End of the game (ms since the epoch).
+	 */
+	private final long timestamp;
+
+	/**
+	 * Creates a new game result.
+	 *
+	 * @param player Player name.
+	 * @param packageKey Card package key.
+	 * @param size Playfield size.
+	 * @param failedPicks Number of failed picks.
+	 * @param elapsedTime Elapsed playing time in milliseconds.
+	 * @param timestamp End of the game in milliseconds since the epoch.
+	 *
+	 * @throws NullPointerException if player or packageKey is null.
+	 */
+	public GameResult( String player, String packageKey, int size, int failedPicks, long elapsedTime, long timestamp ) {
+		if ( ( player == null ) || ( packageKey == null ) ) {
+			throw new NullPointerException();
+		}
+		this.player = player;
+		this.packageKey = packageKey;
+		this.size = size;
+		this.failedPicks = failedPicks;
+		this.elapsedTime = elapsedTime;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Returns the player name.
+	 *
+	 * @return The name of the player is returned.
+	 */
+	public String getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Returns the card package key.
+	 *
+	 * @return The key of the card package of the game is returned.
+	 */
+	public String getPackageKey() {
+		return packageKey;
+	}
+
+	/**
+	 * Returns the playfield size.
+	 *
+	 * @return The playfield size of the game is returned.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of failed picks.
+	 *
+	 * @return The number of failed picks is returned.
+	 */
+	public int getFailedPicks() {
+		return failedPicks;
+	}
+
+	/**
+	 * Returns the elapsed playing time.
+	 *
+	 * @return The elapsed playing time in milliseconds is returned.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Returns the end of the game.
+	 *
+	 * @return The end of the game in milliseconds since the epoch is returned.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public @Override String toString() {
+		return player + "\t" + packageKey + "\t" + size + "\t" + failedPicks + "\t" + elapsedTime + "\t" + timestamp;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leaderboard of a single card package and playfield size.
+ * Instances of this class are not thread-safe.
+ */
+class Leaderboard {
+	/**
+	 * Results, ordered by {@link GameResult#BY_SCORE}.
+	 */
+	private final ArrayList<GameResult> ranking;
+
+	/**
+	 * Best result of each player.
+	 */
+	private final Map<String, GameResult> personalBests;
+
+	/**
+	 * Whether results have been appended without sorting.
+	 */
+	private boolean unsorted;
+
+	/**
+	 * Creates a new, empty leaderboard.
+	 */
+	Leaderboard() {
+		this.ranking = new ArrayList<GameResult>();
+		this.personalBests = new HashMap<String, GameResult>();
+		this.unsorted = false;
+	}
+
+	/**
+	 * Adds a result, keeping the ranking sorted.
+	 *
+	 * @param result Game result.
+	 */
+	void add( GameResult result ) {
+		sort();
+		ranking.add( lowerBound( result ), result );
+		updatePersonalBest( result );
+	}
+
+	/**
+	 * Adds a result without sorting the ranking.
+	 * Used when loading many results at once; the ranking is sorted on the next query.
+	 *
+	 * @param result Game result.
+	 */
+	void append( GameResult result ) {
+		ranking.add( result );
+		unsorted = true;
+		updatePersonalBest( result );
+	}
+
+	/**
+	 * Updates the personal best of the player of a result.
+	 *
+	 * @param result Game result.
+	 */
+	private void updatePersonalBest( GameResult result ) {
+		GameResult best = personalBests.get( result.getPlayer() );
+		if ( ( best == null ) || ( GameResult.BY_SCORE.compare( result, best ) < 0 ) ) {
+			personalBests.put( result.getPlayer(), result );
+		}
+	}
+
+	/**
+	 * Sorts the ranking if necessary.
+	 */
+	void sort() {
+		if ( unsorted ) {
+			Collections.sort( ranking, GameResult.BY_SCORE );
+			unsorted = false;
+		}
+	}
+
+	/**
+	 * Finds the number of results strictly better than a result.
+	 *
+	 * @param result Game result.
+	 *
+	 * @return The index of the first result in the ranking not better than the specified result is returned.
+	 */
+	private int lowerBound( GameResult result ) {
+		int low = 0;
+		int high = ranking.size();
+		while ( low < high ) {
+			int middle = ( low + high ) >>> 1;
+			if ( GameResult.BY_SCORE.compare( ranking.get( middle ), result ) < 0 ) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of results.
+	 *
+	 * @return The number of results on this leaderboard is returned.
+	 */
+	int size() {
+		return ranking.size();
+	}
+
+	/**
+	 * Returns the best results.
+	 *
+	 * @param n Maximum number of results.
+	 *
+	 * @return A new list of the best n results, best first, is returned.
+	 */
+	List<GameResult> getTop( int n ) {
+		sort();
+		return new ArrayList<GameResult>( ranking.subList( 0, Math.min( n, ranking.size() ) ) );
+	}
+
+	/**
+	 * Returns the rank of a result.
+	 * The result need not be on this leaderboard.
+	 *
+	 * @param result Game result.
+	 *
+	 * @return One more than the number of results on this leaderboard better than the specified result is returned.
+	 */
+	int getRank( GameResult result ) {
+		sort();
+		return lowerBound( result ) + 1;
+	}
+
+	/**
+	 * Returns the personal best of a player.
+	 *
+	 * @param player Player name.
+	 *
+	 * @return The best result of the specified player is returned, or null if the player has no results.
+	 */
+	GameResult getPersonalBest( String player ) {
+		return personalBests.get( player );
+	}
+}
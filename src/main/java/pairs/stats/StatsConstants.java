@@ -0,0 +1,67 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.stats;
+
+/**
+ * Interface collecting constants of the statistics store format.
+ *
+ * The store consists of a snapshot file and a log file. The snapshot starts with its magic number (u32),
+ * the highest sequence number it contains (i64), a string table (i32 count followed by strings)
+ * and the results (i32 count followed by results), and ends with the CRC-32 of all preceding bytes (u32).
+ * A snapshot result consists of its timestamp (i64), elapsed time (i64), failed picks (i32), playfield size (u16),
+ * and the string table indices of its package key and player (i32 each).
+ *
+ * The log starts with its magic number (u32), followed by one record per result: the payload length (u32),
+ * the payload and the CRC-32 of the payload (u32). The payload consists of the sequence number (i64),
+ * timestamp (i64), elapsed time (i64), failed picks (i32), playfield size (u16), package key and player.
+ * Log records with a sequence number not greater than that of the snapshot are already contained in the snapshot.
+ *
+ * Strings are stored as a u16 byte count followed by UTF-8 data. All integers are big-endian.
+ */
+public interface StatsConstants {
+	/**
+	 * Snapshot magic number and format version ("PRS1").
+	 */
+	public static final int SNAPSHOT_MAGIC = 0x50525331;
+
+	/**
+	 * Log magic number and format version ("PRL1").
+	 */
+	public static final int LOG_MAGIC = 0x50524c31;
+
+	/**
+	 * Snapshot file name.
+	 */
+	public static final String SNAPSHOT_NAME = "stats.snapshot";
+
+	/**
+	 * Log file name.
+	 */
+	public static final String LOG_NAME = "stats.log";
+
+	/**
+	 * Suffix of temporary files written during compaction.
+	 */
+	public static final String TEMPORARY_SUFFIX = ".tmp";
+
+	/**
+	 * Maximum length of a log record payload in bytes.
+	 */
+	public static final int MAX_PAYLOAD_SIZE = 8 + 8 + 8 + 4 + 2 + 2 * ( 2 + 0xffff );
+}
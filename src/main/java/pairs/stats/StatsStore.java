@@ -0,0 +1,670 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.stats;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Local store of game results, see {@link StatsConstants} for the file format.
+ *
+ * Results are appended to a checksummed log and synced to disk one by one. On opening, a torn log tail
+ * left behind by a crash is cut off. Once the log grows beyond {@link #COMPACTION_THRESHOLD} records,
+ * all results are written to a new snapshot and the log is emptied.
+ * All results are indexed in memory by card package and playfield size, so leaderboard queries
+ * take logarithmic time.
+ *
+ * Loading, appending and compaction run on a background thread owned by the store.
+ * Queries are thread-safe and wait until the store has been loaded.
+ */
+public class StatsStore implements Closeable, StatsConstants {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( StatsStore.class );
+
+	/**
+	 * Number of log records triggering a compaction.
+	 */
+	public static final int COMPACTION_THRESHOLD = 4096;
+
+	/**
+	 * Stores which are currently open.
+	 */
+	private static final Set<StatsStore> openStores = Collections.newSetFromMap( new ConcurrentHashMap<StatsStore, Boolean>() );
+
+	/**
+	 * Completes pending writes of all open stores on shutdown.
+	 */
+	static {
+		Runtime.getRuntime().addShutdownHook( new Thread( "pairs-stats-shutdown" ) {
+			public @Override void run() {
+				for ( StatsStore store: openStores ) {
+					store.close();
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Store directory.
+	 */
+	private final Path directory;
+
+	/**
+	 * Executor running loading, appending and compaction.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * All results, in the order they were recorded.
+	 * Guarded by this store.
+	 */
+	private final List<GameResult> results;
+
+	/**
+	 * Leaderboards, by card package key and playfield size.
+	 * Guarded by this store.
+	 */
+	private final Map<String, Leaderboard> leaderboards;
+
+	/**
+	 * Canonical strings, so that equal package keys and player names are stored once.
+	 * Only accessed by the store thread.
+	 */
+	private final Map<String, String> strings;
+
+	/**
+	 * Whether the store has been loaded.
+	 * Guarded by this store.
+	 */
+	private boolean loaded;
+
+	/**
+	 * Log file channel, or null if the log is not available.
+	 * Only accessed by the store thread.
+	 */
+	private FileChannel log;
+
+	/**
+	 * Number of records in the log.
+	 * Only accessed by the store thread.
+	 */
+	private int logRecords;
+
+	/**
+	 * Highest sequence number contained in the snapshot.
+	 * Only accessed by the store thread.
+	 */
+	private long snapshotSequence;
+
+	/**
+	 * Next sequence number.
+	 * Only accessed by the store thread.
+	 */
+	private long nextSequence;
+
+	/**
+	 * Opens a statistics store.
+	 * The store is loaded in the background. If it cannot be loaded, the error is logged and
+	 * results are only kept in memory.
+	 *
+	 * @param directory Store directory. Created if it does not exist.
+	 *
+	 * @throws NullPointerException if directory is null.
+	 */
+	public StatsStore( Path directory ) {
+		if ( directory == null ) {
+			throw new NullPointerException();
+		}
+		this.directory = directory;
+		this.executor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, "pairs-stats" );
+				thread.setDaemon( true );
+				return thread;
+			}
+		} );
+		this.results = new ArrayList<GameResult>();
+		this.leaderboards = new HashMap<String, Leaderboard>();
+		this.strings = new HashMap<String, String>();
+		this.loaded = false;
+		this.log = null;
+		this.logRecords = 0;
+		this.snapshotSequence = -1;
+		this.nextSequence = 0;
+		openStores.add( this );
+		executor.execute( new Runnable() {
+			public void run() {
+				load();
+			}
+		} );
+	}
+
+	/**
+	 * Returns the canonical instance of a string.
+	 *
+	 * @param string Some string.
+	 *
+	 * @return The canonical instance of the string is returned.
+	 */
+	private String canonical( String string ) {
+		String result = strings.get( string );
+		if ( result == null ) {
+			strings.put( string, string );
+			result = string;
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a string.
+	 *
+	 * @param data Data buffer.
+	 *
+	 * @return The canonical instance of the string read is returned.
+	 */
+	private String getString( ByteBuffer data ) {
+		byte[] bytes = new byte[ data.getShort() & 0xffff ];
+		data.get( bytes );
+		return canonical( new String( bytes, StandardCharsets.UTF_8 ) );
+	}
+
+	/**
+	 * Writes an encoded string.
+	 *
+	 * @param data Data buffer.
+	 * @param bytes UTF-8 encoded string with at most 65535 bytes.
+	 */
+	private static void putString( ByteBuffer data, byte[] bytes ) {
+		data.putShort( (short) bytes.length );
+		data.put( bytes );
+	}
+
+	/**
+	 * Returns the leaderboard key.
+	 *
+	 * @param packageKey Card package key.
+	 * @param size Playfield size.
+	 *
+	 * @return The key of the leaderboard for the specified package and size is returned.
+	 */
+	private static String getLeaderboardKey( String packageKey, int size ) {
+		return packageKey + '\n' + size;
+	}
+
+	/**
+	 * Adds a result to the in-memory index.
+	 *
+	 * @param result Game result.
+	 * @param sorted Whether to keep the leaderboard sorted.
+	 */
+	private synchronized void index( GameResult result, boolean sorted ) {
+		results.add( result );
+		String key = getLeaderboardKey( result.getPackageKey(), result.getSize() );
+		Leaderboard leaderboard = leaderboards.get( key );
+		if ( leaderboard == null ) {
+			leaderboard = new Leaderboard();
+			leaderboards.put( key, leaderboard );
+		}
+		if ( sorted ) {
+			leaderboard.add( result );
+		} else {
+			leaderboard.append( result );
+		}
+	}
+
+	/**
+	 * Loads the snapshot and the log, repairing a torn log tail.
+	 */
+	private void load() {
+		try {
+			Files.createDirectories( directory );
+			Path snapshotPath = directory.resolve( SNAPSHOT_NAME );
+			if ( Files.exists( snapshotPath ) ) {
+				loadSnapshot( snapshotPath );
+			}
+			nextSequence = snapshotSequence + 1;
+			loadLog( directory.resolve( LOG_NAME ) );
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_STATS ), e );
+			closeLog();
+		} finally {
+			synchronized ( this ) {
+				for ( Leaderboard leaderboard: leaderboards.values() ) {
+					leaderboard.sort();
+				}
+				loaded = true;
+				notifyAll();
+			}
+		}
+		if ( logRecords >= COMPACTION_THRESHOLD ) {
+			compactNow();
+		}
+	}
+
+	/**
+	 * Loads the snapshot.
+	 *
+	 * @param path Snapshot path.
+	 *
+	 * @throws IOException if the snapshot cannot be read or is invalid.
+	 */
+	private void loadSnapshot( Path path ) throws IOException {
+		byte[] bytes = Files.readAllBytes( path );
+		try {
+			ByteBuffer data = ByteBuffer.wrap( bytes );
+			CRC32 crc = new CRC32();
+			crc.update( bytes, 0, bytes.length - 4 );
+			if ( ( data.getInt() != SNAPSHOT_MAGIC ) || ( data.getInt( bytes.length - 4 ) != (int) crc.getValue() ) ) {
+				throw new IOException( __( ERROR_STATSFORMAT, path ) );
+			}
+			snapshotSequence = data.getLong();
+			String[] table = new String[ data.getInt() ];
+			for ( int i = 0; i != table.length; ++i ) {
+				table[ i ] = getString( data );
+			}
+			int count = data.getInt();
+			for ( int i = 0; i != count; ++i ) {
+				long timestamp = data.getLong();
+				long elapsedTime = data.getLong();
+				int failedPicks = data.getInt();
+				int size = data.getShort() & 0xffff;
+				String packageKey = table[ data.getInt() ];
+				String player = table[ data.getInt() ];
+				index( new GameResult( player, packageKey, size, failedPicks, elapsedTime, timestamp ), false );
+			}
+		} catch ( BufferUnderflowException e ) {
+			throw new IOException( __( ERROR_STATSFORMAT, path ), e );
+		} catch ( IndexOutOfBoundsException e ) {
+			throw new IOException( __( ERROR_STATSFORMAT, path ), e );
+		}
+	}
+
+	/**
+	 * Loads the log, cutting off a torn tail, and opens it for appending.
+	 *
+	 * @param path Log path.
+	 *
+	 * @throws IOException if the log cannot be read or is invalid.
+	 */
+	private void loadLog( Path path ) throws IOException {
+		log = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		long length = log.size();
+		if ( length < 4 ) {
+			ByteBuffer header = ByteBuffer.allocate( 4 );
+			header.putInt( LOG_MAGIC );
+			header.flip();
+			log.truncate( 0 );
+			log.write( header, 0 );
+			log.force( true );
+			log.position( 4 );
+			return;
+		}
+		ByteBuffer data = ByteBuffer.allocate( (int) Math.min( length, Integer.MAX_VALUE ) );
+		while ( data.hasRemaining() ) {
+			if ( log.read( data, data.position() ) < 0 ) {
+				break;
+			}
+		}
+		data.flip();
+		if ( data.getInt() != LOG_MAGIC ) {
+			throw new IOException( __( ERROR_STATSFORMAT, path ) );
+		}
+		CRC32 crc = new CRC32();
+		int good = data.position();
+		while ( data.remaining() >= 4 ) {
+			int payloadLength = data.getInt();
+			if ( ( payloadLength < 0 ) || ( payloadLength > MAX_PAYLOAD_SIZE ) || ( data.remaining() < payloadLength + 4 ) ) {
+				break;
+			}
+			crc.reset();
+			crc.update( data.array(), data.position(), payloadLength );
+			if ( data.getInt( data.position() + payloadLength ) != (int) crc.getValue() ) {
+				break;
+			}
+			long sequence = data.getLong();
+			long timestamp = data.getLong();
+			long elapsedTime = data.getLong();
+			int failedPicks = data.getInt();
+			int size = data.getShort() & 0xffff;
+			String packageKey = getString( data );
+			String player = getString( data );
+			data.getInt(); // CRC
+			if ( sequence > snapshotSequence ) {
+				index( new GameResult( player, packageKey, size, failedPicks, elapsedTime, timestamp ), false );
+			}
+			nextSequence = Math.max( nextSequence, sequence + 1 );
+			++logRecords;
+			good = data.position();
+		}
+		if ( good != length ) {
+			logger.warn( __( WARN_STATSREPAIRED, length - good ) );
+			log.truncate( good );
+			log.force( true );
+		}
+		log.position( good );
+	}
+
+	/**
+	 * Closes the log after an error.
+	 */
+	private void closeLog() {
+		if ( log != null ) {
+			try {
+				log.close();
+			} catch ( IOException e ) {
+				logger.error( __( ERROR_STATS ), e );
+			}
+			log = null;
+		}
+	}
+
+	/**
+	 * Appends a result to the log and the index.
+	 *
+	 * @param result Game result.
+	 */
+	private void append( GameResult result ) {
+		if ( log != null ) {
+			try {
+				byte[] packageKey = result.getPackageKey().getBytes( StandardCharsets.UTF_8 );
+				byte[] player = result.getPlayer().getBytes( StandardCharsets.UTF_8 );
+				ByteBuffer record = ByteBuffer.allocate( 4 + 8 + 8 + 8 + 4 + 2 + 2 + packageKey.length + 2 + player.length + 4 );
+				record.position( 4 );
+				record.putLong( nextSequence );
+				record.putLong( result.getTimestamp() );
+				record.putLong( result.getElapsedTime() );
+				record.putInt( result.getFailedPicks() );
+				record.putShort( (short) result.getSize() );
+				putString( record, packageKey );
+				putString( record, player );
+				int payloadLength = record.position() - 4;
+				CRC32 crc = new CRC32();
+				crc.update( record.array(), 4, payloadLength );
+				record.putInt( (int) crc.getValue() );
+				record.putInt( 0, payloadLength );
+				record.flip();
+				while ( record.hasRemaining() ) {
+					log.write( record );
+				}
+				log.force( false );
+				++logRecords;
+			} catch ( IOException e ) {
+				logger.error( __( ERROR_STATS ), e );
+				closeLog();
+			}
+		}
+		++nextSequence;
+		index( new GameResult( canonical( result.getPlayer() ), canonical( result.getPackageKey() ), result.getSize(),
+				result.getFailedPicks(), result.getElapsedTime(), result.getTimestamp() ), true );
+		if ( logRecords >= COMPACTION_THRESHOLD ) {
+			compactNow();
+		}
+	}
+
+	/**
+	 * Writes all results to a new snapshot and empties the log.
+	 * Each file is replaced atomically, so a crash at any point leaves a consistent store.
+	 */
+	private void compactNow() {
+		if ( log == null ) {
+			return;
+		}
+		List<GameResult> snapshot;
+		synchronized ( this ) {
+			snapshot = new ArrayList<GameResult>( results );
+		}
+		long sequence = nextSequence - 1;
+		try {
+			/* Snapshot */
+			Map<String, Integer> table = new HashMap<String, Integer>();
+			List<String> tableStrings = new ArrayList<String>();
+			for ( GameResult result: snapshot ) {
+				for ( String string: new String[] { result.getPackageKey(), result.getPlayer() } ) {
+					if ( !table.containsKey( string ) ) {
+						table.put( string, table.size() );
+						tableStrings.add( string );
+					}
+				}
+			}
+			Path temporary = directory.resolve( SNAPSHOT_NAME + TEMPORARY_SUFFIX );
+			FileChannel channel = FileChannel.open( temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE );
+			try {
+				CRC32 crc = new CRC32();
+				DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new CheckedOutputStream( Channels.newOutputStream( channel ), crc ) ) );
+				out.writeInt( SNAPSHOT_MAGIC );
+				out.writeLong( sequence );
+				out.writeInt( tableStrings.size() );
+				for ( String string: tableStrings ) {
+					byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+					out.writeShort( bytes.length );
+					out.write( bytes );
+				}
+				out.writeInt( snapshot.size() );
+				for ( GameResult result: snapshot ) {
+					out.writeLong( result.getTimestamp() );
+					out.writeLong( result.getElapsedTime() );
+					out.writeInt( result.getFailedPicks() );
+					out.writeShort( result.getSize() );
+					out.writeInt( table.get( result.getPackageKey() ) );
+					out.writeInt( table.get( result.getPlayer() ) );
+				}
+				out.flush();
+				out.writeInt( (int) crc.getValue() );
+				out.flush();
+				channel.force( true );
+			} finally {
+				channel.close();
+			}
+			Files.move( temporary, directory.resolve( SNAPSHOT_NAME ), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+			snapshotSequence = sequence;
+
+			/* Empty log */
+			temporary = directory.resolve( LOG_NAME + TEMPORARY_SUFFIX );
+			channel = FileChannel.open( temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE );
+			try {
+				ByteBuffer header = ByteBuffer.allocate( 4 );
+				header.putInt( LOG_MAGIC );
+				header.flip();
+				channel.write( header );
+				channel.force( true );
+			} finally {
+				channel.close();
+			}
+			Files.move( temporary, directory.resolve( LOG_NAME ), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+			closeLog();
+			log = FileChannel.open( directory.resolve( LOG_NAME ), StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+			logRecords = 0;
+		} catch ( IOException e ) {
+			logger.error( __( ERROR_STATS ), e );
+		}
+	}
+
+	/**
+	 * Waits until the store has been loaded.
+	 * Must be called with the lock on this store held.
+	 */
+	private void awaitLoaded() {
+		boolean interrupted = false;
+		while ( !loaded ) {
+			try {
+				wait();
+			} catch ( InterruptedException e ) {
+				interrupted = true;
+			}
+		}
+		if ( interrupted ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Records a game result.
+	 * The result is written and indexed in the background.
+	 *
+	 * @param result Game result. The package key and player name must not exceed 65535 bytes in UTF-8.
+	 *
+	 * @return A future completing once the result has been written and indexed is returned.
+	 *
+	 * @throws NullPointerException if result is null.
+	 */
+	public Future<?> record( final GameResult result ) {
+		if ( result == null ) {
+			throw new NullPointerException();
+		}
+		return executor.submit( new Callable<Void>() {
+			public Void call() {
+				append( result );
+				return null;
+			}
+		} );
+	}
+
+	/**
+	 * Compacts the store in the background.
+	 *
+	 * @return A future completing once the store has been compacted is returned.
+	 */
+	public Future<?> compact() {
+		return executor.submit( new Callable<Void>() {
+			public Void call() {
+				compactNow();
+				return null;
+			}
+		} );
+	}
+
+	/**
+	 * Returns the number of results.
+	 *
+	 * @param packageKey Card package key.
+	 * @param size Playfield size.
+	 *
+	 * @return The number of results for the specified package and size is returned.
+	 */
+	public synchronized int getCount( String packageKey, int size ) {
+		awaitLoaded();
+		Leaderboard leaderboard = leaderboards.get( getLeaderboardKey( packageKey, size ) );
+		return leaderboard == null ? 0 : leaderboard.size();
+	}
+
+	/**
+	 * Returns the best results.
+	 *
+	 * @param packageKey Card package key.
+	 * @param size Playfield size.
+	 * @param n Maximum number of results.
+	 *
+	 * @return A list of the best n results for the specified package and size, best first, is returned.
+	 */
+	public synchronized List<GameResult> getTop( String packageKey, int size, int n ) {
+		awaitLoaded();
+		Leaderboard leaderboard = leaderboards.get( getLeaderboardKey( packageKey, size ) );
+		return leaderboard == null ? new ArrayList<GameResult>() : leaderboard.getTop( n );
+	}
+
+	/**
+	 * Returns the rank of a result among all results with the same package and size.
+	 *
+	 * @param result Game result, which need not have been recorded.
+	 *
+	 * @return One more than the number of better results is returned.
+	 */
+	public synchronized int getRank( GameResult result ) {
+		awaitLoaded();
+		Leaderboard leaderboard = leaderboards.get( getLeaderboardKey( result.getPackageKey(), result.getSize() ) );
+		return leaderboard == null ? 1 : leaderboard.getRank( result );
+	}
+
+	/**
+	 * Returns the personal best of a player.
+	 *
+	 * @param player Player name.
+	 * @param packageKey Card package key.
+	 * @param size Playfield size.
+	 *
+	 * @return The best result of the specified player for the specified package and size is returned,
+	 * 	or null if there is none.
+	 */
+	public synchronized GameResult getPersonalBest( String player, String packageKey, int size ) {
+		awaitLoaded();
+		Leaderboard leaderboard = leaderboards.get( getLeaderboardKey( packageKey, size ) );
+		return leaderboard == null ? null : leaderboard.getPersonalBest( player );
+	}
+
+	/**
+	 * Completes all pending writes and closes this store.
+	 */
+	public void close() {
+		if ( !openStores.remove( this ) ) {
+			return;
+		}
+		executor.execute( new Runnable() {
+			public void run() {
+				closeLog();
+			}
+		} );
+		executor.shutdown();
+		try {
+			executor.awaitTermination( 10, TimeUnit.SECONDS );
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
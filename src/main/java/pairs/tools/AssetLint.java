@@ -0,0 +1,526 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import java.util.concurrent.Callable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pairs.util.ImageResource;
+import pairs.util.ImageResourceLoader;
+import pairs.util.ResourceBundleControl;
+import pairs.util.Resources;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Lint for the bundled assets.
+ *
+ * The lint checks all references between packages.json, images.json, copyrights.json and licences.json,
+ * including the card packages and message keys they refer to, and measures the cost of every SVG image:
+ * its number of elements, the time to parse it and the time to render it at a standard card size.
+ * Images exceeding a budget are flagged. Broken references always fail the lint, budget violations only on request.
+ */
+public class AssetLint {
+	/**
+	 * Default render size in pixels.
+	 */
+	public static final int DEFAULT_SIZE = 256;
+
+	/**
+	 * Default element count budget.
+	 */
+	public static final int DEFAULT_NODE_BUDGET = 5000;
+
+	/**
+	 * Default parse time budget (ms).
+	 */
+	public static final long DEFAULT_PARSE_BUDGET = 200;
+
+	/**
+	 * Default render time budget (ms).
+	 */
+	public static final long DEFAULT_RENDER_BUDGET = 50;
+
+	/**
+	 * Number of parses and renders per image. The fastest parse and the fastest render count.
+	 */
+	private static final int RUNS = 3;
+
+	/**
+	 * Cost of an image.
+	 */
+	public static class ImageCost {
+		/**
+		 * Image name.
+		 */
+		private final String name;
+
+		/**
+		 * Number of elements.
+		 */
+		private final int nodes;
+
+		/**
+		 * Parse time (ns).
+		 */
+		private final long parseTime;
+
+		/**
+		 * Render time (ns).
+		 */
+		private final long renderTime;
+
+		/**
+		 * Creates a new image cost.
+		 *
+		 * @param name Image name.
+		 * @param nodes Number of elements.
+		 * @param parseTime Parse time (ns).
+		 * @param renderTime Render time (ns).
+		 */
+		ImageCost( String name, int nodes, long parseTime, long renderTime ) {
+			this.name = name;
+			this.nodes = nodes;
+			this.parseTime = parseTime;
+			this.renderTime = renderTime;
+		}
+
+		/**
+		 * Returns the image name.
+		 *
+		 * @return The image name is returned.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the number of elements.
+		 *
+		 * @return The number of elements of the image document is returned.
+		 */
+		public int getNodes() {
+			return nodes;
+		}
+
+		/**
+		 * Returns the parse time.
+		 *
+		 * @return The fastest time to load the image, including building its graphics tree, is returned in ns.
+		 */
+		public long getParseTime() {
+			return parseTime;
+		}
+
+		/**
+		 * Returns the render time.
+		 *
+		 * @return The fastest time to render the image is returned in ns.
+		 */
+		public long getRenderTime() {
+			return renderTime;
+		}
+	}
+
+	/**
+	 * Object mapper for reading the databases.
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Render size in pixels.
+	 */
+	private final int size;
+
+	/**
+	 * Element count budget.
+	 */
+	private final int nodeBudget;
+
+	/**
+	 * Parse time budget (ms).
+	 */
+	private final long parseBudget;
+
+	/**
+	 * Render time budget (ms).
+	 */
+	private final long renderBudget;
+
+	/**
+	 * Creates a new asset lint.
+	 *
+	 * @param size Render size in pixels.
+	 * @param nodeBudget Element count budget.
+	 * @param parseBudget Parse time budget (ms).
+	 * @param renderBudget Render time budget (ms).
+	 *
+	 * @throws IllegalArgumentException if size is not positive.
+	 */
+	public AssetLint( int size, int nodeBudget, long parseBudget, long renderBudget ) {
+		if ( size < 1 ) {
+			throw new IllegalArgumentException( __( ERROR_ASSETLINTARG, "size=" + size ) );
+		}
+		this.objectMapper = new ObjectMapper();
+		this.objectMapper.configure( JsonParser.Feature.ALLOW_COMMENTS, true );
+		this.size = size;
+		this.nodeBudget = nodeBudget;
+		this.parseBudget = parseBudget;
+		this.renderBudget = renderBudget;
+	}
+
+	/**
+	 * Reads a JSON resource.
+	 *
+	 * @param resourceName Resource name.
+	 *
+	 * @return The root node of the resource is returned.
+	 *
+	 * @throws IOException if the resource cannot be read or parsed.
+	 */
+	private JsonNode read( String resourceName ) throws IOException {
+		return objectMapper.readTree( Resources.loadResourceAsString( resourceName ) );
+	}
+
+	/**
+	 * Returns a text field.
+	 *
+	 * @param node Object node.
+	 * @param field Field name.
+	 *
+	 * @return The text of the field is returned, or null if the field is missing or not text.
+	 */
+	private static String getText( JsonNode node, String field ) {
+		JsonNode value = node.get( field );
+		return value == null ? null : value.textValue();
+	}
+
+	/**
+	 * Checks that a resource exists.
+	 *
+	 * @param problems List problems are added to.
+	 * @param prefix Problem prefix naming the referring entry.
+	 * @param resourceName Resource name, may be null.
+	 *
+	 * @return True is returned if the resource exists, false otherwise.
+	 */
+	private static boolean checkResource( List<String> problems, String prefix, String resourceName ) {
+		if ( ( resourceName == null ) || ( AssetLint.class.getClassLoader().getResource( resourceName ) == null ) ) {
+			problems.add( prefix + __( ERROR_LOADINGRESOURCE, resourceName ) );
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that a message key exists.
+	 *
+	 * @param problems List problems are added to.
+	 * @param prefix Problem prefix naming the referring entry.
+	 * @param messages Message bundle.
+	 * @param key Message key, may be null.
+	 */
+	private static void checkMessage( List<String> problems, String prefix, ResourceBundle messages, String key ) {
+		if ( ( key == null ) || !messages.containsKey( key ) ) {
+			problems.add( prefix + __( ERROR_MESSAGEKEY, key ) );
+		}
+	}
+
+	/**
+	 * Checks all references between the databases.
+	 *
+	 * @return A list of broken references is returned. The list is empty if all references are valid.
+	 *
+	 * @throws IOException if a database cannot be read.
+	 */
+	public List<String> checkReferences() throws IOException {
+		List<String> problems = new ArrayList<String>();
+		JsonNode packages = read( "packages.json" );
+		JsonNode images = read( "images.json" );
+		JsonNode copyrights = read( "copyrights.json" );
+		JsonNode licences = read( "licences.json" );
+		ResourceBundle messages = ResourceBundle.getBundle( "Messages", Locale.ROOT, new ResourceBundleControl() );
+
+		/* Packages */
+		Iterator<Map.Entry<String, JsonNode>> entries = packages.fields();
+		while ( entries.hasNext() ) {
+			Map.Entry<String, JsonNode> entry = entries.next();
+			String prefix = "packages.json: " + entry.getKey() + ": ";
+			checkMessage( problems, prefix, messages, getText( entry.getValue(), "key" ) );
+			String resourceName = getText( entry.getValue(), "resource" );
+			if ( !checkResource( problems, prefix, resourceName ) ) {
+				continue;
+			}
+			JsonNode cardPackage;
+			try {
+				cardPackage = read( resourceName );
+			} catch ( IOException e ) {
+				problems.add( prefix + __( ERROR_CARDPACKAGE, entry.getKey() ) );
+				continue;
+			}
+			prefix = resourceName + ": ";
+			checkMessage( problems, prefix, messages, getText( cardPackage, "descriptionKey" ) );
+			for ( JsonNode pair: cardPackage.path( "pairs" ) ) {
+				for ( JsonNode card: pair ) {
+					String image = getText( card, "image" );
+					if ( "IMAGE".equals( getText( card, "type" ) ) && ( ( image == null ) || !images.has( image ) ) ) {
+						problems.add( prefix + __( ERROR_LOADINGIMAGE, image ) );
+					}
+				}
+			}
+		}
+
+		/* Images */
+		entries = images.fields();
+		while ( entries.hasNext() ) {
+			Map.Entry<String, JsonNode> entry = entries.next();
+			String prefix = "images.json: " + entry.getKey() + ": ";
+			checkResource( problems, prefix, getText( entry.getValue(), "resource" ) );
+			String type = getText( entry.getValue(), "type" );
+			try {
+				ImageResource.Type.valueOf( type );
+			} catch ( RuntimeException e ) {
+				problems.add( prefix + __( ERROR_LOADINGIMAGE, entry.getKey() ) );
+			}
+			String copyright = getText( entry.getValue(), "copyright" );
+			if ( ( copyright == null ) || !copyrights.has( copyright ) ) {
+				problems.add( prefix + __( ERROR_COPYRIGHT, copyright ) );
+			}
+		}
+
+		/* Copyrights */
+		entries = copyrights.fields();
+		while ( entries.hasNext() ) {
+			Map.Entry<String, JsonNode> entry = entries.next();
+			String licence = getText( entry.getValue(), "licence" );
+			if ( ( licence == null ) || !licences.has( licence ) ) {
+				problems.add( "copyrights.json: " + entry.getKey() + ": " + __( ERROR_LICENCE, licence ) );
+			}
+		}
+
+		/* Licences */
+		entries = licences.fields();
+		while ( entries.hasNext() ) {
+			Map.Entry<String, JsonNode> entry = entries.next();
+			checkResource( problems, "licences.json: " + entry.getKey() + ": ", getText( entry.getValue(), "resource" ) );
+		}
+		return problems;
+	}
+
+	/**
+	 * Counts the elements of an SVG resource.
+	 * The external DTD is not loaded, but entities declared in the document are expanded.
+	 *
+	 * @param resourceName Resource name.
+	 *
+	 * @return The number of elements is returned.
+	 *
+	 * @throws IOException if the resource cannot be read or parsed.
+	 */
+	private static int countNodes( String resourceName ) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+		factory.setXMLResolver( new XMLResolver() {
+			public Object resolveEntity( String publicID, String systemID, String baseURI, String namespace ) {
+				return new ByteArrayInputStream( new byte[ 0 ] );
+			}
+		} );
+		InputStream in = AssetLint.class.getClassLoader().getResourceAsStream( resourceName );
+		if ( in == null ) {
+			throw new IOException( __( ERROR_LOADINGRESOURCE, resourceName ) );
+		}
+		try {
+			XMLStreamReader reader = factory.createXMLStreamReader( in );
+			int result = 0;
+			while ( reader.hasNext() ) {
+				if ( reader.next() == XMLStreamConstants.START_ELEMENT ) {
+					++result;
+				}
+			}
+			reader.close();
+			return result;
+		} catch ( XMLStreamException e ) {
+			throw new IOException( __( ERROR_LOADINGRESOURCE, resourceName ), e );
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Measures the cost of an image.
+	 *
+	 * @param name Image name.
+	 * @param resourceName Resource name of the image.
+	 *
+	 * @return The cost of the image is returned.
+	 *
+	 * @throws IOException if the image cannot be read.
+	 */
+	private ImageCost measure( String name, String resourceName ) throws IOException {
+		int nodes = countNodes( resourceName );
+		ImageResource resource = null;
+		long parseTime = Long.MAX_VALUE;
+		for ( int i = 0; i != RUNS; ++i ) {
+			long start = System.nanoTime();
+			resource = ImageResourceLoader.load( name );
+			parseTime = Math.min( parseTime, System.nanoTime() - start );
+		}
+		long renderTime = Long.MAX_VALUE;
+		for ( int i = 0; i != RUNS; ++i ) {
+			long start = System.nanoTime();
+			resource.createImage( size, size );
+			renderTime = Math.min( renderTime, System.nanoTime() - start );
+		}
+		return new ImageCost( name, nodes, parseTime, renderTime );
+	}
+
+	/**
+	 * Measures the cost of all SVG images in parallel.
+	 *
+	 * @param threads Number of threads. Measurements are most accurate with a single thread.
+	 *
+	 * @return The image costs are returned, most expensive to render first.
+	 *
+	 * @throws IOException if the image database or an image cannot be read.
+	 * @throws InterruptedException if interrupted while measuring.
+	 */
+	public List<ImageCost> measureImages( int threads ) throws IOException, InterruptedException {
+		JsonNode images = read( "images.json" );
+		List<Callable<ImageCost>> tasks = new ArrayList<Callable<ImageCost>>();
+		Iterator<Map.Entry<String, JsonNode>> entries = images.fields();
+		while ( entries.hasNext() ) {
+			Map.Entry<String, JsonNode> entry = entries.next();
+			if ( !ImageResource.Type.SVG.name().equals( getText( entry.getValue(), "type" ) ) ) {
+				continue;
+			}
+			final String name = entry.getKey();
+			final String resourceName = getText( entry.getValue(), "resource" );
+			tasks.add( new Callable<ImageCost>() {
+				public ImageCost call() throws IOException {
+					return measure( name, resourceName );
+				}
+			} );
+		}
+
+		List<ImageCost> result = CommandLine.invokeAll( tasks, threads );
+		Collections.sort( result, new Comparator<ImageCost>() {
+			public int compare( ImageCost a, ImageCost b ) {
+				return Long.compare( b.getRenderTime(), a.getRenderTime() );
+			}
+		} );
+		return result;
+	}
+
+	/**
+	 * Returns the budgets an image exceeds.
+	 *
+	 * @param cost Image cost.
+	 *
+	 * @return A comma-separated list of the exceeded budgets is returned, or the empty string if the image is within all budgets.
+	 */
+	public String getExceededBudgets( ImageCost cost ) {
+		StringBuilder result = new StringBuilder();
+		if ( cost.getNodes() > nodeBudget ) {
+			result.append( "nodes" );
+		}
+		if ( cost.getParseTime() > parseBudget * 1000000 ) {
+			result.append( result.length() == 0 ? "" : "," ).append( "parse" );
+		}
+		if ( cost.getRenderTime() > renderBudget * 1000000 ) {
+			result.append( result.length() == 0 ? "" : "," ).append( "render" );
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Lints the bundled assets and prints a report.
+	 * Images are only measured if all references are valid.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>size: Render size in pixels (default {@value #DEFAULT_SIZE}).</li>
+	 * 	<li>nodes: Element count budget (default {@value #DEFAULT_NODE_BUDGET}).</li>
+	 * 	<li>parse: Parse time budget in ms (default {@value #DEFAULT_PARSE_BUDGET}).</li>
+	 * 	<li>render: Render time budget in ms (default {@value #DEFAULT_RENDER_BUDGET}).</li>
+	 * 	<li>threads: Number of measuring threads (default: number of processors).</li>
+	 * 	<li>fail: Whether images exceeding a budget fail the lint (default false).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 *
+	 * @throws IOException if a database or an image cannot be read.
+	 * @throws InterruptedException if interrupted while measuring.
+	 * @throws IllegalStateException if the lint fails.
+	 */
+	public static void main( String... args ) throws IOException, InterruptedException {
+		CommandLine.setHeadless();
+		CommandLine commandLine = new CommandLine( args, ERROR_ASSETLINTARG, "size", "nodes", "parse", "render", "threads", "fail" );
+		int size = commandLine.getInt( "size", DEFAULT_SIZE );
+		int nodes = commandLine.getInt( "nodes", DEFAULT_NODE_BUDGET );
+		long parse = commandLine.getLong( "parse", DEFAULT_PARSE_BUDGET );
+		long render = commandLine.getLong( "render", DEFAULT_RENDER_BUDGET );
+		int threads = commandLine.getInt( "threads", Runtime.getRuntime().availableProcessors() );
+		boolean fail = commandLine.getBoolean( "fail", false );
+
+		AssetLint lint = new AssetLint( size, nodes, parse, render );
+		List<String> problems = lint.checkReferences();
+		for ( String problem: problems ) {
+			System.out.println( problem );
+		}
+		if ( !problems.isEmpty() ) {
+			throw new IllegalStateException( __( ERROR_ASSETLINT, problems.size() ) );
+		}
+		int failures = 0;
+		System.out.println( "image\tnodes\tparse ms\trender ms\tover budget" );
+		for ( ImageCost cost: lint.measureImages( threads ) ) {
+			String exceeded = lint.getExceededBudgets( cost );
+			System.out.println( String.format( Locale.ROOT, "%s\t%d\t%.1f\t%.1f\t%s", cost.getName(), cost.getNodes(),
+					cost.getParseTime() / 1e6, cost.getRenderTime() / 1e6, exceeded ) );
+			if ( fail && !exceeded.isEmpty() ) {
+				++failures;
+			}
+		}
+		if ( failures != 0 ) {
+			throw new IllegalStateException( __( ERROR_ASSETLINT, failures ) );
+		}
+	}
+}
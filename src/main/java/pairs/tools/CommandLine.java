@@ -0,0 +1,267 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pairs.data.CardPackage;
+
+import static pairs.util.Message.__;
+
+/**
+ * Command line support for the tools, the simulator and the benchmark harnesses.
+ *
+ * Arguments are of the form key=value. Each tool declares its keys and the message
+ * reporting an invalid argument; unknown keys and missing values are rejected with that message.
+ * This class is public because the simulator and the benchmark harnesses live outside this package.
+ */
+public final class CommandLine {
+	/**
+	 * Argument values, by key.
+	 */
+	private final Map<String, String> arguments;
+
+	/**
+	 * Index of the message reporting an invalid argument, with the argument as its only parameter.
+	 */
+	private final int errorKey;
+
+	/**
+	 * Parses a command line.
+	 *
+	 * @param args Program arguments of the form key=value.
+	 * @param errorKey Index of the message reporting an invalid argument, see {@link pairs.util.MessageKeys}.
+	 * @param keys Valid keys.
+	 *
+	 * @throws IllegalArgumentException if an argument has no value or an unknown key.
+	 */
+	public CommandLine( String[] args, int errorKey, String... keys ) {
+		this.arguments = new HashMap<String, String>();
+		this.errorKey = errorKey;
+		List<String> validKeys = Arrays.asList( keys );
+		for ( String arg: args ) {
+			int separator = arg.indexOf( '=' );
+			if ( ( separator < 0 ) || !validKeys.contains( arg.substring( 0, separator ) ) ) {
+				throw new IllegalArgumentException( __( errorKey, arg ) );
+			}
+			arguments.put( arg.substring( 0, separator ), arg.substring( separator + 1 ) );
+		}
+	}
+
+	/**
+	 * Obtains a required argument.
+	 *
+	 * @param key Argument key.
+	 *
+	 * @return The value of the argument is returned.
+	 *
+	 * @throws IllegalArgumentException if the argument is missing.
+	 */
+	public String get( String key ) {
+		String result = arguments.get( key );
+		if ( result == null ) {
+			throw new IllegalArgumentException( __( errorKey, key ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains an optional integer argument.
+	 *
+	 * @param key Argument key.
+	 * @param def Default value.
+	 *
+	 * @return The value of the argument is returned, or def if the argument is missing.
+	 *
+	 * @throws NumberFormatException if the value is not an integer.
+	 */
+	public int getInt( String key, int def ) {
+		String value = arguments.get( key );
+		return value == null ? def : Integer.parseInt( value );
+	}
+
+	/**
+	 * Obtains an optional long integer argument.
+	 *
+	 * @param key Argument key.
+	 * @param def Default value.
+	 *
+	 * @return The value of the argument is returned, or def if the argument is missing.
+	 *
+	 * @throws NumberFormatException if the value is not an integer.
+	 */
+	public long getLong( String key, long def ) {
+		String value = arguments.get( key );
+		return value == null ? def : Long.parseLong( value );
+	}
+
+	/**
+	 * Obtains an optional boolean argument.
+	 *
+	 * @param key Argument key.
+	 * @param def Default value.
+	 *
+	 * @return The value of the argument is returned, or def if the argument is missing.
+	 */
+	public boolean getBoolean( String key, boolean def ) {
+		String value = arguments.get( key );
+		return value == null ? def : Boolean.parseBoolean( value );
+	}
+
+	/**
+	 * Obtains a required path argument.
+	 *
+	 * @param key Argument key.
+	 *
+	 * @return The path given by the argument is returned.
+	 *
+	 * @throws IllegalArgumentException if the argument is missing.
+	 */
+	public Path getPath( String key ) {
+		return Paths.get( get( key ) );
+	}
+
+	/**
+	 * Obtains an optional path argument.
+	 *
+	 * @param key Argument key.
+	 * @param def Default path.
+	 *
+	 * @return The path given by the argument is returned, or def if the argument is missing.
+	 */
+	public Path getPath( String key, Path def ) {
+		String value = arguments.get( key );
+		return value == null ? def : Paths.get( value );
+	}
+
+	/**
+	 * Obtains an optional comma-separated list argument.
+	 *
+	 * @param key Argument key.
+	 * @param def Default list.
+	 *
+	 * @return The list given by the argument is returned, or def if the argument is missing.
+	 */
+	public List<String> getList( String key, List<String> def ) {
+		String value = arguments.get( key );
+		return value == null ? def : Arrays.asList( value.split( "," ) );
+	}
+
+	/**
+	 * Obtains an optional comma-separated list of integers.
+	 *
+	 * @param key Argument key.
+	 * @param def Default list.
+	 *
+	 * @return The list given by the argument is returned, or def if the argument is missing.
+	 *
+	 * @throws NumberFormatException if an element is not an integer.
+	 */
+	public List<Integer> getIntList( String key, List<Integer> def ) {
+		String value = arguments.get( key );
+		if ( value == null ) {
+			return def;
+		}
+		List<Integer> result = new ArrayList<Integer>();
+		for ( String element: value.split( "," ) ) {
+			result.add( Integer.valueOf( element ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains the card packages named by an optional comma-separated list argument.
+	 *
+	 * @param key Argument key.
+	 *
+	 * @return The named shared card packages are returned, or all card packages if the argument is missing.
+	 *
+	 * @throws IllegalArgumentException if there is no package with one of the names.
+	 */
+	public List<CardPackage> getCardPackages( String key ) {
+		List<CardPackage> result = new ArrayList<CardPackage>();
+		List<String> names = getList( key, null );
+		if ( names == null ) {
+			result.addAll( CardPackage.getAll() );
+		} else {
+			for ( String name: names ) {
+				result.add( CardPackage.getShared( name ) );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Makes AWT run headless, so images can be rendered without a display.
+	 * Must be called before any AWT class is initialised.
+	 */
+	public static void setHeadless() {
+		System.setProperty( "java.awt.headless", "true" );
+	}
+
+	/**
+	 * Runs tasks on a temporary thread pool and waits for all of them.
+	 *
+	 * @param tasks Tasks.
+	 * @param threads Number of threads.
+	 *
+	 * @return The results of the tasks are returned, in task order.
+	 *
+	 * @throws IOException if a task throws an I/O exception.
+	 * @throws IllegalStateException if a task throws any other checked exception.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public static <T> List<T> invokeAll( List<? extends Callable<T>> tasks, int threads ) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			List<T> result = new ArrayList<T>();
+			for ( Future<T> future: executor.invokeAll( tasks ) ) {
+				try {
+					result.add( future.get() );
+				} catch ( ExecutionException e ) {
+					if ( e.getCause() instanceof IOException ) {
+						throw (IOException) e.getCause();
+					}
+					if ( e.getCause() instanceof RuntimeException ) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw new IllegalStateException( e.getCause() );
+				}
+			}
+			return result;
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,496 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+
+import java.awt.image.BufferedImage;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.Locale;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import pairs.data.Card;
+import pairs.data.CardPackage;
+import pairs.data.CardPair;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Headless renderer of card package contact sheets.
+ *
+ * Every card of a package, image faces and text faces alike, is drawn into a grid of cards on a sheet,
+ * and each sheet is written as a PNG file. A sheet of one card by one card yields one file per card.
+ * Sheets are rendered by a pool with one thread per core and handed to separate PNG encoder threads
+ * through a bounded queue, so rendering never waits for encoding unless the encoders fall behind,
+ * and at most a few finished sheets are held in memory at any time.
+ */
+public class ContactSheetRenderer {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( ContactSheetRenderer.class );
+
+	/**
+	 * Gap between cards and around the sheet in pixels.
+	 */
+	private static final int GAP = 8;
+
+	/**
+	 * Number of finished sheets which may wait for encoding per encoder thread.
+	 */
+	private static final int QUEUE_SIZE_PER_ENCODER = 2;
+
+	/**
+	 * Sheet background colour.
+	 */
+	private static final Color BACKGROUND = Color.WHITE;
+
+	/**
+	 * Card face colour.
+	 */
+	private static final Color CARD_FACE = new Color( 0xf4f4f4 );
+
+	/**
+	 * Card border and text colour.
+	 */
+	private static final Color FOREGROUND = Color.DARK_GRAY;
+
+	/**
+	 * Sheet handed from the renderers to the encoders.
+	 */
+	private static class RenderedSheet {
+		/**
+		 * Rendered sheet image, or null to tell an encoder to stop.
+		 */
+		final BufferedImage image;
+
+		/**
+		 * Output file.
+		 */
+		final Path path;
+
+		/**
+		 * Creates a new rendered sheet.
+		 *
+		 * @param image Rendered sheet image, or null to tell an encoder to stop.
+		 * @param path Output file.
+		 */
+		RenderedSheet( BufferedImage image, Path path ) {
+			this.image = image;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * Sheet telling an encoder to stop.
+	 */
+	private static final RenderedSheet END = new RenderedSheet( null, null );
+
+	/**
+	 * Card package.
+	 */
+	private final CardPackage cardPackage;
+
+	/**
+	 * Card width in pixels.
+	 */
+	private final int cardWidth;
+
+	/**
+	 * Card height in pixels.
+	 */
+	private final int cardHeight;
+
+	/**
+	 * Number of card columns per sheet.
+	 */
+	private final int columns;
+
+	/**
+	 * Number of card rows per sheet.
+	 */
+	private final int rows;
+
+	/**
+	 * Number of rendering threads.
+	 */
+	private final int renderThreads;
+
+	/**
+	 * Number of PNG encoder threads.
+	 */
+	private final int encoderThreads;
+
+	/**
+	 * Number of cards which could not be rendered.
+	 */
+	private final AtomicInteger failedCards;
+
+	/**
+	 * Number of sheets which could not be written.
+	 */
+	private final AtomicInteger failedSheets;
+
+	/**
+	 * Creates a new contact sheet renderer.
+	 *
+	 * @param cardPackage Card package.
+	 * @param cardWidth Card width in pixels.
+	 * @param cardHeight Card height in pixels.
+	 * @param columns Number of card columns per sheet.
+	 * @param rows Number of card rows per sheet.
+	 * @param renderThreads Number of rendering threads.
+	 * @param encoderThreads Number of PNG encoder threads.
+	 *
+	 * @throws NullPointerException if cardPackage is null.
+	 * @throws IllegalArgumentException if a number is not positive.
+	 */
+	public ContactSheetRenderer( CardPackage cardPackage, int cardWidth, int cardHeight, int columns, int rows, int renderThreads, int encoderThreads ) {
+		if ( cardPackage == null ) {
+			throw new NullPointerException();
+		}
+		int[] values = { cardWidth, cardHeight, columns, rows, renderThreads, encoderThreads };
+		for ( int value: values ) {
+			if ( value < 1 ) {
+				throw new IllegalArgumentException( __( ERROR_CONTACTSHEETARG, value ) );
+			}
+		}
+		this.cardPackage = cardPackage;
+		this.cardWidth = cardWidth;
+		this.cardHeight = cardHeight;
+		this.columns = columns;
+		this.rows = rows;
+		this.renderThreads = renderThreads;
+		this.encoderThreads = encoderThreads;
+		this.failedCards = new AtomicInteger();
+		this.failedSheets = new AtomicInteger();
+	}
+
+	/**
+	 * Returns the number of cards per sheet.
+	 *
+	 * @return The number of cards per sheet is returned.
+	 */
+	private int getCardsPerSheet() {
+		return columns * rows;
+	}
+
+	/**
+	 * Returns whether each card goes into a file of its own.
+	 *
+	 * @return True is returned if sheets hold a single card, false otherwise.
+	 */
+	private boolean isSingle() {
+		return getCardsPerSheet() == 1;
+	}
+
+	/**
+	 * Returns a card.
+	 *
+	 * @param i Card number. Cards 2n and 2n + 1 make up the nth pair.
+	 *
+	 * @return The card with the specified number is returned.
+	 */
+	private Card getCard( int i ) {
+		CardPair pair = cardPackage.getPair( i / 2 );
+		return ( i & 1 ) == 0 ? pair.getFirst() : pair.getSecond();
+	}
+
+	/**
+	 * Draws a card face.
+	 *
+	 * @param graphics Sheet graphics.
+	 * @param i Card number.
+	 * @param x Left edge of the card.
+	 * @param y Top edge of the card.
+	 */
+	private void drawCard( Graphics2D graphics, int i, int x, int y ) {
+		graphics.setColor( CARD_FACE );
+		graphics.fillRoundRect( x, y, cardWidth, cardHeight, GAP, GAP );
+		graphics.setColor( FOREGROUND );
+		graphics.drawRoundRect( x, y, cardWidth - 1, cardHeight - 1, GAP, GAP );
+		try {
+			Card card = getCard( i );
+			switch ( card.getType() ) {
+				case IMAGE:
+					Image image = card.getImageResource().createImage( cardWidth - 2 * GAP, cardHeight - 2 * GAP );
+					graphics.drawImage( image, x + GAP, y + GAP, null );
+					break;
+				case TEXT:
+					drawText( graphics, card.getText(), x, y );
+					break;
+			}
+		} catch ( RuntimeException e ) {
+			logger.error( __( ERROR_RENDERCARD, i, cardPackage.getKey() ), e );
+			failedCards.incrementAndGet();
+			graphics.setColor( Color.RED );
+			graphics.drawLine( x, y, x + cardWidth - 1, y + cardHeight - 1 );
+			graphics.drawLine( x, y + cardHeight - 1, x + cardWidth - 1, y );
+		}
+	}
+
+	/**
+	 * Draws a text card face, with the text scaled to fit the card.
+	 *
+	 * @param graphics Sheet graphics.
+	 * @param text Card text.
+	 * @param x Left edge of the card.
+	 * @param y Top edge of the card.
+	 */
+	private void drawText( Graphics2D graphics, String text, int x, int y ) {
+		Font font = graphics.getFont().deriveFont( (float) cardHeight / 4 );
+		FontMetrics metrics = graphics.getFontMetrics( font );
+		int width = metrics.stringWidth( text );
+		int maxWidth = cardWidth - 2 * GAP;
+		if ( width > maxWidth ) {
+			font = font.deriveFont( font.getSize2D() * maxWidth / width );
+			metrics = graphics.getFontMetrics( font );
+			width = metrics.stringWidth( text );
+		}
+		graphics.setFont( font );
+		graphics.drawString( text, x + ( cardWidth - width ) / 2, y + ( cardHeight - metrics.getHeight() ) / 2 + metrics.getAscent() );
+	}
+
+	/**
+	 * Renders a sheet.
+	 *
+	 * @param sheet Sheet number.
+	 *
+	 * @return The rendered sheet image is returned.
+	 */
+	private BufferedImage renderSheet( int sheet ) {
+		int first = sheet * getCardsPerSheet();
+		int cards = Math.min( getCardsPerSheet(), 2 * cardPackage.size() - first );
+		int sheetColumns = Math.min( columns, cards );
+		int sheetRows = ( cards + columns - 1 ) / columns;
+		int width = isSingle() ? cardWidth : sheetColumns * ( cardWidth + GAP ) + GAP;
+		int height = isSingle() ? cardHeight : sheetRows * ( cardHeight + GAP ) + GAP;
+		int offset = isSingle() ? 0 : GAP;
+		BufferedImage result = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+		Graphics2D graphics = result.createGraphics();
+		try {
+			graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+			graphics.setRenderingHint( RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON );
+			graphics.setStroke( new BasicStroke( 1 ) );
+			if ( !isSingle() ) {
+				graphics.setColor( BACKGROUND );
+				graphics.fillRect( 0, 0, width, height );
+			}
+			for ( int i = 0; i != cards; ++i ) {
+				int x = offset + ( i % columns ) * ( cardWidth + GAP );
+				int y = offset + ( i / columns ) * ( cardHeight + GAP );
+				drawCard( graphics, first + i, x, y );
+			}
+		} finally {
+			graphics.dispose();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the output file of a sheet.
+	 *
+	 * @param outputDirectory Output directory.
+	 * @param sheet Sheet number.
+	 *
+	 * @return The path of the PNG file of the sheet is returned.
+	 */
+	private Path getSheetPath( Path outputDirectory, int sheet ) {
+		String suffix = isSingle() ? String.format( Locale.ROOT, "%06d-%c", sheet / 2, ( sheet & 1 ) == 0 ? 'a' : 'b' ) : String.format( Locale.ROOT, "sheet-%04d", sheet );
+		return outputDirectory.resolve( cardPackage.getKey() + "-" + suffix + ".png" );
+	}
+
+	/**
+	 * Creates a thread factory for daemon threads.
+	 *
+	 * @param name Thread name prefix.
+	 *
+	 * @return A thread factory creating daemon threads named after the prefix and a thread number is returned.
+	 */
+	private static ThreadFactory createThreadFactory( final String name ) {
+		return new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, name + "-" + threadNumber.incrementAndGet() );
+				thread.setDaemon( true );
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Renders all sheets and writes them to PNG files.
+	 * Cards which cannot be rendered are crossed out. Sheets which cannot be encoded or written,
+	 * or which are dropped because rendering is interrupted, are skipped,
+	 * see {@link #getFailedCards()} and {@link #getFailedSheets()}.
+	 *
+	 * @param outputDirectory Output directory. It is created if necessary.
+	 *
+	 * @return The number of sheets is returned.
+	 *
+	 * @throws IOException if the output directory cannot be created.
+	 * @throws InterruptedException if interrupted while waiting for the sheets.
+	 */
+	public int render( final Path outputDirectory ) throws IOException, InterruptedException {
+		Files.createDirectories( outputDirectory );
+		final int sheets = ( 2 * cardPackage.size() + getCardsPerSheet() - 1 ) / getCardsPerSheet();
+		final BlockingQueue<RenderedSheet> queue = new ArrayBlockingQueue<RenderedSheet>( QUEUE_SIZE_PER_ENCODER * encoderThreads );
+
+		/* Encoders */
+		ExecutorService encoders = Executors.newFixedThreadPool( encoderThreads, createThreadFactory( "pairs-png-encoder" ) );
+		for ( int i = 0; i != encoderThreads; ++i ) {
+			encoders.execute( new Runnable() {
+				public void run() {
+					try {
+						for ( RenderedSheet sheet = queue.take(); sheet != END; sheet = queue.take() ) {
+							try {
+								ImageIO.write( sheet.image, "png", sheet.path.toFile() );
+							} catch ( IOException e ) {
+								logger.error( __( ERROR_WRITEIMAGE, sheet.path ), e );
+								failedSheets.incrementAndGet();
+							} catch ( RuntimeException e ) { // keep this encoder alive for the remaining sheets
+								logger.error( __( ERROR_WRITEIMAGE, sheet.path ), e );
+								failedSheets.incrementAndGet();
+							}
+						}
+					} catch ( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			} );
+		}
+		encoders.shutdown();
+
+		/* Renderers */
+		ExecutorService renderers = Executors.newFixedThreadPool( renderThreads, createThreadFactory( "pairs-sheet-renderer" ) );
+		try {
+			for ( int i = 0; i != sheets; ++i ) {
+				final int sheet = i;
+				renderers.execute( new Runnable() {
+					public void run() {
+						BufferedImage image = renderSheet( sheet );
+						try {
+							queue.put( new RenderedSheet( image, getSheetPath( outputDirectory, sheet ) ) );
+						} catch ( InterruptedException e ) {
+							failedSheets.incrementAndGet(); // dropped before reaching an encoder
+							Thread.currentThread().interrupt();
+						}
+					}
+				} );
+			}
+			renderers.shutdown();
+			renderers.awaitTermination( Long.MAX_VALUE, TimeUnit.NANOSECONDS );
+			for ( int i = 0; i != encoderThreads; ++i ) {
+				queue.put( END );
+			}
+			encoders.awaitTermination( Long.MAX_VALUE, TimeUnit.NANOSECONDS );
+		} finally {
+			renderers.shutdownNow();
+			encoders.shutdownNow();
+		}
+		return sheets;
+	}
+
+	/**
+	 * Returns the number of cards which could not be rendered.
+	 *
+	 * @return The number of cards which could not be rendered so far is returned.
+	 */
+	public int getFailedCards() {
+		return failedCards.get();
+	}
+
+	/**
+	 * Returns the number of sheets which could not be written.
+	 *
+	 * @return The number of sheets which could not be written so far is returned.
+	 */
+	public int getFailedSheets() {
+		return failedSheets.get();
+	}
+
+	/**
+	 * Renders contact sheets of card packages.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>out: Output directory (default: current directory).</li>
+	 * 	<li>packages: Comma-separated card package names (default: all packages).</li>
+	 * 	<li>width: Card width in pixels (default 256).</li>
+	 * 	<li>height: Card height in pixels (default 256).</li>
+	 * 	<li>columns: Number of card columns per sheet (default 8).</li>
+	 * 	<li>rows: Number of card rows per sheet (default 8). With columns=1 and rows=1, each card is written to a file of its own.</li>
+	 * 	<li>threads: Number of rendering threads (default: number of processors).</li>
+	 * 	<li>encoders: Number of PNG encoder threads (default: half the number of processors).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 *
+	 * @throws IOException if an output directory cannot be created.
+	 * @throws InterruptedException if interrupted while rendering.
+	 */
+	public static void main( String... args ) throws IOException, InterruptedException {
+		CommandLine.setHeadless();
+		CommandLine commandLine = new CommandLine( args, ERROR_CONTACTSHEETARG, "out", "packages", "width", "height", "columns", "rows", "threads", "encoders" );
+		Path out = commandLine.getPath( "out", Paths.get( "" ) );
+		List<CardPackage> cardPackages = commandLine.getCardPackages( "packages" );
+		int width = commandLine.getInt( "width", 256 );
+		int height = commandLine.getInt( "height", 256 );
+		int columns = commandLine.getInt( "columns", 8 );
+		int rows = commandLine.getInt( "rows", 8 );
+		int threads = commandLine.getInt( "threads", Runtime.getRuntime().availableProcessors() );
+		int encoders = commandLine.getInt( "encoders", Math.max( 1, threads / 2 ) );
+
+		for ( CardPackage cardPackage: cardPackages ) {
+			ContactSheetRenderer renderer = new ContactSheetRenderer( cardPackage, width, height, columns, rows, threads, encoders );
+			long start = System.nanoTime();
+			int sheets = renderer.render( out );
+			long elapsed = ( System.nanoTime() - start ) / 1000000;
+			System.out.println( cardPackage.getKey() + ": " + 2 * cardPackage.size() + " cards on " + sheets + " sheets in " + elapsed + " ms, "
+					+ renderer.getFailedCards() + " cards failed, " + renderer.getFailedSheets() + " sheets failed" );
+		}
+	}
+}
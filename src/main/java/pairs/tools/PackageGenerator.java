@@ -0,0 +1,524 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pairs.util.Random;
+import pairs.util.Resources;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Generator of a synthetic card package for scale testing.
+ *
+ * The generator writes a resource directory holding packages.json, images.json, copyrights.json and licences.json,
+ * each with the bundled entries plus the synthetic ones, the synthetic package itself, and one procedurally generated SVG per image.
+ * With the directory ahead of the game on the class path, the synthetic package loads like a bundled one.
+ * All JSON is written with the streaming API, so packages with millions of pairs are written in constant memory.
+ *
+ * Image pairs pair a generated image showing shapes and its number with the text of that number, like "#12".
+ * If there are more image pairs than images, images and thus image pairs are repeated.
+ * Text pairs pair a number with its hexadecimal notation.
+ */
+public class PackageGenerator {
+	/**
+	 * Key of the synthetic package, and of its image, copyright and licence entries.
+	 */
+	public static final String PACKAGE_NAME = "synthetic";
+
+	/**
+	 * Resource name of the synthetic package.
+	 */
+	public static final String PACKAGE_RESOURCE = "packages/" + PACKAGE_NAME + ".json";
+
+	/**
+	 * Resource directory of the synthetic images.
+	 */
+	private static final String IMAGE_DIRECTORY = "images/" + PACKAGE_NAME;
+
+	/**
+	 * Resource name of the synthetic licence text.
+	 */
+	private static final String LICENCE_RESOURCE = "licences/" + PACKAGE_NAME + ".txt";
+
+	/**
+	 * Image name prefix.
+	 */
+	private static final String IMAGE_PREFIX = PACKAGE_NAME + "-";
+
+	/**
+	 * Side length of the SVG view box.
+	 */
+	private static final double VIEW_SIZE = 100;
+
+	/**
+	 * Number of shapes per group in generated SVGs.
+	 */
+	private static final int GROUP_SIZE = 8;
+
+	/**
+	 * SVG namespace.
+	 */
+	private static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+
+	/**
+	 * Object mapper for reading the bundled databases and creating generators.
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Output resource directory.
+	 */
+	private final Path outputDirectory;
+
+	/**
+	 * Number of card pairs.
+	 */
+	private final int pairs;
+
+	/**
+	 * Percentage of image pairs.
+	 */
+	private final int imagePercent;
+
+	/**
+	 * Number of distinct images.
+	 */
+	private final int images;
+
+	/**
+	 * Number of shapes per image.
+	 */
+	private final int complexity;
+
+	/**
+	 * Generator seed.
+	 */
+	private final long seed;
+
+	/**
+	 * Creates a new package generator.
+	 *
+	 * @param outputDirectory Output resource directory. It is created if necessary.
+	 * @param pairs Number of card pairs.
+	 * @param imagePercent Percentage of image pairs, spread evenly over the package.
+	 * @param images Number of distinct images. If there are more image pairs, images are repeated.
+	 * @param complexity Number of shapes per image.
+	 * @param seed Generator seed. Equal arguments yield equal output.
+	 *
+	 * @throws NullPointerException if outputDirectory is null.
+	 * @throws IllegalArgumentException if a number is out of range.
+	 */
+	public PackageGenerator( Path outputDirectory, int pairs, int imagePercent, int images, int complexity, long seed ) {
+		if ( outputDirectory == null ) {
+			throw new NullPointerException();
+		}
+		if ( pairs < 1 ) {
+			throw new IllegalArgumentException( __( ERROR_GENERATORARG, "pairs=" + pairs ) );
+		}
+		if ( ( imagePercent < 0 ) || ( imagePercent > 100 ) ) {
+			throw new IllegalArgumentException( __( ERROR_GENERATORARG, "images%=" + imagePercent ) );
+		}
+		if ( images < 1 ) {
+			throw new IllegalArgumentException( __( ERROR_GENERATORARG, "images=" + images ) );
+		}
+		if ( complexity < 0 ) {
+			throw new IllegalArgumentException( __( ERROR_GENERATORARG, "complexity=" + complexity ) );
+		}
+		this.objectMapper = new ObjectMapper();
+		this.objectMapper.configure( JsonParser.Feature.ALLOW_COMMENTS, true );
+		this.outputDirectory = outputDirectory;
+		this.pairs = pairs;
+		this.imagePercent = imagePercent;
+		this.images = images;
+		this.complexity = complexity;
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns whether a pair is an image pair.
+	 *
+	 * @param pair Pair index.
+	 *
+	 * @return True is returned if the pair with the specified index is an image pair, false otherwise.
+	 */
+	private boolean isImagePair( long pair ) {
+		return ( pair + 1 ) * imagePercent / 100 != pair * imagePercent / 100;
+	}
+
+	/**
+	 * Returns the number of images actually used.
+	 *
+	 * @return The number of distinct images referenced by the package is returned.
+	 */
+	private int getUsedImages() {
+		long imagePairs = (long) pairs * imagePercent / 100;
+		return (int) Math.min( images, imagePairs );
+	}
+
+	/**
+	 * Creates a JSON generator writing a file.
+	 *
+	 * @param resourceName Resource name of the file.
+	 *
+	 * @return A new pretty printing JSON generator is returned.
+	 *
+	 * @throws IOException if the file cannot be created.
+	 */
+	private JsonGenerator createGenerator( String resourceName ) throws IOException {
+		Path path = outputDirectory.resolve( resourceName );
+		Files.createDirectories( path.getParent() );
+		JsonGenerator result = objectMapper.getFactory().createGenerator( Files.newOutputStream( path ), JsonEncoding.UTF8 );
+		result.useDefaultPrettyPrinter();
+		return result;
+	}
+
+	/**
+	 * Starts a database, copying the bundled entries.
+	 * A synthetic entry left over from an earlier run is not copied.
+	 *
+	 * @param databaseName Resource name of the database.
+	 *
+	 * @return A JSON generator positioned inside the database object is returned.
+	 *
+	 * @throws IOException if the bundled database cannot be read or the new one cannot be written.
+	 */
+	private JsonGenerator startDatabase( String databaseName ) throws IOException {
+		JsonNode bundled = objectMapper.readTree( Resources.loadResourceAsString( databaseName ) );
+		JsonGenerator result = createGenerator( databaseName );
+		result.writeStartObject();
+		Iterator<Map.Entry<String, JsonNode>> fields = bundled.fields();
+		while ( fields.hasNext() ) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if ( PACKAGE_NAME.equals( field.getKey() ) ) {
+				continue;
+			}
+			result.writeFieldName( field.getKey() );
+			result.writeTree( field.getValue() );
+		}
+		return result;
+	}
+
+	/**
+	 * Ends and closes a database.
+	 *
+	 * @param generator JSON generator returned by {@link #startDatabase(String)}.
+	 *
+	 * @throws IOException if the database cannot be written.
+	 */
+	private static void endDatabase( JsonGenerator generator ) throws IOException {
+		generator.writeEndObject();
+		generator.close();
+	}
+
+	/**
+	 * Writes the licence and copyright databases and the licence text.
+	 *
+	 * @throws IOException if a file cannot be written.
+	 */
+	private void writeLegal() throws IOException {
+		Path licenceText = outputDirectory.resolve( LICENCE_RESOURCE );
+		Files.createDirectories( licenceText.getParent() );
+		Writer writer = Files.newBufferedWriter( licenceText, StandardCharsets.UTF_8 );
+		try {
+			writer.write( "Generated test data. No rights reserved.\n" );
+		} finally {
+			writer.close();
+		}
+
+		JsonGenerator generator = startDatabase( "licences.json" );
+		generator.writeObjectFieldStart( PACKAGE_NAME );
+		generator.writeStringField( "name", "Generated test data" );
+		generator.writeStringField( "resource", LICENCE_RESOURCE );
+		generator.writeEndObject();
+		endDatabase( generator );
+
+		generator = startDatabase( "copyrights.json" );
+		generator.writeObjectFieldStart( PACKAGE_NAME );
+		generator.writeStringField( "copyright", "Generated by the pairs package generator" );
+		generator.writeStringField( "licence", PACKAGE_NAME );
+		generator.writeEndObject();
+		endDatabase( generator );
+	}
+
+	/**
+	 * Formats an SVG coordinate.
+	 *
+	 * @param value Coordinate.
+	 *
+	 * @return The coordinate with one decimal is returned.
+	 */
+	private static String format( double value ) {
+		return String.format( Locale.ROOT, "%.1f", value );
+	}
+
+	/**
+	 * Returns a random coordinate within the view box.
+	 *
+	 * @param random Randomness source.
+	 *
+	 * @return A random coordinate is returned.
+	 */
+	private static String coordinate( SplittableRandom random ) {
+		return format( random.nextDouble( VIEW_SIZE ) );
+	}
+
+	/**
+	 * Returns a random colour.
+	 *
+	 * @param random Randomness source.
+	 *
+	 * @return A random colour in #rrggbb notation is returned.
+	 */
+	private static String colour( SplittableRandom random ) {
+		return String.format( Locale.ROOT, "#%06x", random.nextInt( 0x1000000 ) );
+	}
+
+	/**
+	 * Writes a random shape.
+	 *
+	 * @param svg SVG writer.
+	 * @param random Randomness source.
+	 *
+	 * @throws XMLStreamException if the shape cannot be written.
+	 */
+	private static void writeShape( XMLStreamWriter svg, SplittableRandom random ) throws XMLStreamException {
+		switch ( random.nextInt( 4 ) ) {
+			case 0:
+				svg.writeEmptyElement( "circle" );
+				svg.writeAttribute( "cx", coordinate( random ) );
+				svg.writeAttribute( "cy", coordinate( random ) );
+				svg.writeAttribute( "r", format( 2 + random.nextDouble( VIEW_SIZE / 4 ) ) );
+				break;
+			case 1:
+				svg.writeEmptyElement( "rect" );
+				svg.writeAttribute( "x", coordinate( random ) );
+				svg.writeAttribute( "y", coordinate( random ) );
+				svg.writeAttribute( "width", format( 2 + random.nextDouble( VIEW_SIZE / 3 ) ) );
+				svg.writeAttribute( "height", format( 2 + random.nextDouble( VIEW_SIZE / 3 ) ) );
+				break;
+			case 2:
+				StringBuilder points = new StringBuilder();
+				int corners = 3 + random.nextInt( 5 );
+				for ( int i = 0; i != corners; ++i ) {
+					points.append( i == 0 ? "" : " " ).append( coordinate( random ) ).append( ',' ).append( coordinate( random ) );
+				}
+				svg.writeEmptyElement( "polygon" );
+				svg.writeAttribute( "points", points.toString() );
+				break;
+			default:
+				StringBuilder path = new StringBuilder( "M" ).append( coordinate( random ) ).append( ',' ).append( coordinate( random ) );
+				int segments = 1 + random.nextInt( 4 );
+				for ( int i = 0; i != segments; ++i ) {
+					path.append( " C" );
+					for ( int j = 0; j != 3; ++j ) {
+						path.append( j == 0 ? "" : " " ).append( coordinate( random ) ).append( ',' ).append( coordinate( random ) );
+					}
+				}
+				path.append( " Z" );
+				svg.writeEmptyElement( "path" );
+				svg.writeAttribute( "d", path.toString() );
+				break;
+		}
+		svg.writeAttribute( "fill", colour( random ) );
+		svg.writeAttribute( "fill-opacity", format( 0.3 + random.nextDouble( 0.7 ) ) );
+		svg.writeAttribute( "stroke", colour( random ) );
+		svg.writeAttribute( "stroke-width", format( random.nextDouble( 3 ) ) );
+	}
+
+	/**
+	 * Writes an image.
+	 * Shapes are grouped into rotated groups of {@link #GROUP_SIZE}, and the image number is drawn on top.
+	 *
+	 * @param image Image number.
+	 *
+	 * @throws IOException if the image cannot be written.
+	 */
+	private void writeImage( int image ) throws IOException {
+		SplittableRandom random = new SplittableRandom( Random.deriveSeed( seed, image ) );
+		OutputStream out = Files.newOutputStream( outputDirectory.resolve( IMAGE_DIRECTORY ).resolve( IMAGE_PREFIX + image + ".svg" ) );
+		try {
+			XMLStreamWriter svg = XMLOutputFactory.newInstance().createXMLStreamWriter( out, "UTF-8" );
+			svg.writeStartDocument( "UTF-8", "1.0" );
+			svg.writeStartElement( "svg" );
+			svg.writeDefaultNamespace( SVG_NAMESPACE );
+			svg.writeAttribute( "version", "1.1" );
+			svg.writeAttribute( "width", format( VIEW_SIZE ) );
+			svg.writeAttribute( "height", format( VIEW_SIZE ) );
+			svg.writeAttribute( "viewBox", "0 0 " + format( VIEW_SIZE ) + " " + format( VIEW_SIZE ) );
+			svg.writeEmptyElement( "rect" );
+			svg.writeAttribute( "width", format( VIEW_SIZE ) );
+			svg.writeAttribute( "height", format( VIEW_SIZE ) );
+			svg.writeAttribute( "fill", colour( random ) );
+			for ( int i = 0; i < complexity; i += GROUP_SIZE ) {
+				svg.writeStartElement( "g" );
+				svg.writeAttribute( "transform", "rotate(" + format( random.nextDouble( 360 ) ) + " " + format( VIEW_SIZE / 2 ) + " " + format( VIEW_SIZE / 2 ) + ")" );
+				for ( int j = i; j != Math.min( i + GROUP_SIZE, complexity ); ++j ) {
+					writeShape( svg, random );
+				}
+				svg.writeEndElement();
+			}
+			svg.writeStartElement( "text" );
+			svg.writeAttribute( "x", format( VIEW_SIZE / 2 ) );
+			svg.writeAttribute( "y", format( VIEW_SIZE * 0.6 ) );
+			svg.writeAttribute( "font-size", format( VIEW_SIZE / 4 ) );
+			svg.writeAttribute( "text-anchor", "middle" );
+			svg.writeCharacters( "#" + image );
+			svg.writeEndElement();
+			svg.writeEndElement();
+			svg.writeEndDocument();
+			svg.close();
+		} catch ( XMLStreamException e ) {
+			throw new IOException( e );
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the images and the image database.
+	 *
+	 * @throws IOException if a file cannot be written.
+	 */
+	private void writeImages() throws IOException {
+		Files.createDirectories( outputDirectory.resolve( IMAGE_DIRECTORY ) );
+		JsonGenerator generator = startDatabase( "images.json" );
+		int usedImages = getUsedImages();
+		for ( int image = 0; image != usedImages; ++image ) {
+			writeImage( image );
+			generator.writeObjectFieldStart( IMAGE_PREFIX + image );
+			generator.writeStringField( "resource", IMAGE_DIRECTORY + "/" + IMAGE_PREFIX + image + ".svg" );
+			generator.writeStringField( "type", "SVG" );
+			generator.writeStringField( "copyright", PACKAGE_NAME );
+			generator.writeEndObject();
+		}
+		endDatabase( generator );
+	}
+
+	/**
+	 * Writes a card.
+	 *
+	 * @param generator JSON generator.
+	 * @param type Card type.
+	 * @param field Name of the content field.
+	 * @param value Content.
+	 *
+	 * @throws IOException if the card cannot be written.
+	 */
+	private static void writeCard( JsonGenerator generator, String type, String field, String value ) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField( "type", type );
+		generator.writeStringField( field, value );
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the synthetic package and the package database.
+	 *
+	 * @throws IOException if a file cannot be written.
+	 */
+	private void writePackage() throws IOException {
+		JsonGenerator generator = createGenerator( PACKAGE_RESOURCE );
+		generator.writeStartObject();
+		generator.writeStringField( "descriptionKey", "package-" + PACKAGE_NAME + "-description" );
+		generator.writeArrayFieldStart( "pairs" );
+		int usedImages = getUsedImages();
+		int image = 0;
+		for ( int pair = 0; pair != pairs; ++pair ) {
+			generator.writeStartArray();
+			if ( isImagePair( pair ) ) {
+				writeCard( generator, "IMAGE", "image", IMAGE_PREFIX + image );
+				writeCard( generator, "TEXT", "value", "#" + image );
+				image = image + 1 == usedImages ? 0 : image + 1;
+			} else {
+				writeCard( generator, "TEXT", "value", Integer.toString( pair ) );
+				writeCard( generator, "TEXT", "value", "0x" + Integer.toHexString( pair ) );
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.close();
+
+		generator = startDatabase( "packages.json" );
+		generator.writeObjectFieldStart( PACKAGE_NAME );
+		generator.writeStringField( "key", "package-" + PACKAGE_NAME );
+		generator.writeStringField( "resource", PACKAGE_RESOURCE );
+		generator.writeEndObject();
+		endDatabase( generator );
+	}
+
+	/**
+	 * Writes all files.
+	 *
+	 * @throws IOException if a file cannot be written.
+	 */
+	public void generate() throws IOException {
+		writeLegal();
+		writeImages();
+		writePackage();
+	}
+
+	/**
+	 * Generates a synthetic package.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>out: Output resource directory (required).</li>
+	 * 	<li>pairs: Number of card pairs (default 10000).</li>
+	 * 	<li>images%: Percentage of image pairs (default 50).</li>
+	 * 	<li>images: Number of distinct images (default 1000).</li>
+	 * 	<li>complexity: Number of shapes per image (default 32).</li>
+	 * 	<li>seed: Generator seed (default 0).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 *
+	 * @throws IOException if a file cannot be written.
+	 */
+	public static void main( String... args ) throws IOException {
+		CommandLine commandLine = new CommandLine( args, ERROR_GENERATORARG, "out", "pairs", "images%", "images", "complexity", "seed" );
+		new PackageGenerator( commandLine.getPath( "out" ), commandLine.getInt( "pairs", 10000 ), commandLine.getInt( "images%", 50 ),
+				commandLine.getInt( "images", 1000 ), commandLine.getInt( "complexity", 32 ), commandLine.getLong( "seed", 0 ) ).generate();
+	}
+}
@@ -0,0 +1,800 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+
+import java.awt.image.BufferedImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+
+import javax.xml.transform.dom.DOMSource;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+
+import org.apache.batik.dom.svg.SAXSVGDocumentFactory;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+
+import org.apache.batik.gvt.GraphicsNode;
+
+import org.apache.batik.util.XMLResourceDescriptor;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Build-time optimizer for SVG artwork.
+ *
+ * The optimizer writes a smaller copy of every SVG file of a directory: editor metadata, editor namespaces
+ * and comments are stripped, coordinates are rounded, unused definitions are removed and redundant groups are collapsed.
+ * Each optimized copy is rendered with Batik at card sizes and compared to the original pixel by pixel.
+ * If the renderings differ, the original is written instead.
+ */
+public class SvgOptimizer {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( SvgOptimizer.class );
+
+	/**
+	 * Default number of decimals of coordinates.
+	 */
+	public static final int DEFAULT_PRECISION = 3;
+
+	/**
+	 * Additional decimals of transform values, whose errors are magnified by the coordinates they transform.
+	 */
+	private static final int TRANSFORM_EXTRA_PRECISION = 3;
+
+	/**
+	 * Card sizes in pixels at which the renderings are compared.
+	 */
+	private static final int[] CARD_SIZES = { 64, 128, 256 };
+
+	/**
+	 * Largest colour channel difference of two pixels considered equal.
+	 */
+	private static final int CHANNEL_TOLERANCE = 16;
+
+	/**
+	 * Largest fraction of pixels which may differ at each card size.
+	 */
+	private static final double DIFFERING_PIXELS = 0.001;
+
+	/**
+	 * SVG namespace.
+	 */
+	private static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+
+	/**
+	 * Namespaces of editor metadata. Elements and attributes in these namespaces are stripped.
+	 */
+	private static final List<String> EDITOR_NAMESPACES = Arrays.asList(
+			"http://www.inkscape.org/namespaces/inkscape",
+			"http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd",
+			"http://inkscape.sourceforge.net/DTD/sodipodi-0.dtd",
+			"http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+			"http://creativecommons.org/ns#",
+			"http://web.resource.org/cc/",
+			"http://purl.org/dc/elements/1.1/",
+			"http://ns.adobe.com/",
+			"http://www.bohemiancoding.com/sketch/ns" );
+
+	/**
+	 * Attributes holding coordinates.
+	 */
+	private static final Set<String> COORDINATE_ATTRIBUTES = new HashSet<String>( Arrays.asList(
+			"d", "points", "x", "y", "x1", "y1", "x2", "y2", "cx", "cy", "r", "rx", "ry", "fx", "fy",
+			"width", "height", "stroke-width", "offset" ) );
+
+	/**
+	 * Attributes holding transforms.
+	 */
+	private static final Set<String> TRANSFORM_ATTRIBUTES = new HashSet<String>( Arrays.asList(
+			"transform", "gradientTransform", "patternTransform" ) );
+
+	/**
+	 * Elements whose whitespace content is significant.
+	 */
+	private static final Set<String> TEXT_ELEMENTS = new HashSet<String>( Arrays.asList(
+			"text", "tspan", "textPath", "style", "script", "title", "desc" ) );
+
+	/**
+	 * Elements in definitions which are kept even if unreferenced.
+	 */
+	private static final Set<String> KEPT_DEFINITIONS = new HashSet<String>( Arrays.asList( "style", "script" ) );
+
+	/**
+	 * Number pattern.
+	 */
+	private static final Pattern NUMBER = Pattern.compile( "[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?" );
+
+	/**
+	 * Local reference pattern, as in url(#id) or href="#id".
+	 */
+	private static final Pattern REFERENCE = Pattern.compile( "(?:url\\(\\s*['\"]?#|^#)([^)'\"\\s]+)" );
+
+	/**
+	 * Outcome of optimizing a file.
+	 */
+	public static class Result {
+		/**
+		 * Source file.
+		 */
+		private final Path source;
+
+		/**
+		 * Size of the source file in bytes.
+		 */
+		private final long originalSize;
+
+		/**
+		 * Size of the written file in bytes.
+		 */
+		private final long optimizedSize;
+
+		/**
+		 * Whether the optimized copy rendered like the original.
+		 */
+		private final boolean optimized;
+
+		/**
+		 * Creates a new result.
+		 *
+		 * @param source Source file.
+		 * @param originalSize Size of the source file in bytes.
+		 * @param optimizedSize Size of the written file in bytes.
+		 * @param optimized Whether the optimized copy rendered like the original.
+		 */
+		Result( Path source, long originalSize, long optimizedSize, boolean optimized ) {
+			this.source = source;
+			this.originalSize = originalSize;
+			this.optimizedSize = optimizedSize;
+			this.optimized = optimized;
+		}
+
+		/**
+		 * Returns the source file.
+		 *
+		 * @return The source file is returned.
+		 */
+		public Path getSource() {
+			return source;
+		}
+
+		/**
+		 * Returns the size of the source file.
+		 *
+		 * @return The size of the source file in bytes is returned.
+		 */
+		public long getOriginalSize() {
+			return originalSize;
+		}
+
+		/**
+		 * Returns the size of the written file.
+		 *
+		 * @return The size of the written file in bytes is returned.
+		 */
+		public long getOptimizedSize() {
+			return optimizedSize;
+		}
+
+		/**
+		 * Returns whether the optimized copy was written.
+		 *
+		 * @return True is returned if the optimized copy rendered like the original and was written,
+		 * 	false if the original was written instead.
+		 */
+		public boolean isOptimized() {
+			return optimized;
+		}
+	}
+
+	/**
+	 * Number of decimals of coordinates.
+	 */
+	private final int precision;
+
+	/**
+	 * Creates a new SVG optimizer.
+	 *
+	 * @param precision Number of decimals of coordinates.
+	 *
+	 * @throws IllegalArgumentException if precision is negative.
+	 */
+	public SvgOptimizer( int precision ) {
+		if ( precision < 0 ) {
+			throw new IllegalArgumentException( __( ERROR_SVGOPTIMIZERARG, "precision=" + precision ) );
+		}
+		this.precision = precision;
+	}
+
+	/**
+	 * Parses an SVG document.
+	 * The external DTD is not loaded, but entities declared in the document are expanded.
+	 *
+	 * @param data SVG data.
+	 *
+	 * @return The DOM document is returned.
+	 *
+	 * @throws IOException if the data cannot be parsed.
+	 */
+	private static Document parse( byte[] data ) throws IOException {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware( true );
+			factory.setFeature( "http://apache.org/xml/features/nonvalidating/load-external-dtd", false );
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			return builder.parse( new ByteArrayInputStream( data ) );
+		} catch ( ParserConfigurationException e ) {
+			throw new IOException( e );
+		} catch ( SAXException e ) {
+			throw new IOException( e );
+		}
+	}
+
+	/**
+	 * Serializes an SVG document.
+	 *
+	 * @param document DOM document.
+	 *
+	 * @return The serialized document is returned, without document type declaration.
+	 *
+	 * @throws IOException if the document cannot be serialized.
+	 */
+	private static byte[] serialize( Document document ) throws IOException {
+		try {
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty( OutputKeys.ENCODING, "UTF-8" );
+			transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			transformer.transform( new DOMSource( document ), new StreamResult( result ) );
+			return result.toByteArray();
+		} catch ( TransformerException e ) {
+			throw new IOException( e );
+		}
+	}
+
+	/**
+	 * Returns whether a namespace belongs to editor metadata.
+	 *
+	 * @param namespace Namespace URI, may be null.
+	 *
+	 * @return True is returned if the namespace is an editor namespace, false otherwise.
+	 */
+	private static boolean isEditorNamespace( String namespace ) {
+		if ( namespace == null ) {
+			return false;
+		}
+		for ( String editorNamespace: EDITOR_NAMESPACES ) {
+			if ( namespace.startsWith( editorNamespace ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether a node is an SVG element with the specified local name.
+	 *
+	 * @param node Node.
+	 * @param localName Local name.
+	 *
+	 * @return True is returned if the node is an SVG element named localName, false otherwise.
+	 */
+	private static boolean isSvgElement( Node node, String localName ) {
+		return ( node.getNodeType() == Node.ELEMENT_NODE ) && SVG_NAMESPACE.equals( node.getNamespaceURI() )
+				&& localName.equals( node.getLocalName() );
+	}
+
+	/**
+	 * Strips editor metadata, comments and insignificant whitespace.
+	 *
+	 * @param node Node to strip recursively.
+	 */
+	private static void stripMetadata( Node node ) {
+		Node child = node.getFirstChild();
+		while ( child != null ) {
+			Node next = child.getNextSibling();
+			switch ( child.getNodeType() ) {
+				case Node.COMMENT_NODE:
+					node.removeChild( child );
+					break;
+				case Node.TEXT_NODE:
+					if ( child.getNodeValue().trim().isEmpty() && !TEXT_ELEMENTS.contains( node.getLocalName() ) ) {
+						node.removeChild( child );
+					}
+					break;
+				case Node.ELEMENT_NODE:
+					if ( isEditorNamespace( child.getNamespaceURI() ) || isSvgElement( child, "metadata" ) ) {
+						node.removeChild( child );
+						break;
+					}
+					NamedNodeMap attributes = child.getAttributes();
+					for ( int i = attributes.getLength() - 1; i >= 0; --i ) {
+						Attr attribute = (Attr) attributes.item( i );
+						boolean editorDeclaration = XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals( attribute.getNamespaceURI() )
+								&& isEditorNamespace( attribute.getValue() );
+						if ( editorDeclaration || isEditorNamespace( attribute.getNamespaceURI() ) ) {
+							( (Element) child ).removeAttributeNode( attribute );
+						}
+					}
+					stripMetadata( child );
+					break;
+			}
+			child = next;
+		}
+	}
+
+	/**
+	 * Rounds the numbers of an attribute value.
+	 * A space is inserted where rounding would merge a number with the preceding one, as in "1.04.5".
+	 *
+	 * @param value Attribute value.
+	 * @param decimals Number of decimals.
+	 *
+	 * @return The value with all non-integer numbers rounded is returned.
+	 */
+	static String roundNumbers( String value, int decimals ) {
+		Matcher matcher = NUMBER.matcher( value );
+		StringBuilder result = new StringBuilder( value.length() );
+		int last = 0;
+		while ( matcher.find() ) {
+			result.append( value, last, matcher.start() );
+			String number = matcher.group();
+			if ( ( number.indexOf( '.' ) >= 0 ) || ( number.indexOf( 'e' ) >= 0 ) || ( number.indexOf( 'E' ) >= 0 ) ) {
+				String rounded = new BigDecimal( number ).setScale( decimals, RoundingMode.HALF_UP ).stripTrailingZeros().toPlainString();
+				if ( "-0".equals( rounded ) ) {
+					rounded = "0";
+				}
+				char previous = result.length() == 0 ? ' ' : result.charAt( result.length() - 1 );
+				if ( ( last == matcher.start() ) && ( Character.isDigit( previous ) || ( previous == '.' ) ) && ( Character.isDigit( rounded.charAt( 0 ) ) ) ) {
+					result.append( ' ' );
+				}
+				result.append( rounded );
+			} else {
+				result.append( number );
+			}
+			last = matcher.end();
+		}
+		result.append( value, last, value.length() );
+		return result.toString();
+	}
+
+	/**
+	 * Rounds coordinates and transform values.
+	 *
+	 * @param element Element to process recursively.
+	 */
+	private void roundCoordinates( Element element ) {
+		boolean root = element.getParentNode().getNodeType() == Node.DOCUMENT_NODE;
+		NamedNodeMap attributes = element.getAttributes();
+		for ( int i = 0; i != attributes.getLength(); ++i ) {
+			Attr attribute = (Attr) attributes.item( i );
+			if ( attribute.getNamespaceURI() != null ) {
+				continue;
+			}
+			String name = attribute.getName();
+			if ( TRANSFORM_ATTRIBUTES.contains( name ) ) {
+				attribute.setValue( roundNumbers( attribute.getValue(), precision + TRANSFORM_EXTRA_PRECISION ) );
+			} else if ( COORDINATE_ATTRIBUTES.contains( name ) && !root ) {
+				attribute.setValue( roundNumbers( attribute.getValue(), precision ) );
+			}
+		}
+		for ( Node child = element.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			if ( child.getNodeType() == Node.ELEMENT_NODE ) {
+				roundCoordinates( (Element) child );
+			}
+		}
+	}
+
+	/**
+	 * Collects the local references of a node.
+	 *
+	 * @param node Node to search recursively.
+	 * @param references Set the referenced IDs are added to.
+	 */
+	private static void collectReferences( Node node, Set<String> references ) {
+		if ( node.getNodeType() == Node.ELEMENT_NODE ) {
+			NamedNodeMap attributes = node.getAttributes();
+			for ( int i = 0; i != attributes.getLength(); ++i ) {
+				collectReferences( attributes.item( i ).getNodeValue(), references );
+			}
+		} else if ( node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE ) {
+			collectReferences( node.getNodeValue(), references );
+		}
+		for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			collectReferences( child, references );
+		}
+	}
+
+	/**
+	 * Collects the local references of a string.
+	 *
+	 * @param value Attribute value or text.
+	 * @param references Set the referenced IDs are added to.
+	 */
+	private static void collectReferences( String value, Set<String> references ) {
+		Matcher matcher = REFERENCE.matcher( value.trim() );
+		while ( matcher.find() ) {
+			references.add( matcher.group( 1 ) );
+		}
+	}
+
+	/**
+	 * Removes unreferenced definitions until all remaining definitions are referenced.
+	 * Empty definition sections are removed as well.
+	 *
+	 * @param document DOM document.
+	 */
+	private static void removeUnusedDefinitions( Document document ) {
+		boolean changed;
+		do {
+			changed = false;
+			Set<String> references = new HashSet<String>();
+			collectReferences( document.getDocumentElement(), references );
+			List<Element> sections = new ArrayList<Element>();
+			collectElements( document.getDocumentElement(), "defs", sections );
+			for ( Element defs: sections ) {
+				Node child = defs.getFirstChild();
+				while ( child != null ) {
+					Node next = child.getNextSibling();
+					if ( ( child.getNodeType() == Node.ELEMENT_NODE ) && !KEPT_DEFINITIONS.contains( child.getLocalName() )
+							&& !references.contains( ( (Element) child ).getAttribute( "id" ) ) ) {
+						defs.removeChild( child );
+						changed = true;
+					}
+					child = next;
+				}
+				if ( !defs.hasChildNodes() ) {
+					defs.getParentNode().removeChild( defs );
+				}
+			}
+		} while ( changed );
+	}
+
+	/**
+	 * Collects SVG elements by local name.
+	 *
+	 * @param element Element to search recursively.
+	 * @param localName Local name.
+	 * @param elements List the matching elements are added to, in document order.
+	 */
+	private static void collectElements( Element element, String localName, List<Element> elements ) {
+		if ( isSvgElement( element, localName ) ) {
+			elements.add( element );
+		}
+		for ( Node child = element.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			if ( child.getNodeType() == Node.ELEMENT_NODE ) {
+				collectElements( (Element) child, localName, elements );
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a group can be collapsed.
+	 * A group can be collapsed if it has no attributes other than a transform and an unreferenced ID,
+	 * and if it has no transform or a single element child.
+	 *
+	 * @param group Group element.
+	 * @param references Referenced IDs, or null if IDs may be referenced by style sheets.
+	 *
+	 * @return True is returned if the group can be collapsed, false otherwise.
+	 */
+	private static boolean isCollapsible( Element group, Set<String> references ) {
+		NamedNodeMap attributes = group.getAttributes();
+		for ( int i = 0; i != attributes.getLength(); ++i ) {
+			Attr attribute = (Attr) attributes.item( i );
+			String name = attribute.getName();
+			if ( "id".equals( name ) ) {
+				if ( ( references == null ) || references.contains( attribute.getValue() ) ) {
+					return false;
+				}
+			} else if ( !"transform".equals( name ) ) {
+				return false;
+			}
+		}
+		if ( !group.hasAttribute( "transform" ) ) {
+			return true;
+		}
+		Node child = group.getFirstChild();
+		return ( child != null ) && ( child.getNodeType() == Node.ELEMENT_NODE ) && ( child.getNextSibling() == null )
+				&& SVG_NAMESPACE.equals( child.getNamespaceURI() );
+	}
+
+	/**
+	 * Collapses redundant groups, moving their children up.
+	 * The transform of a group with a single child is prepended to the transform of the child.
+	 * Groups in definitions are left alone.
+	 *
+	 * @param document DOM document.
+	 */
+	private static void collapseGroups( Document document ) {
+		Set<String> references = new HashSet<String>();
+		collectReferences( document.getDocumentElement(), references );
+		List<Element> styles = new ArrayList<Element>();
+		collectElements( document.getDocumentElement(), "style", styles );
+		if ( !styles.isEmpty() ) {
+			references = null;
+		}
+		List<Element> groups = new ArrayList<Element>();
+		collectElements( document.getDocumentElement(), "g", groups );
+		for ( int i = groups.size() - 1; i >= 0; --i ) { // innermost groups first
+			Element group = groups.get( i );
+			if ( isInDefinitions( group ) || !isCollapsible( group, references ) ) {
+				continue;
+			}
+			if ( group.hasAttribute( "transform" ) ) {
+				Element child = (Element) group.getFirstChild();
+				String transform = group.getAttribute( "transform" );
+				if ( child.hasAttribute( "transform" ) ) {
+					transform += " " + child.getAttribute( "transform" );
+				}
+				child.setAttribute( "transform", transform );
+			}
+			Node parent = group.getParentNode();
+			while ( group.getFirstChild() != null ) {
+				parent.insertBefore( group.getFirstChild(), group );
+			}
+			parent.removeChild( group );
+		}
+	}
+
+	/**
+	 * Returns whether an element lies within definitions.
+	 *
+	 * @param element Element.
+	 *
+	 * @return True is returned if an ancestor of the element is a definitions section, false otherwise.
+	 */
+	private static boolean isInDefinitions( Element element ) {
+		for ( Node node = element.getParentNode(); node != null; node = node.getParentNode() ) {
+			if ( isSvgElement( node, "defs" ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Optimizes SVG data.
+	 *
+	 * @param data SVG data.
+	 *
+	 * @return The optimized SVG data is returned.
+	 *
+	 * @throws IOException if the data cannot be parsed.
+	 */
+	public byte[] optimize( byte[] data ) throws IOException {
+		Document document = parse( data );
+		stripMetadata( document );
+		roundCoordinates( document.getDocumentElement() );
+		removeUnusedDefinitions( document );
+		collapseGroups( document );
+		return serialize( document );
+	}
+
+	/**
+	 * Renders SVG data with Batik, the way the game renders card images.
+	 *
+	 * @param data SVG data.
+	 * @param uri Document URI for resolving relative references.
+	 * @param size Image width and height in pixels.
+	 *
+	 * @return The rendered image is returned.
+	 *
+	 * @throws IOException if the data cannot be parsed.
+	 */
+	private static BufferedImage render( byte[] data, String uri, int size ) throws IOException {
+		SAXSVGDocumentFactory documentFactory = new SAXSVGDocumentFactory( XMLResourceDescriptor.getXMLParserClassName() );
+		Document document = documentFactory.createDocument( uri, new ByteArrayInputStream( data ) );
+		BridgeContext bridgeContext = new BridgeContext( new UserAgentAdapter() );
+		try {
+			GraphicsNode rootGraphicsNode = new GVTBuilder().build( bridgeContext, document );
+			BufferedImage result = new BufferedImage( size, size, BufferedImage.TYPE_INT_ARGB );
+			Graphics2D graphics = GraphicsUtil.createGraphics( result );
+			graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+			Rectangle bounds = rootGraphicsNode.getSensitiveBounds().getBounds();
+			float scale = Math.min( (float) size / bounds.width, (float) size / bounds.height );
+			graphics.scale( scale, scale );
+			rootGraphicsNode.paint( graphics );
+			graphics.dispose();
+			return result;
+		} finally {
+			bridgeContext.dispose();
+		}
+	}
+
+	/**
+	 * Compares two renderings.
+	 *
+	 * @param a First image.
+	 * @param b Second image of the same size.
+	 *
+	 * @return True is returned if at most {@link #DIFFERING_PIXELS} of the pixels differ by more than
+	 * 	{@link #CHANNEL_TOLERANCE} in a colour channel, false otherwise.
+	 */
+	static boolean isSameRendering( BufferedImage a, BufferedImage b ) {
+		int width = a.getWidth();
+		int height = a.getHeight();
+		int[] pixelsA = a.getRGB( 0, 0, width, height, null, 0, width );
+		int[] pixelsB = b.getRGB( 0, 0, width, height, null, 0, width );
+		long allowed = (long) ( DIFFERING_PIXELS * pixelsA.length );
+		long differing = 0;
+		for ( int i = 0; i != pixelsA.length; ++i ) {
+			for ( int shift = 0; shift != 32; shift += 8 ) {
+				if ( Math.abs( ( ( pixelsA[ i ] >>> shift ) & 0xff ) - ( ( pixelsB[ i ] >>> shift ) & 0xff ) ) > CHANNEL_TOLERANCE ) {
+					if ( ++differing > allowed ) {
+						return false;
+					}
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Optimizes an SVG file.
+	 * If the optimized copy does not render like the original at all card sizes, the original is written.
+	 *
+	 * @param source Source file.
+	 * @param target Target file. It is overwritten if it exists.
+	 *
+	 * @return The result is returned.
+	 *
+	 * @throws IOException if the source cannot be read or parsed, or the target cannot be written.
+	 */
+	public Result optimizeFile( Path source, Path target ) throws IOException {
+		byte[] original = Files.readAllBytes( source );
+		byte[] optimized = optimize( original );
+		String uri = source.toUri().toString();
+		boolean same = true;
+		for ( int size: CARD_SIZES ) {
+			if ( !isSameRendering( render( original, uri, size ), render( optimized, uri, size ) ) ) {
+				logger.warn( __( WARN_SVGDIFF, source, size ) );
+				same = false;
+				break;
+			}
+		}
+		byte[] written = same && ( optimized.length < original.length ) ? optimized : original;
+		Files.write( target, written );
+		return new Result( source, original.length, written.length, written == optimized );
+	}
+
+	/**
+	 * Optimizes all SVG files of a directory in parallel.
+	 *
+	 * @param sourceDirectory Source directory.
+	 * @param targetDirectory Target directory. It is created if necessary.
+	 * @param threads Number of threads.
+	 *
+	 * @return The results are returned, in no particular order.
+	 *
+	 * @throws IOException if a file cannot be read, parsed or written.
+	 * @throws InterruptedException if interrupted while optimizing.
+	 */
+	public List<Result> optimizeDirectory( Path sourceDirectory, final Path targetDirectory, int threads ) throws IOException, InterruptedException {
+		Files.createDirectories( targetDirectory );
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+		DirectoryStream<Path> files = Files.newDirectoryStream( sourceDirectory, "*.svg" );
+		try {
+			for ( final Path source: files ) {
+				tasks.add( new Callable<Result>() {
+					public Result call() throws IOException {
+						return optimizeFile( source, targetDirectory.resolve( source.getFileName().toString() ) );
+					}
+				} );
+			}
+		} finally {
+			files.close();
+		}
+
+		return CommandLine.invokeAll( tasks, threads );
+	}
+
+	/**
+	 * Optimizes the SVG files of a directory and prints a report.
+	 * Arguments are of the form key=value, with the following keys:
+	 * <ul>
+	 * 	<li>in: Source directory (required).</li>
+	 * 	<li>out: Target directory (required). May equal the source directory.</li>
+	 * 	<li>precision: Number of decimals of coordinates (default {@value #DEFAULT_PRECISION}).</li>
+	 * 	<li>threads: Number of threads (default: number of processors).</li>
+	 * </ul>
+	 *
+	 * @param args Program arguments.
+	 *
+	 * @throws IOException if a file cannot be read, parsed or written.
+	 * @throws InterruptedException if interrupted while optimizing.
+	 */
+	public static void main( String... args ) throws IOException, InterruptedException {
+		CommandLine.setHeadless();
+		CommandLine commandLine = new CommandLine( args, ERROR_SVGOPTIMIZERARG, "in", "out", "precision", "threads" );
+		Path in = commandLine.getPath( "in" );
+		Path out = commandLine.getPath( "out" );
+		int precision = commandLine.getInt( "precision", DEFAULT_PRECISION );
+		int threads = commandLine.getInt( "threads", Runtime.getRuntime().availableProcessors() );
+
+		long originalSize = 0;
+		long optimizedSize = 0;
+		int kept = 0;
+		List<Result> results = new SvgOptimizer( precision ).optimizeDirectory( in, out, threads );
+		for ( Result result: results ) {
+			originalSize += result.getOriginalSize();
+			optimizedSize += result.getOptimizedSize();
+			if ( !result.isOptimized() ) {
+				++kept;
+			}
+		}
+		System.out.println( String.format( Locale.ROOT, "%d SVG files, %d bytes optimized to %d bytes (%.1f%%), %d originals kept",
+				results.size(), originalSize, optimizedSize, originalSize == 0 ? 0.0 : 100.0 * optimizedSize / originalSize, kept ) );
+	}
+}
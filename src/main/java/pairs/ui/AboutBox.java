@@ -32,6 +32,7 @@ import pairs.util.Copyright;
 import pairs.util.Licence;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * About box.
@@ -117,7 +118,7 @@ class AboutBox extends JDialog {
 			c.gridwidth = 2;
 			c.fill = GridBagConstraints.HORIZONTAL;
 			c.insets = defaultInsets();
-			add( makeTextArea( __( "about-heading" ) ), c );
+			add( makeTextArea( __( ABOUT_HEADING ) ), c );
 
 			/* GPL button */
 			final Licence gpl = Licence.get( "GPL3" );
@@ -140,7 +141,7 @@ class AboutBox extends JDialog {
 			c.gridwidth = 2;
 			c.anchor = GridBagConstraints.CENTER;
 			c.insets = new Insets( 10, 5, 5, 5 );
-			add( new JLabel( __( "about-components" ) ), c );
+			add( new JLabel( __( ABOUT_COMPONENTS ) ), c );
 
 			/* Components copyrights */
 			Vector<Copyright> copyrights = Copyright.getAll();
@@ -157,7 +158,7 @@ class AboutBox extends JDialog {
 			if ( orientation == VERTICAL ) {
 				return getComponent( 0 ).getPreferredSize().height;
 			} else {
-				logger.warn( __( "warn-hscroll" ) );
+				logger.warn( __( WARN_HSCROLL ) );
 				return 100;
 			}
 		}
@@ -174,7 +175,7 @@ class AboutBox extends JDialog {
 			if ( orientation == VERTICAL ) {
 				return getComponent( 0 ).getGraphics().getFontMetrics().getHeight();
 			} else {
-				logger.warn( __( "warn-hscroll" ) );
+				logger.warn( __( WARN_HSCROLL ) );
 				return 20;
 			}
 		}
@@ -186,7 +187,7 @@ class AboutBox extends JDialog {
 	 * @param owner Owner of the about box.
 	 */
 	AboutBox( Frame owner ) {
-		super( owner, __( "label-about" ) );
+		super( owner, __( LABEL_ABOUT ) );
 
 		/* Dispose on close */
 		setDefaultCloseOperation( DISPOSE_ON_CLOSE );
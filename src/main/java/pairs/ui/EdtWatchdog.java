@@ -0,0 +1,310 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.ui;
+
+import java.util.Map;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.*;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import pairs.metrics.Counter;
+import pairs.metrics.Histogram;
+import pairs.metrics.Metrics;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Watchdog detecting stalls of the event dispatch thread.
+ *
+ * A background thread regularly posts a trivial probe to the event queue and measures how long it waits.
+ * All waits are recorded in the <code>edt.latency</code> histogram. If a probe waits longer than the stall threshold,
+ * the stack of the event dispatch thread is captured while it is still blocked, and logged together with the
+ * total duration of the stall once the probe finally runs. Stalls are counted in <code>edt.stalls</code> and their
+ * durations recorded in <code>edt.stall</code>. If the event dispatch thread does not recover within
+ * {@link #HANG_THRESHOLD} ms, a fresh stack is logged right away.
+ */
+public class EdtWatchdog {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( EdtWatchdog.class );
+
+	/**
+	 * Default stall threshold (ms).
+	 */
+	public static final long DEFAULT_THRESHOLD = 200;
+
+	/**
+	 * Probe interval (ms). This is also the resolution of the stall detection.
+	 */
+	public static final long PROBE_INTERVAL = 50;
+
+	/**
+	 * Stall duration after which the stack is logged without waiting for the end of the stall (ms).
+	 */
+	public static final long HANG_THRESHOLD = 5000;
+
+	/**
+	 * Name prefix of event dispatch threads.
+	 */
+	private static final String EDT_NAME_PREFIX = "AWT-EventQueue";
+
+	/**
+	 * Probe latencies (ns).
+	 */
+	private static final Histogram latency = Metrics.histogram( "edt.latency" );
+
+	/**
+	 * Stall durations (ns).
+	 */
+	private static final Histogram stallTime = Metrics.histogram( "edt.stall" );
+
+	/**
+	 * Number of stalls.
+	 */
+	private static final Counter stalls = Metrics.counter( "edt.stalls" );
+
+	/**
+	 * Stall threshold (ns).
+	 */
+	private final long threshold;
+
+	/**
+	 * Executor running the watchdog.
+	 */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Watchdog task, or null if not started.
+	 */
+	private ScheduledFuture<?> watchdogFuture;
+
+	/**
+	 * Event dispatch thread, as last seen by a probe.
+	 */
+	private volatile Thread edt;
+
+	/**
+	 * Time the pending probe was posted, as per {@link System#nanoTime()}.
+	 * Only accessed by the watchdog thread.
+	 */
+	private long probePosted;
+
+	/**
+	 * Whether a probe is pending.
+	 * Only accessed by the watchdog thread.
+	 */
+	private boolean probePending;
+
+	/**
+	 * Time the pending probe ran, as per {@link System#nanoTime()}, or 0 if it has not run yet.
+	 */
+	private volatile long probeRun;
+
+	/**
+	 * Stack of the event dispatch thread captured during the current stall, or null.
+	 * Only accessed by the watchdog thread.
+	 */
+	private Throwable stallStack;
+
+	/**
+	 * Time into the current stall when the stack was captured (ns).
+	 * Only accessed by the watchdog thread.
+	 */
+	private long stallStackTime;
+
+	/**
+	 * Whether the current stall has already been logged as a hang.
+	 * Only accessed by the watchdog thread.
+	 */
+	private boolean hangLogged;
+
+	/**
+	 * Probe posted to the event queue.
+	 */
+	private final Runnable probe = new Runnable() {
+		public void run() {
+			edt = Thread.currentThread();
+			probeRun = System.nanoTime();
+		}
+	};
+
+	/**
+	 * Watchdog task.
+	 */
+	private final Runnable watchdogTask = new Runnable() {
+		public void run() {
+			check();
+		}
+	};
+
+	/**
+	 * Creates a new watchdog.
+	 *
+	 * @param threshold Stall threshold (ms).
+	 *
+	 * @throws IllegalArgumentException if threshold is not positive.
+	 */
+	public EdtWatchdog( long threshold ) {
+		if ( threshold <= 0 ) {
+			throw new IllegalArgumentException( __( ERROR_STALLTHRESHOLD, threshold ) );
+		}
+		this.threshold = TimeUnit.MILLISECONDS.toNanos( threshold );
+		this.executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+			public Thread newThread( Runnable runnable ) {
+				Thread thread = new Thread( runnable, "pairs-edt-watchdog" );
+				thread.setDaemon( true );
+				return thread;
+			}
+		} );
+	}
+
+	/**
+	 * Starts watching the event dispatch thread.
+	 * If this watchdog is already running, no operation is performed.
+	 */
+	public synchronized void start() {
+		if ( watchdogFuture != null ) {
+			return;
+		}
+		watchdogFuture = executor.scheduleWithFixedDelay( watchdogTask, 0, PROBE_INTERVAL, TimeUnit.MILLISECONDS );
+	}
+
+	/**
+	 * Stops watching the event dispatch thread.
+	 * The watchdog may be started again later.
+	 */
+	public synchronized void stop() {
+		if ( watchdogFuture == null ) {
+			return;
+		}
+		watchdogFuture.cancel( false );
+		watchdogFuture = null;
+	}
+
+	/**
+	 * Returns the probe latency histogram.
+	 *
+	 * @return The histogram of the times probes waited for the event dispatch thread in nanoseconds is returned.
+	 */
+	public static Histogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns the stall duration histogram.
+	 *
+	 * @return The histogram of stall durations in nanoseconds is returned.
+	 */
+	public static Histogram getStallTime() {
+		return stallTime;
+	}
+
+	/**
+	 * Checks the pending probe, or posts a new one.
+	 */
+	private void check() {
+		long now = System.nanoTime();
+		if ( probePending ) {
+			long run = probeRun;
+			if ( run == 0 ) {
+				long waited = now - probePosted;
+				if ( ( waited >= threshold ) && ( stallStack == null ) ) {
+					stallStack = captureStack();
+					stallStackTime = waited;
+				}
+				if ( ( waited >= TimeUnit.MILLISECONDS.toNanos( HANG_THRESHOLD ) ) && !hangLogged ) {
+					logger.warn( __( WARN_EDTSTALL, toMillis( waited ), toMillis( waited ) ), captureStack() );
+					hangLogged = true;
+				}
+				return;
+			}
+			long waited = run - probePosted;
+			latency.record( waited );
+			if ( stallStack != null ) {
+				stalls.increment();
+				stallTime.record( waited );
+				logger.warn( __( WARN_EDTSTALL, toMillis( waited ), toMillis( stallStackTime ) ), stallStack );
+				stallStack = null;
+			}
+			hangLogged = false;
+			probePending = false;
+		}
+		probeRun = 0;
+		probePosted = System.nanoTime();
+		probePending = true;
+		SwingUtilities.invokeLater( probe );
+	}
+
+	/**
+	 * Converts nanoseconds to milliseconds.
+	 *
+	 * @param nanos Duration (ns).
+	 *
+	 * @return The duration in whole milliseconds is returned.
+	 */
+	private static long toMillis( long nanos ) {
+		return TimeUnit.NANOSECONDS.toMillis( nanos );
+	}
+
+	/**
+	 * Captures the current stack of the event dispatch thread.
+	 *
+	 * @return A throwable carrying the stack of the event dispatch thread is returned.
+	 * 	If the event dispatch thread is not known, the stacks of all threads named like event dispatch threads are added as suppressed throwables.
+	 */
+	private Throwable captureStack() {
+		Thread thread = edt;
+		if ( thread != null ) {
+			return captureStack( thread, thread.getStackTrace() );
+		}
+		/* No probe has run yet, e. g. while the main window is created */
+		Throwable result = new Throwable( EDT_NAME_PREFIX );
+		result.setStackTrace( new StackTraceElement[ 0 ] );
+		for ( Map.Entry<Thread, StackTraceElement[]> entry: Thread.getAllStackTraces().entrySet() ) {
+			if ( entry.getKey().getName().startsWith( EDT_NAME_PREFIX ) ) {
+				result.addSuppressed( captureStack( entry.getKey(), entry.getValue() ) );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Wraps a thread stack in a throwable for logging.
+	 *
+	 * @param thread Thread.
+	 * @param stack Stack of thread.
+	 *
+	 * @return A throwable named after the thread and carrying the specified stack is returned.
+	 */
+	private static Throwable captureStack( Thread thread, StackTraceElement[] stack ) {
+		Throwable result = new Throwable( thread.getName() + " (" + thread.getState() + ")" );
+		result.setStackTrace( stack );
+		return result;
+	}
+}
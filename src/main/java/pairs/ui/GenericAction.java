@@ -31,6 +31,7 @@ import org.apache.logging.log4j.LogManager;
 import pairs.util.Message;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Generic action.
@@ -58,7 +59,7 @@ abstract class GenericAction extends AbstractAction {
 		try {
 			return KeyEvent.class.getField( "VK_" + key ).getInt( null );
 		} catch ( Exception e ) {
-			throw new IllegalArgumentException( __( "error-parsekey", key ), e );
+			throw new IllegalArgumentException( __( ERROR_PARSEKEY, key ), e );
 		}
 	}
 
@@ -100,7 +101,7 @@ abstract class GenericAction extends AbstractAction {
 		try {
 			return KeyStroke.getKeyStroke( parseKey( key ), modifiers );
 		} catch ( IllegalArgumentException e ) {
-			throw new IllegalArgumentException( __( "error-parsekeystroke", keyString ), e );
+			throw new IllegalArgumentException( __( ERROR_PARSEKEYSTROKE, keyString ), e );
 		}
 	}
 
@@ -119,14 +120,14 @@ abstract class GenericAction extends AbstractAction {
 			try {
 				putValue( MNEMONIC_KEY, parseKey( __( mnemoKey ) ) );
 			} catch ( IllegalArgumentException e ) {
-				logger.error( __( "error-mnemonickey", mnemoKey, __( titleKey ) ), e );
+				logger.error( __( ERROR_MNEMONICKEY, mnemoKey, __( titleKey ) ), e );
 			}
 		}
 		if ( !Message.isEmpty( accelKey ) ) {
 			try {
 				putValue( ACCELERATOR_KEY, parseKeystroke( __( accelKey ) ) );
 			} catch ( IllegalArgumentException e ) {
-				logger.error( __( "error-accelkey", accelKey, __( titleKey ) ), e );
+				logger.error( __( ERROR_ACCELKEY, accelKey, __( titleKey ) ), e );
 			}
 		}
 		if ( !Message.isEmpty( shortdescKey ) ) {
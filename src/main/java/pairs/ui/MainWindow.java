@@ -22,6 +22,12 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.*;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import java.util.prefs.Preferences;
 
 import javax.swing.*;
@@ -31,10 +37,21 @@ import org.apache.logging.log4j.LogManager;
 
 import pairs.data.CardPackage;
 
+import pairs.journal.JournalConstants;
+import pairs.journal.JournalWriter;
+
+import pairs.model.GameClock;
+import pairs.model.PlayfieldModel;
+
+import pairs.stats.GameResult;
+import pairs.stats.StatsStore;
+
 import pairs.util.ImageResource;
 import pairs.util.ImageResourceLoader;
+import pairs.util.Settings;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Main window.
@@ -56,9 +73,9 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 	private static final int MIN_HEIGHT = 400;
 
 	/**
-	 * Preferences for this class.
+	 * Settings for this class.
 	 */
-	private static final Preferences preferences = Preferences.userNodeForPackage( MainWindow.class );
+	private static final Settings settings = new Settings( Preferences.userNodeForPackage( MainWindow.class ) );
 
 	/**
 	 * Window width preference key.
@@ -75,6 +92,36 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 	 */
 	private static final String PREF_STATE = "mainWindowState";
 
+	/**
+	 * Last card package preference key.
+	 */
+	static final String PREF_PACKAGE = "lastPackage";
+
+	/**
+	 * Last playfield size preference key.
+	 */
+	static final String PREF_SIZE = "lastSize";
+
+	/**
+	 * Time display update interval (ms).
+	 */
+	private static final int UPDATE_INTERVAL = 250;
+
+	/**
+	 * Journal directory, relative to the user's home directory.
+	 */
+	private static final String JOURNAL_DIRECTORY = ".pairs/journals";
+
+	/**
+	 * Statistics directory, relative to the user's home directory.
+	 */
+	private static final String STATS_DIRECTORY = ".pairs/stats";
+
+	/**
+	 * Game statistics.
+	 */
+	private final StatsStore stats;
+
 	/**
 	 * Status bar.
 	 */
@@ -86,66 +133,42 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 	private Playfield playfield;
 
 	/**
-	 * Game timer.
+	 * Key of the card package of the current game.
 	 */
-	private class GameTimer extends Timer {
-		/**
-		 * Update interval (ms).
-		 */
-		private static final int UPDATE_INTERVAL = 1000;
-
-		/**
-		 * Start time.
-		 */
-		private long startTime;
+	private String packageKey;
 
-		/**
-		 * Creates a new game timer.
-		 */
-		GameTimer() {
-			super( UPDATE_INTERVAL, null );
-			addActionListener( new ActionListener() {
-				public void actionPerformed( ActionEvent event ) {
-					statusBar.setTime( (int) ( ( System.currentTimeMillis() - getStartTime() ) / 1000 ) );
-				}
-			} );
-
-		}
-
-		/**
-		 * Gets the start time.
-		 *
-		 * @return The start time is returned.
-		 */
-		private long getStartTime() {
-			return startTime;
-		}
+	/**
+	 * Playfield model of the current game.
+	 */
+	private PlayfieldModel playfieldModel;
 
-		public @Override void start() {
-			startTime = System.currentTimeMillis();
-			super.start();
-		}
+	/**
+	 * Journal of the current game, or null.
+	 */
+	private JournalWriter journal;
 
-		public @Override void restart() {
-			startTime = System.currentTimeMillis();
-			super.restart();
-		}
-	}
+	/**
+	 * Game clock.
+	 */
+	private final GameClock gameClock;
 
-	private final GameTimer gameTimer;
+	/**
+	 * Timer updating the time display.
+	 */
+	private final Timer gameTimer;
 
 	/**
 	 * Displays main window.
 	 */
 	public MainWindow() {
-		super( __( "label-concentration" ) );
+		super( __( LABEL_CONCENTRATION ) );
 
 		/* Program icon */
 		try {
 			ImageResource resource = ImageResourceLoader.load( "program-icon" );
 			setIconImage( resource.createImage( 64, 64 ) );
 		} catch ( Exception e ) {
-			logger.error( __( "error-icon" ), e );
+			logger.error( __( ERROR_ICON ), e );
 		}
 
 		/* Default close operation */
@@ -178,17 +201,24 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 		/* Layout */
 		setLayout( new BorderLayout() );
 		playfield = null;
+		journal = null;
 		statusBar = new StatusBar();
 		add( statusBar, BorderLayout.SOUTH );
 
 		/* Other stuff */
-		gameTimer = new GameTimer();
+		stats = new StatsStore( Paths.get( System.getProperty( "user.home" ), STATS_DIRECTORY ) );
+		gameClock = new GameClock();
+		gameTimer = new Timer( UPDATE_INTERVAL, new ActionListener() {
+			public void actionPerformed( ActionEvent event ) {
+				statusBar.setTime( (int) gameClock.getElapsed( TimeUnit.SECONDS ) );
+			}
+		} );
 
 		/* Window sizing */
 		addComponentListener( this );
 		addWindowStateListener( this );
-		setSize( preferences.getInt( PREF_WIDTH, MIN_WIDTH ), preferences.getInt( PREF_HEIGHT, MIN_HEIGHT ) );
-		setExtendedState( preferences.getInt( PREF_STATE, NORMAL ) );
+		setSize( settings.getInt( PREF_WIDTH, MIN_WIDTH ), settings.getInt( PREF_HEIGHT, MIN_HEIGHT ) );
+		setExtendedState( settings.getInt( PREF_STATE, NORMAL ) );
 		if ( getExtendedState() == NORMAL ) {
 			setLocationRelativeTo( null );
 		}
@@ -207,18 +237,81 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 		if ( playfield != null ) {
 			remove( playfield );
 		}
-		playfield = new Playfield( this, cardPackage, sizeHint );
+		if ( journal != null ) {
+			journal.close();
+		}
+		packageKey = cardPackage.getKey();
+		playfieldModel = new PlayfieldModel( cardPackage, sizeHint );
+		settings.put( PREF_PACKAGE, cardPackage.getKey() );
+		settings.putInt( PREF_SIZE, playfieldModel.getSize() );
+		journal = openJournal( cardPackage, playfieldModel );
+		playfield = new Playfield( this, playfieldModel, journal, gameClock );
 		add( playfield, BorderLayout.CENTER );
 		validate();
+		gameClock.start();
+		statusBar.setTime( 0 );
 		gameTimer.restart();
 	}
 
+	/**
+	 * Gets the settings of the main window.
+	 *
+	 * @return The settings store of the main window is returned.
+	 */
+	Settings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Opens a journal for a new game.
+	 * The journal file is created in the background.
+	 *
+	 * @param cardPackage Card package of the new game.
+	 * @param playfieldModel Playfield model of the new game.
+	 *
+	 * @return A new journal is returned.
+	 */
+	private JournalWriter openJournal( CardPackage cardPackage, PlayfieldModel playfieldModel ) {
+		Path directory = Paths.get( System.getProperty( "user.home" ), JOURNAL_DIRECTORY );
+		Path path = directory.resolve( "game-" + System.currentTimeMillis() + JournalConstants.EXTENSION );
+		return JournalWriter.create( path, cardPackage, playfieldModel );
+	}
+
 	/**
 	 * Triggered if the game is won.
 	 */
 	public void gameWon() {
+		gameClock.stop();
 		gameTimer.stop();
-		statusBar.setStatusMessage( __( "label-congrats" ) );
+		statusBar.setTime( (int) gameClock.getElapsed( TimeUnit.SECONDS ) );
+		if ( journal != null ) {
+			journal.close();
+		}
+		statusBar.setStatusMessage( __( LABEL_CONGRATS ) );
+
+		/* Record and rank the result */
+		final PlayfieldModel wonModel = playfieldModel;
+		final GameResult result = new GameResult( System.getProperty( "user.name" ), packageKey, wonModel.getSize(),
+				wonModel.failedPicks(), gameClock.getElapsed( TimeUnit.MILLISECONDS ), System.currentTimeMillis() );
+		final Future<?> recorded = stats.record( result );
+		new SwingWorker<int[], Void>() {
+			protected @Override int[] doInBackground() throws Exception {
+				recorded.get();
+				return new int[] { stats.getRank( result ), stats.getCount( result.getPackageKey(), result.getSize() ) };
+			}
+
+			protected @Override void done() {
+				if ( wonModel != playfieldModel ) {
+					return; // a new game has been started in the meantime
+				}
+				try {
+					int[] rank = get();
+					statusBar.setStatusMessage( __( LABEL_CONGRATSRANK, rank[ 0 ], rank[ 1 ] ) );
+				} catch ( Exception e ) {
+					logger.error( __( ERROR_STATS ), e );
+				}
+			}
+		}.execute();
 	}
 
 	public void componentHidden( ComponentEvent e ) {
@@ -235,14 +328,19 @@ public class MainWindow extends JFrame implements ComponentListener, WindowState
 			height = Math.max( height, MIN_HEIGHT );
 			setSize( width, height );
 		}
-		preferences.putInt( PREF_WIDTH, width );
-		preferences.putInt( PREF_HEIGHT, height );
+		settings.putInt( PREF_WIDTH, width );
+		settings.putInt( PREF_HEIGHT, height );
 	}
 
 	public void componentShown( ComponentEvent e ) {
 	}
 
 	public void windowStateChanged( WindowEvent e ) {
-		preferences.putInt( PREF_STATE, e.getNewState() );
+		if ( ( e.getNewState() & ICONIFIED ) != 0 ) {
+			gameClock.pause();
+		} else {
+			gameClock.resume();
+		}
+		settings.putInt( PREF_STATE, e.getNewState() );
 	}
 }
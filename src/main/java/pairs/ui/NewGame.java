@@ -21,6 +21,9 @@ package pairs.ui;
 import java.awt.*;
 import java.awt.event.*;
 
+import java.util.Arrays;
+import java.util.Vector;
+
 import javax.swing.*;
 
 import pairs.data.CardPackage;
@@ -28,6 +31,7 @@ import pairs.data.CardPackage;
 import pairs.model.PlayfieldModel;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * New game dialog.
@@ -43,16 +47,26 @@ class NewGame extends JDialog {
 	 */
 	private final MainWindow owner;
 
+	/**
+	 * Default playfield size.
+	 */
+	private static final int DEFAULT_SIZE = 24;
+
 	/**
 	 * Playfield size selector.
 	 */
 	private static class SizeSelector extends JSpinner implements MouseWheelListener {
 		/**
 		 * Creates the size selector.
+		 *
+		 * @param size Initially selected size. Ignored unless it is an allowed size.
 		 */
-		SizeSelector() {
+		SizeSelector( int size ) {
 			super( new SpinnerListModel( PlayfieldModel.getAllowedSizes() ) );
-			setValue( 24 );
+			setValue( DEFAULT_SIZE );
+			if ( Arrays.asList( PlayfieldModel.getAllowedSizes() ).contains( size ) ) {
+				setValue( size );
+			}
 			addMouseWheelListener( this );
 		}
 
@@ -75,7 +89,7 @@ class NewGame extends JDialog {
 	 * @param owner Owner of the NewGame dialog.
 	 */
 	NewGame( MainWindow owner ) {
-		super( owner, __( "label-newgame" ) );
+		super( owner, __( LABEL_NEWGAME ) );
 		this.owner = owner;
 
 		setDefaultCloseOperation( DISPOSE_ON_CLOSE );
@@ -88,7 +102,7 @@ class NewGame extends JDialog {
 		c.gridy = 0;
 		c.anchor = GridBagConstraints.EAST;
 		c.insets = DEFAULT_INSETS;
-		JLabel packageLabel = new JLabel( __( "label-package" ) );
+		JLabel packageLabel = new JLabel( __( LABEL_PACKAGE ) );
 		add( packageLabel, c );
 
 		/* Package selector */
@@ -98,7 +112,14 @@ class NewGame extends JDialog {
 		c.gridwidth = 2;
 		c.anchor = GridBagConstraints.WEST;
 		c.insets = DEFAULT_INSETS;
-		final JComboBox packageSelector = new JComboBox( CardPackage.getAll() );
+		Vector<CardPackage> cardPackages = CardPackage.getAll();
+		final JComboBox packageSelector = new JComboBox( cardPackages );
+		String lastPackage = owner.getSettings().get( MainWindow.PREF_PACKAGE, null );
+		for ( CardPackage cardPackage: cardPackages ) {
+			if ( cardPackage.getKey().equals( lastPackage ) ) {
+				packageSelector.setSelectedItem( cardPackage );
+			}
+		}
 		packageLabel.setLabelFor( packageSelector );
 		add( packageSelector, c );
 
@@ -108,7 +129,7 @@ class NewGame extends JDialog {
 		c.gridy = 1;
 		c.anchor = GridBagConstraints.EAST;
 		c.insets = DEFAULT_INSETS;
-		JLabel sizeLabel = new JLabel( __( "label-playfieldsize" ) );
+		JLabel sizeLabel = new JLabel( __( LABEL_PLAYFIELDSIZE ) );
 		add( sizeLabel, c );
 
 		/* Playfield size selector */
@@ -117,7 +138,7 @@ class NewGame extends JDialog {
 		c.gridy = 1;
 		c.fill = GridBagConstraints.HORIZONTAL;
 		c.insets = DEFAULT_INSETS;
-		final SizeSelector sizeSelector = new SizeSelector();
+		final SizeSelector sizeSelector = new SizeSelector( owner.getSettings().getInt( MainWindow.PREF_SIZE, DEFAULT_SIZE ) );
 		sizeLabel.setLabelFor( sizeSelector );
 		add( sizeSelector, c );
 
@@ -24,8 +24,10 @@ import java.awt.event.*;
 import javax.swing.*;
 
 import pairs.data.Card;
-import pairs.data.CardPackage;
 
+import pairs.journal.JournalWriter;
+
+import pairs.model.GameClock;
 import pairs.model.PlayfieldChangeListener;
 import pairs.model.PlayfieldModel;
 
@@ -55,10 +57,20 @@ class Playfield extends JComponent implements PlayfieldChangeListener {
 	 */
 	private final MainWindow owner;
 
+	/**
+	 * Journal recording the picks, or null.
+	 */
+	private final JournalWriter journal;
+
+	/**
+	 * Game clock recording the pick splits.
+	 */
+	private final GameClock gameClock;
+
 	/**
 	 * Card button.
 	 */
-	private class CardButton extends JButton {
+	class CardButton extends JButton {
 		/**
 		 * Button index.
 		 */
@@ -69,18 +81,41 @@ class Playfield extends JComponent implements PlayfieldChangeListener {
 		 */
 		private final Timer turnTimer;
 
+		/**
+		 * Whether the card is currently shown.
+		 */
+		private boolean cardShown;
+
+		/**
+		 * Image of the card at the current button size, or null if not rendered yet.
+		 */
+		private Icon cardIcon;
+
+		/**
+		 * Width of the card image.
+		 */
+		private int cardIconWidth;
+
+		/**
+		 * Height of the card image.
+		 */
+		private int cardIconHeight;
+
 		/**
 		 * Creates a new card button.
+		 * The button is named "card-" followed by its index, so tools driving the user interface can find it.
 		 *
 		 * @param i Button index.
 		 */
 		CardButton( int i ) {
 			super();
 			this.index = i;
+			setName( "card-" + i );
 			this.turnTimer = new Timer( TURN_DELAY, new ActionListener() {
 				public void actionPerformed( ActionEvent event ) {
 					setText( playfieldModel.isWon( index ) ? null : UNKNOWN_CARD_TEXT );
 					setIcon( null );
+					cardShown = false;
 				}
 			} );
 			this.turnTimer.setRepeats( false );
@@ -98,20 +133,33 @@ class Playfield extends JComponent implements PlayfieldChangeListener {
 
 		/**
 		 * Shows the card.
+		 * If the card is already shown, only a pending turn over is cancelled.
+		 * The card image is rendered once per button size.
 		 */
 		public void showCard() {
 			turnTimer.stop();
+			if ( cardShown ) {
+				return;
+			}
 			Card card = playfieldModel.getCard( index );
 			switch ( card.getType() ) {
 				case IMAGE:
+					int width = getWidth() / 2;
+					int height = getHeight() / 2;
+					if ( ( cardIcon == null ) || ( width != cardIconWidth ) || ( height != cardIconHeight ) ) {
+						cardIcon = new ImageIcon( card.getImageResource().createImage( width, height ) );
+						cardIconWidth = width;
+						cardIconHeight = height;
+					}
 					setText( null );
-					setIcon( new ImageIcon( card.getImageResource().createImage( getWidth() / 2, getHeight() / 2 ) ) );
+					setIcon( cardIcon );
 					break;
 				case TEXT:
 					setText( card.getText() );
 					setIcon( null );
 					break;
 			}
+			cardShown = true;
 		}
 
 		/**
@@ -138,16 +186,20 @@ class Playfield extends JComponent implements PlayfieldChangeListener {
 	 * Creates a new playfield component.
 	 *
 	 * @param owner Owner of this playfield.
-	 * @param cardPackage Card package to use.
-	 * @param sizeHint Playfield size hint.
+	 * @param playfieldModel Playfield model to display.
+	 * @param journal Journal recording the picks. Ignored if null.
+	 * @param gameClock Game clock recording the pick splits.
 	 *
-	 * @throws NullPointerException if cardPackage is null.
+	 * @throws NullPointerException if playfieldModel or gameClock is null.
 	 */
-	Playfield( MainWindow owner, CardPackage cardPackage, int sizeHint ) {
+	Playfield( MainWindow owner, PlayfieldModel playfieldModel, JournalWriter journal, GameClock gameClock ) {
+		if ( gameClock == null ) {
+			throw new NullPointerException();
+		}
 		this.owner = owner;
-
-		/* Create model */
-		playfieldModel = new PlayfieldModel( cardPackage, sizeHint );
+		this.playfieldModel = playfieldModel;
+		this.journal = journal;
+		this.gameClock = gameClock;
 
 		/* Layout */
 		int size = playfieldModel.getSize();
@@ -161,12 +213,32 @@ class Playfield extends JComponent implements PlayfieldChangeListener {
 		playfieldModel.addChangeListener( this );
 	}
 
+	/**
+	 * Returns a card button.
+	 *
+	 * @param i Card index.
+	 *
+	 * @return The button of the card with the specified index is returned.
+	 */
+	CardButton getCardButton( int i ) {
+		return cardButtons[ i ];
+	}
+
 	/**
 	 * Triggered when a card is clicked.
+	 * Clicks which do not change the playfield, such as a repeated click on the picked card,
+	 * are neither journalled nor recorded as a split.
 	 *
 	 * @param i Index of card clicked.
 	 */
 	private void cardClicked( int i ) {
+		if ( !playfieldModel.isPickable( i ) ) {
+			return;
+		}
+		if ( journal != null ) {
+			journal.recordPick( i );
+		}
+		gameClock.split();
 		playfieldModel.pickCard( i );
 	}
 
@@ -27,6 +27,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * The status bar.
@@ -48,14 +49,9 @@ class StatusBar extends JPanel {
 	private final JLabel messageLabel;
 
 	/**
-	 * Time display in seconds.
+	 * Time display.
 	 */
-	private int seconds;
-
-	/**
-	 * Time display label.
-	 */
-	private final JLabel timeLabel;
+	private final TimeDisplay timeDisplay;
 
 	/**
 	 * Creates a new status bar.
@@ -64,8 +60,7 @@ class StatusBar extends JPanel {
 		super( new BorderLayout(), true );
 		message = "";
 		messageLabel = new JLabel( message );
-		seconds = 0;
-		timeLabel = new JLabel( __( "label-time", 0, 0 ) );
+		timeDisplay = new TimeDisplay();
 
 		/* Layout */
 		setBorder( new BevelBorder( BevelBorder.RAISED ) );
@@ -73,8 +68,8 @@ class StatusBar extends JPanel {
 		messageLabel.setBorder( new BevelBorder( BevelBorder.LOWERED ) );
 		add( messageLabel, BorderLayout.CENTER );
 
-		timeLabel.setBorder( new BevelBorder( BevelBorder.LOWERED ) );
-		add( timeLabel, BorderLayout.EAST );
+		timeDisplay.setBorder( new BevelBorder( BevelBorder.LOWERED ) );
+		add( timeDisplay, BorderLayout.EAST );
 	}
 
 	/**
@@ -89,6 +84,7 @@ class StatusBar extends JPanel {
 
 	/**
 	 * Sets the current time.
+	 * This only repaints the time display.
 	 *
 	 * @param seconds Time in seconds.
 	 *
@@ -96,16 +92,10 @@ class StatusBar extends JPanel {
 	 */
 	void setTime( int seconds ) {
 		if ( seconds < 0 ) {
-			String errmsg = __( "error-seconds", seconds );
+			String errmsg = __( ERROR_SECONDS, seconds );
 			logger.error( errmsg );
 			throw new IllegalArgumentException( errmsg );
 		}
-		int minutes = seconds / 60;
-		if ( minutes > 99 ) {
-			minutes = 99;
-			seconds = 59;
-		}
-		timeLabel.setText( __( "label-time", minutes, seconds % 60 ) );
-		revalidate();
+		timeDisplay.setTime( Math.min( seconds, 60 * TimeDisplay.MAX_MINUTES + 59 ) );
 	}
 }
@@ -0,0 +1,109 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.ui;
+
+import java.awt.*;
+
+import java.util.Map;
+
+import javax.swing.*;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Time display.
+ *
+ * Unlike a label, this component has a fixed preferred size wide enough for any time it can display,
+ * so updating the time only repaints it and never triggers a layout pass.
+ */
+class TimeDisplay extends JComponent {
+	/**
+	 * Largest number of minutes displayed.
+	 */
+	static final int MAX_MINUTES = 99;
+
+	/**
+	 * Displayed time in seconds.
+	 */
+	private int seconds;
+
+	/**
+	 * Displayed text.
+	 */
+	private String text;
+
+	/**
+	 * Creates a new time display showing zero.
+	 */
+	TimeDisplay() {
+		this.seconds = 0;
+		this.text = __( LABEL_TIME, 0, 0 );
+		setOpaque( false );
+		setFont( UIManager.getFont( "Label.font" ) );
+		setForeground( UIManager.getColor( "Label.foreground" ) );
+	}
+
+	/**
+	 * Sets the displayed time.
+	 * If the time does not change, no operation is performed.
+	 *
+	 * @param seconds Time in seconds, at most {@link #MAX_MINUTES} minutes and 59 seconds.
+	 */
+	void setTime( int seconds ) {
+		if ( seconds == this.seconds ) {
+			return;
+		}
+		this.seconds = seconds;
+		this.text = __( LABEL_TIME, seconds / 60, seconds % 60 );
+		repaint();
+	}
+
+	public @Override Dimension getPreferredSize() {
+		if ( isPreferredSizeSet() ) {
+			return super.getPreferredSize();
+		}
+		FontMetrics metrics = getFontMetrics( getFont() );
+		Insets insets = getInsets();
+		int width = metrics.stringWidth( __( LABEL_TIME, MAX_MINUTES, 59 ) );
+		return new Dimension( width + insets.left + insets.right, metrics.getHeight() + insets.top + insets.bottom );
+	}
+
+	public @Override Dimension getMinimumSize() {
+		return getPreferredSize();
+	}
+
+	protected @Override void paintComponent( Graphics g ) {
+		Graphics2D g2 = (Graphics2D) g.create();
+		try {
+			Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty( "awt.font.desktophints" );
+			if ( hints != null ) {
+				g2.addRenderingHints( hints );
+			}
+			g2.setFont( getFont() );
+			g2.setColor( getForeground() );
+			FontMetrics metrics = g2.getFontMetrics();
+			Insets insets = getInsets();
+			int height = getHeight() - insets.top - insets.bottom;
+			g2.drawString( text, insets.left, insets.top + ( height - metrics.getHeight() ) / 2 + metrics.getAscent() );
+		} finally {
+			g2.dispose();
+		}
+	}
+}
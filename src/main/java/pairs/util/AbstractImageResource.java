@@ -25,6 +25,11 @@ import java.awt.*;
  * This implementation provides the getter methods.
  */
 abstract class AbstractImageResource implements ImageResource {
+	/**
+	 * Name.
+	 */
+	private final String name;
+
 	/**
 	 * Type.
 	 */
@@ -38,19 +43,25 @@ abstract class AbstractImageResource implements ImageResource {
 	/**
 	 * Creates a new abstract image resource.
 	 *
+	 * @param name Image resource name.
 	 * @param type Image resource type.
 	 * @param copyright Image resource copyright.
 	 *
 	 * @throws NullPointerException if one of the arguments is null.
 	 */
-	protected AbstractImageResource( Type type, Copyright copyright ) {
-		if ( ( type == null ) || ( copyright == null ) ) {
+	protected AbstractImageResource( String name, Type type, Copyright copyright ) {
+		if ( ( name == null ) || ( type == null ) || ( copyright == null ) ) {
 			throw new NullPointerException();
 		}
+		this.name = name;
 		this.type = type;
 		this.copyright = copyright;
 	}
 
+	public String getName() {
+		return name;
+	}
+
 	public Type getType() {
 		return type;
 	}
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.*;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Copyright representation.
@@ -112,7 +113,7 @@ public class Copyright {
 	public static Copyright get( String key ) {
 		JsonNode copyrightNode = database.get( key );
 		if ( copyrightNode == null ) {
-			throw new IllegalArgumentException( __( "error-copyright", key ) );
+			throw new IllegalArgumentException( __( ERROR_COPYRIGHT, key ) );
 		}
 		String copyrightText = copyrightNode.get( "copyright" ).textValue();
 		return new Copyright( copyrightText, Licence.get( copyrightNode.get( "licence" ).textValue() ) );
@@ -31,6 +31,13 @@ public interface ImageResource {
 		SVG
 	}
 
+	/**
+	 * Returns the name of this image resource.
+	 *
+	 * @return The name of this image resource in the image database is returned.
+	 */
+	public String getName();
+
 	/**
 	 * Returns the type of this image resource.
 	 *
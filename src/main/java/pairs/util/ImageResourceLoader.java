@@ -25,7 +25,13 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import pairs.metrics.Histogram;
+import pairs.metrics.Metrics;
+import pairs.metrics.Span;
+import pairs.metrics.Tracing;
+
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Class for loading image resources.
@@ -41,6 +47,11 @@ public class ImageResourceLoader {
 	 */
 	private static final JsonNode database;
 
+	/**
+	 * Image load times, including parsing (ns).
+	 */
+	private static final Histogram loadTime = Metrics.histogram( "image.load" );
+
 	/**
 	 * Initialises the image database.
 	 */
@@ -66,6 +77,8 @@ public class ImageResourceLoader {
 	 * @throws IllegalArgumentException if there is no image with the specified imageName.
 	 */
 	public static ImageResource load( String imageName ) {
+		long start = System.nanoTime();
+		Span span = Tracing.imageLoad( imageName );
 		ImageResource result;
 		try {
 			JsonNode imageNode = database.get( imageName );
@@ -77,14 +90,30 @@ public class ImageResourceLoader {
 
 			switch ( type ) {
 				case SVG:
-					result = new SVGResource( imageNode.get( "resource" ).textValue(), copyright );
+					result = new SVGResource( imageName, imageNode.get( "resource" ).textValue(), copyright );
 					break;
 				default:
 					throw new AssertionError( "This should not happen" );
 			}
 		} catch ( Exception e ) {
-			throw new IllegalArgumentException( __( "error-loadingimage", imageName ), e );
+			throw new IllegalArgumentException( __( ERROR_LOADINGIMAGE, imageName ), e );
+		} finally {
+			loadTime.recordSince( start );
+			span.finish();
 		}
 		return result;
 	}
+
+	/**
+	 * Checks whether an image exists without loading it.
+	 *
+	 * @param imageName Image name.
+	 *
+	 * @throws IllegalArgumentException if there is no image with the specified imageName.
+	 */
+	public static void checkExists( String imageName ) {
+		if ( !database.has( imageName ) ) {
+			throw new IllegalArgumentException( __( ERROR_LOADINGIMAGE, imageName ) );
+		}
+	}
 }
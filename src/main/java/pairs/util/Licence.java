@@ -25,6 +25,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.*;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Class representing a licence.
@@ -124,7 +125,7 @@ public class Licence {
 	public static Licence get( String key ) {
 		JsonNode licence = database.get( key );
 		if ( licence == null ) {
-			throw new IllegalArgumentException( __( "error-licence", key ) );
+			throw new IllegalArgumentException( __( ERROR_LICENCE, key ) );
 		}
 		return new Licence( licence.get( "name" ).textValue(), licence.get( "resource" ).textValue() );
 	}
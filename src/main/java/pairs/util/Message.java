@@ -20,15 +20,21 @@ package pairs.util;
 
 import java.text.MessageFormat;
 
-import java.util.IllegalFormatException;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 /**
  * Message retrieval.
+ *
+ * Message patterns are looked up in the messages bundle once per key and cached together with their parsed format.
+ * The bundle, and hence the locale, is fixed when this class is initialised.
+ * All methods are thread-safe.
  */
 public final class Message {
 	/**
@@ -41,6 +47,73 @@ public final class Message {
 	 */
 	private static final ResourceBundle messages = ResourceBundle.getBundle( "Messages", new ResourceBundleControl() );
 
+	/**
+	 * Cached formats, by message key.
+	 */
+	private static final ConcurrentMap<String, Format> formats = new ConcurrentHashMap<String, Format>();
+
+	/**
+	 * Cached formats, by message index, see {@link MessageKeys}.
+	 * Entries are filled in on first use.
+	 */
+	private static final Format[] indexedFormats = new Format[ MessageKeys.KEYS.length ];
+
+	/**
+	 * A cached message format.
+	 */
+	private static final class Format {
+		/**
+		 * Raw format string.
+		 */
+		final String pattern;
+
+		/**
+		 * Parsed format, or null if not parsed yet.
+		 * Guarded by this format.
+		 */
+		private MessageFormat messageFormat;
+
+		/**
+		 * Whether the pattern is invalid.
+		 * Guarded by this format.
+		 */
+		private boolean invalid;
+
+		/**
+		 * Creates a new format.
+		 *
+		 * @param pattern Raw format string.
+		 */
+		Format( String pattern ) {
+			this.pattern = pattern;
+			this.messageFormat = null;
+			this.invalid = false;
+		}
+
+		/**
+		 * Formats arguments.
+		 *
+		 * @param args Message arguments.
+		 *
+		 * @return The formatted message is returned, or the raw format string if the format is invalid.
+		 */
+		synchronized String format( Object[] args ) {
+			if ( invalid ) {
+				return pattern;
+			}
+			try {
+				if ( messageFormat == null ) {
+					messageFormat = new MessageFormat( pattern );
+				}
+				return messageFormat.format( args );
+			} catch ( IllegalArgumentException e ) {
+				logger.error( "Invalid message format: " + pattern, e );
+				invalid = true;
+				return pattern;
+			}
+		}
+	}
+
 	/**
 	 * Message key.
 	 */
@@ -67,6 +140,82 @@ public final class Message {
 		this.args = args;
 	}
 
+	/**
+	 * Obtains the cached format for a key.
+	 * A missing key is logged once and cached as the empty format.
+	 *
+	 * @param key Message key.
+	 *
+	 * @return The format for the specified key is returned.
+	 *
+	 * @throws NullPointerException if key is null.
+	 */
+	private static Format getFormat( String key ) {
+		Format result = formats.get( key );
+		if ( result == null ) {
+			String pattern;
+			try {
+				pattern = messages.getString( key );
+			} catch ( MissingResourceException e ) {
+				logger.error( "Message key not found: " + key, e );
+				pattern = "";
+			}
+			result = new Format( pattern );
+			Format previous = formats.putIfAbsent( key, result );
+			if ( previous != null ) {
+				result = previous;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains the cached format for a message index.
+	 *
+	 * @param index Message index, see {@link MessageKeys}.
+	 *
+	 * @return The format for the specified message is returned.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if index is invalid.
+	 */
+	private static Format getFormat( int index ) {
+		Format result = indexedFormats[ index ];
+		if ( result == null ) {
+			result = getFormat( MessageKeys.KEYS[ index ] ); // racing threads obtain the same instance
+			indexedFormats[ index ] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Renders a message.
+	 *
+	 * @param format Message format.
+	 * @param args Message arguments, or null.
+	 *
+	 * @return The rendered message is returned.
+	 */
+	private static String render( Format format, Object[] args ) {
+		if ( ( args == null ) || format.pattern.isEmpty() ) {
+			return format.pattern;
+		}
+		return format.format( args );
+	}
+
+	/**
+	 * Renders a message.
+	 *
+	 * @param key Message key.
+	 * @param args Message arguments, or null.
+	 *
+	 * @return The rendered message is returned.
+	 *
+	 * @throws NullPointerException if key is null.
+	 */
+	private static String render( String key, Object[] args ) {
+		return render( getFormat( key ), args );
+	}
+
 	/**
 	 * Renders a message.
 	 *
@@ -75,22 +224,7 @@ public final class Message {
 	 * 	If formatting the message fails, the raw format string is returned.
 	 */
 	public String toString() {
-		String format;
-		try {
-			format = messages.getString( key );
-		} catch ( MissingResourceException e ) {
-			logger.error( "Message key not found: " + key, e );
-			return "";
-		}
-		if ( args == null ) {
-			return format;
-		}
-		try {
-			return MessageFormat.format( format, args );
-		} catch ( IllegalFormatException e ) {
-			logger.error( "Invalid message format: " + format, e );
-			return format;
-		}
+		return render( key, args );
 	}
 
 	/**
@@ -125,18 +259,48 @@ public final class Message {
 	 * @return The rendered message string is returned.
 	 */
 	public static String __( String key, Object... args ) {
-		return new Message( key, args ).toString();
+		return render( key, args );
 	}
 
 	/**
 	 * Obtains a rendered message without parameters.
+	 * Once the key is cached, this method does not allocate.
 	 *
 	 * @param key Message key.
 	 *
 	 * @return The rendered message string is returned.
 	 */
 	public static String __( String key ) {
-		return new Message( key, null ).toString();
+		return getFormat( key ).pattern;
+	}
+
+	/**
+	 * Obtains a rendered message by index.
+	 * Use this method for message keys known at compile time.
+	 *
+	 * @param index Message index, see {@link MessageKeys}.
+	 * @param args Message args.
+	 *
+	 * @return The rendered message string is returned.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if index is invalid.
+	 */
+	public static String __( int index, Object... args ) {
+		return render( getFormat( index ), args );
+	}
+
+	/**
+	 * Obtains a rendered message without parameters by index.
+	 * Once the message is cached, this method does not allocate.
+	 *
+	 * @param index Message index, see {@link MessageKeys}.
+	 *
+	 * @return The rendered message string is returned.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException if index is invalid.
+	 */
+	public static String __( int index ) {
+		return getFormat( index ).pattern;
 	}
 
 	/**
@@ -148,6 +312,6 @@ public final class Message {
 		if ( key == null ) {
 			return true;
 		}
-		return "".equals( new Message( key, null ).toString().trim() );
+		return getFormat( key ).pattern.trim().isEmpty();
 	}
 }
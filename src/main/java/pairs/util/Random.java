@@ -18,20 +18,49 @@
 
 package pairs.util;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Various randomness utilities.
+ *
+ * Randomness is drawn from {@link SplittableRandom} instances, one per game or task, so that
+ * results are reproducible from a 64-bit seed and threads never contend for a shared generator.
+ * Fresh seeds are drawn from a per-thread source.
  */
 public class Random {
 	/**
-	 * Java randomness source.
+	 * Golden ratio increment of the SplitMix64 generator.
 	 */
-	private static final java.util.Random source;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
 
 	/**
-	 * Initialises the randomness source.
+	 * Returns a fresh random seed.
+	 *
+	 * @return A random 64-bit seed is returned.
 	 */
-	static {
-		source = new java.util.Random();
+	public static long nextSeed() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Derives a seed from another seed and a stream number.
+	 * Distinct stream numbers yield statistically independent seeds, regardless of the order in which they are derived.
+	 *
+	 * @param seed Base seed.
+	 * @param stream Stream number, such as a game number.
+	 *
+	 * @return A well-mixed seed for the specified stream is returned.
+	 */
+	public static long deriveSeed( long seed, long stream ) {
+		long z = seed + ( stream + 1 ) * GOLDEN_GAMMA; // SplitMix64 gamma step
+		/* SplitMix64 finaliser */
+		z = ( z ^ ( z >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+		z = ( z ^ ( z >>> 27 ) ) * 0x94d049bb133111ebL;
+		return z ^ ( z >>> 31 );
 	}
 
 	/**
@@ -40,12 +69,46 @@ public class Random {
 	 * @param array The array that is to be randomised.
 	 */
 	public static void randomiseArray( Object[] array ) {
+		randomiseArray( array, new SplittableRandom( nextSeed() ) );
+	}
+
+	/**
+	 * Randomises an array using the specified randomness source.
+	 *
+	 * @param array The array that is to be randomised.
+	 * @param random Randomness source.
+	 */
+	public static void randomiseArray( Object[] array, SplittableRandom random ) {
 		int length = array.length;
 		for( int i = 0; i != length; ++i ) {
-			int pickIndex = i + source.nextInt( length - i );
+			int pickIndex = i + random.nextInt( length - i );
 			Object temp = array[ i ];
 			array[ i ] = array[ pickIndex ];
 			array[ pickIndex ] = temp;
 		}
 	}
+
+	/**
+	 * Draws a random sample of distinct indices.
+	 * This is a partial Fisher-Yates shuffle of the virtual array 0, ..., n - 1 which only keeps track of
+	 * the displaced entries, so it takes O(k) time and space regardless of n.
+	 *
+	 * @param n Number of indices to choose from.
+	 * @param k Sample size, between 0 and n.
+	 * @param random Randomness source.
+	 *
+	 * @return An array of k distinct indices between 0 and n - 1 in random order is returned.
+	 */
+	public static int[] sampleIndices( int n, int k, SplittableRandom random ) {
+		int[] result = new int[ k ];
+		Map<Integer, Integer> displaced = new HashMap<Integer, Integer>( 2 * k );
+		for ( int i = 0; i != k; ++i ) {
+			int pickIndex = i + random.nextInt( n - i );
+			Integer picked = displaced.get( pickIndex );
+			Integer current = displaced.get( i );
+			result[ i ] = picked == null ? pickIndex : picked;
+			displaced.put( pickIndex, current == null ? i : current );
+		}
+		return result;
+	}
 }
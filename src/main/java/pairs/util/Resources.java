@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.MissingResourceException;
 
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * Resources utilities.
@@ -45,9 +46,9 @@ public class Resources implements ResourceConstants {
 		if ( resourceName == null ) {
 			throw new NullPointerException();
 		}
-		InputStream in = ClassLoader.getSystemResourceAsStream( resourceName );
+		InputStream in = Resources.class.getClassLoader().getResourceAsStream( resourceName );
 		if ( in == null ) {
-			throw new MissingResourceException( __( "error-loadingresource", resourceName ), ClassLoader.class.getName(), resourceName );
+			throw new MissingResourceException( __( ERROR_LOADINGRESOURCE, resourceName ), ClassLoader.class.getName(), resourceName );
 		}
 		InputStreamReader inr = new InputStreamReader( in, ENCODING );
 		char buf[] = new char[4096];
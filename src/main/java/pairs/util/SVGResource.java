@@ -44,12 +44,28 @@ import org.w3c.dom.Element;
 
 import org.w3c.dom.svg.SVGDocument;
 
+import pairs.metrics.Histogram;
+import pairs.metrics.Metrics;
+import pairs.metrics.Span;
+import pairs.metrics.Tracing;
+
 import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
 
 /**
  * SVG resource convenience class.
  */
 class SVGResource extends AbstractImageResource {
+	/**
+	 * SVG parse times, including building the graphics tree (ns).
+	 */
+	private static final Histogram parseTime = Metrics.histogram( "svg.parse" );
+
+	/**
+	 * SVG render times (ns).
+	 */
+	private static final Histogram renderTime = Metrics.histogram( "svg.render" );
+
 	/**
 	 * SVG DOM document.
 	 */
@@ -68,6 +84,7 @@ class SVGResource extends AbstractImageResource {
 	/**
 	 * Creates a new SVG resource.
 	 *
+	 * @param name Image name.
 	 * @param resourceName Resource name.
 	 * @param copyright Copyright.
 	 *
@@ -75,21 +92,24 @@ class SVGResource extends AbstractImageResource {
 	 * @throws IOException if an error occurs while reading the resource.
 	 * @throws NullPointerException if one of the arguments is null.
 	 */
-	SVGResource( String resourceName, Copyright copyright ) throws IOException {
-		super( Type.SVG, copyright );
-		URL resourceURL = ClassLoader.getSystemResource( resourceName );
+	SVGResource( String name, String resourceName, Copyright copyright ) throws IOException {
+		super( name, Type.SVG, copyright );
+		long start = System.nanoTime();
+		URL resourceURL = SVGResource.class.getClassLoader().getResource( resourceName );
 		if ( resourceURL == null ) {
-			throw new MissingResourceException( __( "error-loadingresource", resourceName ), ClassLoader.class.getName(), resourceName );
+			throw new MissingResourceException( __( ERROR_LOADINGRESOURCE, resourceName ), ClassLoader.class.getName(), resourceName );
 		}
 		String parserClassName = XMLResourceDescriptor.getXMLParserClassName();
 		SAXSVGDocumentFactory documentFactory = new SAXSVGDocumentFactory( parserClassName );
 		this.svgDocument = (SVGDocument) documentFactory.createDocument( resourceURL.toString() );
 		this.bridgeContext = new BridgeContext( new UserAgentAdapter() );
 		this.rootGraphicsNode = new GVTBuilder().build( bridgeContext, this.svgDocument );
+		parseTime.recordSince( start );
 	}
 
 	/**
 	 * Creates a new image.
+	 * The graphics tree must not be painted concurrently, so concurrent calls render one after another.
 	 *
 	 * @param width Width of the new image.
 	 * @param height Height of the new image.
@@ -97,22 +117,29 @@ class SVGResource extends AbstractImageResource {
 	 *
 	 * @return A new image rendered from SVG is returned.
 	 */
-	public Image createImage( int width, int height, RenderingHints renderingHints ) {
-		BufferedImage result = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
-		Graphics2D graphics = GraphicsUtil.createGraphics( result );
-		graphics.addRenderingHints( renderingHints );
-
-		/* Render SVG to graphics */
-		Rectangle bounds = rootGraphicsNode.getSensitiveBounds().getBounds();
-		float scaleW = (float) width / bounds.width;
-		float scaleH = (float) height / bounds.height;
-		float scale = scaleW < scaleH ? scaleW : scaleH;
-		graphics.scale( scale, scale );
-		rootGraphicsNode.paint( graphics );
-
-		/* return newly painted image */
-		graphics.dispose();
-		return result;
+	public synchronized Image createImage( int width, int height, RenderingHints renderingHints ) {
+		long start = System.nanoTime();
+		Span span = Tracing.imageRender( getName(), width, height );
+		try {
+			BufferedImage result = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+			Graphics2D graphics = GraphicsUtil.createGraphics( result );
+			graphics.addRenderingHints( renderingHints );
+
+			/* Render SVG to graphics */
+			Rectangle bounds = rootGraphicsNode.getSensitiveBounds().getBounds();
+			float scaleW = (float) width / bounds.width;
+			float scaleH = (float) height / bounds.height;
+			float scale = scaleW < scaleH ? scaleW : scaleH;
+			graphics.scale( scale, scale );
+			rootGraphicsNode.paint( graphics );
+
+			/* return newly painted image */
+			graphics.dispose();
+			return result;
+		} finally {
+			renderTime.recordSince( start );
+			span.finish();
+		}
 	}
 
 	/**
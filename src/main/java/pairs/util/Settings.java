@@ -0,0 +1,251 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+import static pairs.util.Message.__;
+import static pairs.util.MessageKeys.*;
+
+/**
+ * Settings store.
+ *
+ * Settings are kept in memory and written to a preferences node by a background thread
+ * once no setting has changed for {@link #FLUSH_DELAY} ms, so frequent changes, such as during a window resize,
+ * cause a single write. Pending changes are also written on JVM shutdown.
+ * All methods are thread-safe and never block on the backing store, except {@link #flush()}.
+ */
+public class Settings {
+	/**
+	 * Logger for this class.
+	 */
+	private static final Logger logger = LogManager.getLogger( Settings.class );
+
+	/**
+	 * Time without changes after which pending changes are written (ms).
+	 */
+	public static final long FLUSH_DELAY = 500;
+
+	/**
+	 * Executor writing settings in the background.
+	 */
+	private static final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+		public Thread newThread( Runnable runnable ) {
+			Thread thread = new Thread( runnable, "pairs-settings-flush" );
+			thread.setDaemon( true );
+			return thread;
+		}
+	} );
+
+	/**
+	 * All settings stores.
+	 */
+	private static final Set<Settings> allSettings = Collections.newSetFromMap( new ConcurrentHashMap<Settings, Boolean>() );
+
+	/**
+	 * Writes all pending changes on shutdown.
+	 */
+	static {
+		Runtime.getRuntime().addShutdownHook( new Thread( "pairs-settings-shutdown" ) {
+			public @Override void run() {
+				for ( Settings settings: allSettings ) {
+					settings.flush();
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Backing preferences node.
+	 */
+	private final Preferences preferences;
+
+	/**
+	 * Current values, by key.
+	 */
+	private final ConcurrentHashMap<String, String> values;
+
+	/**
+	 * Values not yet written to the preferences node, by key.
+	 * Guarded by this store.
+	 */
+	private final Map<String, String> pending;
+
+	/**
+	 * Time of the latest change as per {@link System#nanoTime()}.
+	 * Guarded by this store.
+	 */
+	private long lastChange;
+
+	/**
+	 * Whether a background flush is scheduled.
+	 * Guarded by this store.
+	 */
+	private boolean flushScheduled;
+
+	/**
+	 * Task writing pending changes once they have settled.
+	 */
+	private final Runnable flushTask = new Runnable() {
+		public void run() {
+			synchronized ( Settings.this ) {
+				long wait = lastChange + TimeUnit.MILLISECONDS.toNanos( FLUSH_DELAY ) - System.nanoTime();
+				if ( wait > 0 ) {
+					flushExecutor.schedule( this, wait, TimeUnit.NANOSECONDS );
+					return;
+				}
+				flushScheduled = false;
+			}
+			flush();
+		}
+	};
+
+	/**
+	 * Creates a new settings store.
+	 *
+	 * @param preferences Backing preferences node.
+	 *
+	 * @throws NullPointerException if preferences is null.
+	 */
+	public Settings( Preferences preferences ) {
+		if ( preferences == null ) {
+			throw new NullPointerException();
+		}
+		this.preferences = preferences;
+		this.values = new ConcurrentHashMap<String, String>();
+		this.pending = new HashMap<String, String>();
+		this.flushScheduled = false;
+		allSettings.add( this );
+	}
+
+	/**
+	 * Obtains a setting.
+	 *
+	 * @param key Setting key.
+	 * @param def Default value.
+	 *
+	 * @return The value of the setting is returned, or def if the setting does not exist.
+	 */
+	public String get( String key, String def ) {
+		String result = values.get( key );
+		if ( result == null ) {
+			result = preferences.get( key, null );
+			if ( result == null ) {
+				return def;
+			}
+			values.putIfAbsent( key, result );
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains an integer setting.
+	 *
+	 * @param key Setting key.
+	 * @param def Default value.
+	 *
+	 * @return The value of the setting is returned, or def if the setting does not exist or is not an integer.
+	 */
+	public int getInt( String key, int def ) {
+		String value = get( key, null );
+		if ( value == null ) {
+			return def;
+		}
+		try {
+			return Integer.parseInt( value );
+		} catch ( NumberFormatException e ) {
+			return def;
+		}
+	}
+
+	/**
+	 * Changes a setting.
+	 * The change is written to the preferences node in the background.
+	 *
+	 * @param key Setting key.
+	 * @param value New value.
+	 *
+	 * @throws NullPointerException if key or value is null.
+	 */
+	public void put( String key, String value ) {
+		if ( value.equals( values.put( key, value ) ) ) {
+			return;
+		}
+		synchronized ( this ) {
+			pending.put( key, value );
+			lastChange = System.nanoTime();
+			if ( !flushScheduled ) {
+				flushExecutor.schedule( flushTask, FLUSH_DELAY, TimeUnit.MILLISECONDS );
+				flushScheduled = true;
+			}
+		}
+	}
+
+	/**
+	 * Changes an integer setting.
+	 * The change is written to the preferences node in the background.
+	 *
+	 * @param key Setting key.
+	 * @param value New value.
+	 *
+	 * @throws NullPointerException if key is null.
+	 */
+	public void putInt( String key, int value ) {
+		put( key, Integer.toString( value ) );
+	}
+
+	/**
+	 * Writes all pending changes to the preferences node and its backing store.
+	 * The changes are put into the preferences node in the order they were made;
+	 * only writing the backing store happens without holding the lock of this store.
+	 * This method may block.
+	 */
+	public void flush() {
+		synchronized ( this ) {
+			if ( pending.isEmpty() ) {
+				return;
+			}
+			/* Put while holding the lock, so an older snapshot can never overwrite a newer one */
+			for ( Map.Entry<String, String> change: pending.entrySet() ) {
+				preferences.put( change.getKey(), change.getValue() );
+			}
+			pending.clear();
+		}
+		try {
+			preferences.flush();
+		} catch ( BackingStoreException e ) {
+			logger.error( __( ERROR_SETTINGS ), e );
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Card interner test.
+ */
+public class CardInternerTest {
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+	}
+
+	/**
+	 * Finds a card in a package.
+	 *
+	 * @param cardPackage Card package.
+	 * @param type Card type.
+	 * @param key Card text for text cards, or image name for image cards.
+	 *
+	 * @return The first card of the package with the specified content is returned.
+	 */
+	private static Card find( CardPackage cardPackage, Card.Type type, String key ) {
+		for ( int i = 0; i != cardPackage.size(); ++i ) {
+			CardPair pair = cardPackage.getPair( i );
+			for ( Card card: new Card[] { pair.getFirst(), pair.getSecond() } ) {
+				if ( card.getType() != type ) {
+					continue;
+				}
+				String cardKey = type == Card.Type.TEXT ? card.getText() : card.getImageResource().getName();
+				if ( key.equals( cardKey ) ) {
+					return card;
+				}
+			}
+		}
+		fail( "No card " + key + " in " + cardPackage.getKey() );
+		return null;
+	}
+
+	/**
+	 * Equal content in different packages yields the same card with the same ID.
+	 */
+	@Test public void sharedContentTest() {
+		CardPackage test = CardPackage.getShared( "test" );
+		CardPackage shared = CardPackage.getShared( "test-shared" );
+		for ( Card.Type type: Card.Type.values() ) {
+			Card card = find( test, type, "apple" );
+			assertSame( card, find( shared, type, "apple" ) );
+			assertEquals( CardInterner.getId( type, "apple" ), card.getId() );
+		}
+		assertSame( find( shared, Card.Type.TEXT, "apple" ), CardInterner.getTextCard( "apple" ) );
+		assertSame( find( shared, Card.Type.IMAGE, "apple" ), CardInterner.getImageCard( "apple" ) );
+		assertSame( CardInterner.getTextCard( new String( "fünf" ) ), CardInterner.getTextCard( "fünf" ) );
+	}
+
+	/**
+	 * Content IDs depend on the type and key only, and are stable across runs.
+	 */
+	@Test public void idTest() {
+		assertEquals( 0x86c82de7874af0f4L, CardInterner.getId( Card.Type.TEXT, "apple" ) );
+		assertEquals( 0xa55bbfe16d6790cfL, CardInterner.getId( Card.Type.IMAGE, "apple" ) );
+		assertEquals( CardInterner.getId( Card.Type.TEXT, "apple" ), CardInterner.getTextCard( "apple" ).getId() );
+		assertTrue( CardInterner.getTextCard( "apple" ).getId() != CardInterner.getImageCard( "apple" ).getId() );
+		assertNotSame( CardInterner.getTextCard( "apple" ), CardInterner.getImageCard( "apple" ) );
+		assertTrue( CardInterner.getId( Card.Type.TEXT, "x" ) != CardInterner.getId( Card.Type.TEXT, "y" ) );
+	}
+}
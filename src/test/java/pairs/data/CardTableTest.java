@@ -0,0 +1,130 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.util.Resources;
+
+import static org.junit.Assert.*;
+
+/**
+ * Card table test, checking a table against the package resource it was built from.
+ */
+public class CardTableTest {
+	/**
+	 * Package with text and image cards, and with a text used twice.
+	 */
+	private static final String PACKAGE_NAME = "test-shared";
+
+	/**
+	 * Pairs of the package resource.
+	 */
+	private static JsonNode pairs;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() throws Exception {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.configure( JsonParser.Feature.ALLOW_COMMENTS, true );
+		pairs = objectMapper.readTree( Resources.loadResourceAsString( "packages/" + PACKAGE_NAME + ".json" ) ).get( "pairs" );
+	}
+
+	/**
+	 * Checks a card against its source.
+	 *
+	 * @param source Card node of the package resource.
+	 * @param card Card.
+	 */
+	private static void assertCardEquals( JsonNode source, Card card ) {
+		Card.Type type = Card.Type.valueOf( source.get( "type" ).textValue() );
+		assertEquals( type, card.getType() );
+		switch ( type ) {
+			case IMAGE:
+				assertEquals( source.get( "image" ).textValue(), card.getImageResource().getName() );
+				assertEquals( CardInterner.getId( type, source.get( "image" ).textValue() ), card.getId() );
+				break;
+			case TEXT:
+				assertEquals( source.get( "value" ).textValue(), card.getText() );
+				assertEquals( CardInterner.getId( type, source.get( "value" ).textValue() ), card.getId() );
+				break;
+		}
+	}
+
+	/**
+	 * A table built from the package resource returns the types, texts, image names and IDs of the resource.
+	 */
+	@Test public void roundTripTest() {
+		CardTable cards = new CardTable();
+		for ( JsonNode pair: pairs ) {
+			for ( JsonNode card: pair ) {
+				if ( "IMAGE".equals( card.get( "type" ).textValue() ) ) {
+					cards.addImage( card.get( "image" ).textValue() );
+				} else {
+					cards.addText( card.get( "value" ).textValue() );
+				}
+			}
+		}
+		cards.trim();
+		assertEquals( 2 * pairs.size(), cards.size() );
+		for ( int i = 0; i != cards.size(); ++i ) {
+			JsonNode source = pairs.get( i / 2 ).get( i % 2 );
+			assertEquals( "Card " + i, Card.Type.valueOf( source.get( "type" ).textValue() ), cards.getType( i ) );
+			assertCardEquals( source, cards.getCard( i ) );
+			assertEquals( "Card " + i, cards.getCard( i ).getId(), cards.getId( i ) );
+		}
+		try {
+			cards.addText( "late" );
+			fail( "Card added to trimmed table" );
+		} catch ( IllegalStateException e ) {
+			// expected
+		}
+	}
+
+	/**
+	 * The pairs of a loaded package are those of the package resource, in order.
+	 */
+	@Test public void packageTest() {
+		CardPackage cardPackage = CardPackage.get( PACKAGE_NAME );
+		assertEquals( pairs.size(), cardPackage.size() );
+		for ( int i = 0; i != pairs.size(); ++i ) {
+			CardPair pair = cardPackage.getPair( i );
+			assertCardEquals( pairs.get( i ).get( 0 ), pair.getFirst() );
+			assertCardEquals( pairs.get( i ).get( 1 ), pair.getSecond() );
+		}
+		try {
+			cardPackage.getPair( pairs.size() );
+			fail( "Pair index out of bounds accepted" );
+		} catch ( IndexOutOfBoundsException e ) {
+			// expected
+		}
+	}
+}
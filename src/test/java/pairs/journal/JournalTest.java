@@ -0,0 +1,217 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.journal;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.data.CardPackage;
+
+import pairs.model.PlayfieldModel;
+
+import static org.junit.Assert.*;
+import static pairs.model.PlayfieldAssert.*;
+
+/**
+ * Game journal test, writing journals and replaying them.
+ */
+public class JournalTest {
+	/**
+	 * Playfield size.
+	 */
+	private static final int SIZE = 36;
+
+	/**
+	 * Layout seed.
+	 */
+	private static final long SEED = 1;
+
+	/**
+	 * Number of recorded picks, more than one sync batch. The game is not over by then.
+	 */
+	private static final int PICKS = 2 * JournalWriter.BATCH_SIZE + 1;
+
+	/**
+	 * Size of the journal header of the test package: magic number, seed, size, start time,
+	 * key "test", package size and fingerprint.
+	 */
+	private static final int HEADER_SIZE = 4 + 8 + 2 + 8 + 2 + 4 + 4 + 8;
+
+	/**
+	 * Timeout for file operations (ms).
+	 */
+	private static final long TIMEOUT = 10000;
+
+	/**
+	 * Card package.
+	 */
+	private static CardPackage cardPackage;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+		cardPackage = CardPackage.getShared( "test" );
+	}
+
+	/**
+	 * Records a game of random picks.
+	 *
+	 * @param path Path of the new journal file.
+	 * @param picks Array receiving the picked card indices.
+	 *
+	 * @return The playfield model of the recorded game is returned.
+	 */
+	private static PlayfieldModel record( Path path, int[] picks ) throws Exception {
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		JournalWriter journal = JournalWriter.create( path, cardPackage, playfieldModel );
+		SplittableRandom random = new SplittableRandom( SEED );
+		for ( int n = 0; n != picks.length; ++n ) {
+			picks[ n ] = random.nextInt( SIZE );
+			journal.recordPick( picks[ n ] );
+			playfieldModel.pickCard( picks[ n ] );
+		}
+		journal.close();
+		JournalWriter.awaitSync( TIMEOUT );
+		return playfieldModel;
+	}
+
+	/**
+	 * Checks the picks of a replay.
+	 *
+	 * @param expected Expected picks.
+	 * @param replay Replay.
+	 */
+	private static void assertPicksEqual( int[] expected, Replay replay ) {
+		assertEquals( expected.length, replay.getPickCount() );
+		for ( int n = 0; n != expected.length; ++n ) {
+			assertEquals( "Pick " + n, expected[ n ], replay.getPick( n ) );
+			if ( n != 0 ) {
+				assertTrue( replay.getPickTime( n - 1 ) <= replay.getPickTime( n ) );
+			}
+		}
+	}
+
+	/**
+	 * Overwrites part of a journal file.
+	 *
+	 * @param path Path of the journal file.
+	 * @param offset Offset of the first byte to overwrite.
+	 * @param data Replacement bytes.
+	 *
+	 * @throws IOException if the file cannot be rewritten.
+	 */
+	private static void overwrite( Path path, int offset, byte... data ) throws IOException {
+		byte[] journal = Files.readAllBytes( path );
+		System.arraycopy( data, 0, journal, offset, data.length );
+		Files.write( path, journal );
+	}
+
+	/**
+	 * A replay rebuilds the exact state of the recorded game.
+	 */
+	@Test public void replayTest() throws Exception {
+		Path path = Files.createTempDirectory( "journal" ).resolve( "game" + JournalConstants.EXTENSION );
+		int[] picks = new int[ PICKS ];
+		PlayfieldModel recorded = record( path, picks );
+		assertFalse( recorded.isAllWon() );
+
+		Replay replay = Replay.open( path );
+		assertEquals( "test", replay.getPackageKey() );
+		assertEquals( SEED, replay.getSeed() );
+		assertEquals( SIZE, replay.getSize() );
+		assertPicksEqual( picks, replay );
+		assertPlayfieldEquals( recorded, replay.replay() );
+	}
+
+	/**
+	 * A torn record at the end of a journal is ignored, and the complete records before it are kept.
+	 */
+	@Test public void tornTailTest() throws Exception {
+		Path path = Files.createTempDirectory( "journal" ).resolve( "game" + JournalConstants.EXTENSION );
+		int[] picks = new int[ PICKS ];
+		record( path, picks );
+		byte[] journal = Files.readAllBytes( path );
+
+		Files.write( path, Arrays.copyOf( journal, journal.length - 1 ) );
+		Replay replay = Replay.open( path );
+		int[] prefix = Arrays.copyOf( picks, PICKS - 1 );
+		assertPicksEqual( prefix, replay );
+		PlayfieldModel expected = new PlayfieldModel( cardPackage, SIZE, SEED );
+		for ( int pick: prefix ) {
+			expected.pickCard( pick );
+		}
+		assertPlayfieldEquals( expected, replay.replay() );
+
+		Files.write( path, Arrays.copyOf( journal, HEADER_SIZE ) );
+		assertEquals( 0, Replay.open( path ).getPickCount() );
+
+		Files.write( path, Arrays.copyOf( journal, HEADER_SIZE - 1 ) );
+		try {
+			Replay.open( path );
+			fail( "Truncated header accepted" );
+		} catch ( IOException e ) {
+			// expected
+		}
+	}
+
+	/**
+	 * A journal is refused if its package has changed since the game was recorded.
+	 */
+	@Test public void changedPackageTest() throws Exception {
+		Path path = Files.createTempDirectory( "journal" ).resolve( "game" + JournalConstants.EXTENSION );
+		record( path, new int[ PICKS ] );
+		byte[] journal = Files.readAllBytes( path );
+		int fingerprintOffset = HEADER_SIZE - 8;
+		int sizeOffset = fingerprintOffset - 4;
+
+		overwrite( path, fingerprintOffset, (byte) ~journal[ fingerprintOffset ] );
+		try {
+			Replay.open( path ).replay();
+			fail( "Changed package contents accepted" );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+
+		Files.write( path, journal );
+		overwrite( path, sizeOffset + 3, (byte) ( journal[ sizeOffset + 3 ] + 1 ) );
+		try {
+			Replay.open( path ).replay();
+			fail( "Changed package size accepted" );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+
+		Files.write( path, journal );
+		Replay.open( path ).replay();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Metrics test.
+ */
+public class MetricsTest {
+	/**
+	 * Histograms bucket values by powers of two.
+	 */
+	@Test public void histogramTest() {
+		Histogram histogram = new Histogram();
+		assertEquals( 0, histogram.getCount() );
+		assertEquals( 0, histogram.getPercentile50() );
+		for ( int i = 1; i <= 100; ++i ) {
+			histogram.record( i );
+		}
+		assertEquals( 100, histogram.getCount() );
+		assertEquals( 50.5, histogram.getMean(), 1e-9 );
+		assertEquals( 100, histogram.getMax() );
+		assertEquals( 63, histogram.getPercentile50() );
+		assertEquals( 100, histogram.getPercentile99() );
+		histogram.record( -1 );
+		assertEquals( 101, histogram.getCount() );
+		histogram.reset();
+		assertEquals( 0, histogram.getCount() );
+		assertEquals( 0, histogram.getMax() );
+	}
+
+	/**
+	 * Metrics are shared by name and exported via JMX.
+	 */
+	@Test public void registryTest() throws Exception {
+		Counter counter = Metrics.counter( "test.counter" );
+		assertSame( counter, Metrics.counter( "test.counter" ) );
+		counter.increment();
+		counter.add( 2 );
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName( Metrics.DOMAIN + ":type=Counter,name=" + ObjectName.quote( "test.counter" ) );
+		assertEquals( 3L, server.getAttribute( name, "Count" ) );
+
+		Histogram histogram = Metrics.histogram( "test.histogram" );
+		assertSame( histogram, Metrics.histogram( "test.histogram" ) );
+		histogram.record( 5 );
+		name = new ObjectName( Metrics.DOMAIN + ":type=Histogram,name=" + ObjectName.quote( "test.histogram" ) );
+		assertEquals( 1L, server.getAttribute( name, "Count" ) );
+		assertEquals( 5L, server.getAttribute( name, "Max" ) );
+	}
+}
@@ -0,0 +1,148 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.SplittableRandom;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.data.CardPackage;
+
+import pairs.util.Allocations;
+
+import static org.junit.Assert.*;
+
+/**
+ * Computer player test, including the allocation budget of playing.
+ */
+public class ComputerPlayerTest {
+	/**
+	 * Playfield size.
+	 */
+	private static final int SIZE = 144;
+
+	/**
+	 * Layout seed.
+	 */
+	private static final long SEED = 1;
+
+	/**
+	 * Seed of the players' randomness source.
+	 */
+	private static final long PLAYER_SEED = 2;
+
+	/**
+	 * Card package.
+	 */
+	private static CardPackage cardPackage;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+		cardPackage = CardPackage.getShared( "test" );
+	}
+
+	/**
+	 * Plays a whole game.
+	 *
+	 * @param memorySize Maximum number of remembered cards.
+	 * @param recall Probability of recalling a remembered card.
+	 *
+	 * @return The playfield model of the won game is returned.
+	 */
+	private static PlayfieldModel play( int memorySize, double recall ) {
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		ComputerPlayer player = new ComputerPlayer( playfieldModel, memorySize, recall, new SplittableRandom( PLAYER_SEED ) );
+		while ( !playfieldModel.isAllWon() ) {
+			player.playTurn();
+		}
+		return playfieldModel;
+	}
+
+	/**
+	 * A player with perfect recall fails fewer picks than a player without memory.
+	 */
+	@Test public void recallTest() {
+		PlayfieldModel perfect = play( SIZE, 1 );
+		PlayfieldModel forgetful = play( 0, 1 );
+		assertTrue( perfect.isAllWon() );
+		assertTrue( forgetful.isAllWon() );
+		assertTrue( perfect.failedPicks() + " failed picks with perfect recall, " + forgetful.failedPicks() + " without memory",
+				perfect.failedPicks() < forgetful.failedPicks() );
+	}
+
+	/**
+	 * Invalid memory sizes and recall probabilities are rejected.
+	 */
+	@Test public void argumentTest() {
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		try {
+			new ComputerPlayer( playfieldModel, -1, 1, new SplittableRandom( PLAYER_SEED ) );
+			fail( "Negative memory size accepted" );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+		try {
+			new ComputerPlayer( playfieldModel, 0, 1.5, new SplittableRandom( PLAYER_SEED ) );
+			fail( "Recall probability greater than 1 accepted" );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+		try {
+			new ComputerPlayer( playfieldModel, 0, Double.NaN, new SplittableRandom( PLAYER_SEED ) );
+			fail( "NaN recall probability accepted" );
+		} catch ( IllegalArgumentException e ) {
+			// expected
+		}
+	}
+
+	/**
+	 * Playing turns does not allocate.
+	 */
+	@Test public void playTurnAllocationTest() {
+		final int games = 20;
+		final PlayfieldModel[] playfieldModels = new PlayfieldModel[ 2 * games ];
+		final ComputerPlayer[] players = new ComputerPlayer[ 2 * games ];
+		for ( int i = 0; i != playfieldModels.length; ++i ) {
+			playfieldModels[ i ] = new PlayfieldModel( cardPackage, SIZE, SEED );
+			players[ i ] = new ComputerPlayer( playfieldModels[ i ], SIZE / 4, 0.8, new SplittableRandom( PLAYER_SEED + i ) );
+		}
+		Allocations.assertBudget( "Computer player game", new Runnable() {
+			private int game = 0;
+
+			public void run() {
+				PlayfieldModel playfieldModel = playfieldModels[ game ];
+				ComputerPlayer player = players[ game++ ];
+				while ( !playfieldModel.isAllWon() ) {
+					player.playTurn();
+				}
+			}
+		}, games, 0 );
+		for ( PlayfieldModel playfieldModel: playfieldModels ) {
+			assertTrue( playfieldModel.isAllWon() );
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Game clock test.
+ */
+public class GameClockTest {
+	/**
+	 * Time spent paused or stopped (ms).
+	 */
+	private static final long IDLE = 200;
+
+	/**
+	 * Paused time is not counted, and the elapsed time is frozen while paused.
+	 */
+	@Test public void pauseTest() throws Exception {
+		GameClock gameClock = new GameClock();
+		gameClock.pause();
+		assertFalse( gameClock.isPaused() );
+		gameClock.start();
+		Thread.sleep( 10 );
+		gameClock.pause();
+		assertTrue( gameClock.isPaused() );
+		assertTrue( gameClock.isRunning() );
+		long paused = gameClock.getElapsedNanos();
+		assertTrue( paused >= TimeUnit.MILLISECONDS.toNanos( 10 ) );
+		Thread.sleep( IDLE );
+		assertEquals( paused, gameClock.getElapsedNanos() );
+		gameClock.resume();
+		assertFalse( gameClock.isPaused() );
+		long resumed = gameClock.split();
+		assertTrue( resumed >= paused );
+		assertTrue( resumed - paused < TimeUnit.MILLISECONDS.toNanos( IDLE ) );
+		assertEquals( resumed, gameClock.getSplit( 0 ) );
+	}
+
+	/**
+	 * Stopping freezes the elapsed time, and no splits are recorded afterwards.
+	 */
+	@Test public void stopTest() throws Exception {
+		GameClock gameClock = new GameClock();
+		gameClock.start();
+		Thread.sleep( 10 );
+		gameClock.split();
+		gameClock.stop();
+		assertFalse( gameClock.isRunning() );
+		long stopped = gameClock.getElapsedNanos();
+		Thread.sleep( IDLE );
+		assertEquals( stopped, gameClock.getElapsedNanos() );
+		assertEquals( stopped, gameClock.split() );
+		assertEquals( 1, gameClock.getSplitCount() );
+		gameClock.resume();
+		assertEquals( stopped, gameClock.getElapsedNanos() );
+	}
+
+	/**
+	 * Starting discards the splits and restarts the elapsed time from zero.
+	 */
+	@Test public void startTest() throws Exception {
+		GameClock gameClock = new GameClock();
+		gameClock.start();
+		gameClock.split();
+		Thread.sleep( 10 );
+		gameClock.split();
+		assertEquals( 2, gameClock.getSplitCount() );
+		assertTrue( gameClock.getSplit( 0 ) < gameClock.getSplit( 1 ) );
+		Thread.sleep( IDLE );
+		gameClock.start();
+		assertEquals( 0, gameClock.getSplitCount() );
+		assertTrue( gameClock.getElapsedNanos() < TimeUnit.MILLISECONDS.toNanos( IDLE ) );
+		try {
+			gameClock.getSplit( 0 );
+			fail( "Discarded split returned" );
+		} catch ( IndexOutOfBoundsException e ) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import static org.junit.Assert.*;
+
+/**
+ * Playfield model assertions for tests in other packages.
+ */
+public class PlayfieldAssert {
+	/**
+	 * Checks that two playfield models are in the same state.
+	 * Cards, shown and won flags, the picked card, partners and the number of failed picks are compared.
+	 *
+	 * @param expected Expected playfield model.
+	 * @param actual Actual playfield model.
+	 */
+	public static void assertPlayfieldEquals( PlayfieldModel expected, PlayfieldModel actual ) {
+		assertEquals( expected.getSize(), actual.getSize() );
+		for ( int i = 0; i != expected.getSize(); ++i ) {
+			assertSame( "Card " + i, expected.getCard( i ), actual.getCard( i ) );
+			assertEquals( "Card " + i + " shown", expected.isShown( i ), actual.isShown( i ) );
+			assertEquals( "Card " + i + " won", expected.isWon( i ), actual.isWon( i ) );
+			assertEquals( "Partner of card " + i, expected.getPartnerIndex( i ), actual.getPartnerIndex( i ) );
+		}
+		assertEquals( expected.getPickedCardIndex(), actual.getPickedCardIndex() );
+		assertEquals( expected.cardPairsLeft(), actual.cardPairsLeft() );
+		assertEquals( expected.failedPicks(), actual.failedPicks() );
+	}
+}
@@ -0,0 +1,216 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.data.Card;
+import pairs.data.CardPackage;
+
+import pairs.util.Allocations;
+
+import static org.junit.Assert.*;
+
+/**
+ * Playfield model test, including allocation budgets of picking.
+ */
+public class PlayfieldModelTest {
+	/**
+	 * Playfield size.
+	 */
+	private static final int SIZE = 16;
+
+	/**
+	 * Layout seed.
+	 */
+	private static final long SEED = 1;
+
+	/**
+	 * Card package.
+	 */
+	private static CardPackage cardPackage;
+
+	/**
+	 * Partner of each card in the layout created from {@link #SEED}.
+	 */
+	private static int[] partners;
+
+	/**
+	 * Global test setup.
+	 * Finds the pairs by trial: a failed pick leaves the playfield unchanged except for the failed pick count.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+		cardPackage = CardPackage.getShared( "test" );
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		partners = new int[ SIZE ];
+		for ( int i = 0; i != SIZE; ++i ) {
+			for ( int j = i + 1; ( j != SIZE ) && !playfieldModel.isWon( i ); ++j ) {
+				if ( playfieldModel.isWon( j ) ) {
+					continue;
+				}
+				playfieldModel.pickCard( i );
+				playfieldModel.pickCard( j );
+				if ( playfieldModel.isWon( i ) ) {
+					partners[ i ] = j;
+					partners[ j ] = i;
+				}
+			}
+		}
+		assertTrue( playfieldModel.isAllWon() );
+	}
+
+	/**
+	 * Listener counting notifications.
+	 */
+	private static class CountingListener implements PlayfieldChangeListener {
+		/**
+		 * Number of notifications.
+		 */
+		int count;
+
+		public void playfieldChanged( PlayfieldModel playfieldModel, int i, ChangeType type ) {
+			++count;
+		}
+	}
+
+	/**
+	 * Picking a whole game wins it without failed picks.
+	 */
+	@Test public void gameTest() {
+		PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		CountingListener listener = new CountingListener();
+		playfieldModel.addChangeListener( listener );
+		for ( int i = 0; i != SIZE; ++i ) {
+			if ( !playfieldModel.isWon( i ) ) {
+				playfieldModel.pickCard( i );
+				assertTrue( playfieldModel.isShown( i ) );
+				playfieldModel.pickCard( partners[ i ] );
+			}
+		}
+		assertTrue( playfieldModel.isAllWon() );
+		assertEquals( 0, playfieldModel.failedPicks() );
+		assertEquals( SIZE / 2 * 3 + 1, listener.count );
+	}
+
+	/**
+	 * Failed picks do not allocate.
+	 */
+	@Test public void mismatchAllocationTest() {
+		final PlayfieldModel playfieldModel = new PlayfieldModel( cardPackage, SIZE, SEED );
+		playfieldModel.addChangeListener( new CountingListener() );
+		playfieldModel.addChangeListener( new CountingListener() );
+		final int mismatch = partners[ 0 ] == 1 ? 2 : 1;
+		Allocations.assertBudget( "Failed pick", new Runnable() {
+			public void run() {
+				playfieldModel.pickCard( 0 );
+				playfieldModel.pickCard( mismatch );
+			}
+		}, 10000, 0 );
+		assertEquals( 2 * 10000, playfieldModel.failedPicks() );
+	}
+
+	/**
+	 * Successful picks do not allocate.
+	 */
+	@Test public void matchAllocationTest() {
+		final int games = 200;
+		final PlayfieldModel[] playfieldModels = new PlayfieldModel[ 2 * games ];
+		for ( int i = 0; i != playfieldModels.length; ++i ) {
+			playfieldModels[ i ] = new PlayfieldModel( cardPackage, SIZE, SEED );
+			playfieldModels[ i ].addChangeListener( new CountingListener() );
+		}
+		Allocations.assertBudget( "Successful pick", new Runnable() {
+			private int game = 0;
+
+			public void run() {
+				PlayfieldModel playfieldModel = playfieldModels[ game++ ];
+				for ( int i = 0; i != SIZE; ++i ) {
+					if ( !playfieldModel.isWon( i ) ) {
+						playfieldModel.pickCard( i );
+						playfieldModel.pickCard( partners[ i ] );
+					}
+				}
+			}
+		}, games, 0 );
+		for ( PlayfieldModel playfieldModel: playfieldModels ) {
+			assertTrue( playfieldModel.isAllWon() );
+		}
+	}
+
+	/**
+	 * Finds a text card.
+	 *
+	 * @param playfieldModel Playfield model.
+	 * @param text Card text.
+	 * @param skip Index of a card to skip, or -1.
+	 *
+	 * @return The index of the first card with the specified text, other than skip, is returned.
+	 */
+	private static int find( PlayfieldModel playfieldModel, String text, int skip ) {
+		for ( int i = 0; i != playfieldModel.getSize(); ++i ) {
+			Card card = playfieldModel.getCard( i );
+			if ( ( i != skip ) && ( card.getType() == Card.Type.TEXT ) && text.equals( card.getText() ) ) {
+				return i;
+			}
+		}
+		fail( "No card " + text );
+		return -1;
+	}
+
+	/**
+	 * A card matches equal content from another pair, and the leftover cards then form a pair.
+	 * The package has the pairs x/y and z/y; x is picked together with the y of the other pair.
+	 */
+	@Test public void sharedContentTest() {
+		for ( String first: new String[] { "x", "z" } ) {
+			PlayfieldModel playfieldModel = new PlayfieldModel( CardPackage.getShared( "test-shared" ), 8, SEED );
+			int x = find( playfieldModel, first, -1 );
+			int y = playfieldModel.getPartnerIndex( x );
+			int otherY = find( playfieldModel, "y", y );
+			int z = playfieldModel.getPartnerIndex( otherY );
+			assertEquals( "x".equals( first ) ? "z" : "x", playfieldModel.getCard( z ).getText() );
+
+			playfieldModel.pickCard( x );
+			playfieldModel.pickCard( otherY );
+			assertTrue( playfieldModel.isWon( x ) );
+			assertTrue( playfieldModel.isWon( otherY ) );
+			assertEquals( otherY, playfieldModel.getPartnerIndex( x ) );
+			assertEquals( y, playfieldModel.getPartnerIndex( z ) );
+			assertEquals( z, playfieldModel.getPartnerIndex( y ) );
+
+			playfieldModel.pickCard( z );
+			playfieldModel.pickCard( y );
+			assertTrue( playfieldModel.isWon( z ) );
+			for ( int i = 0; i != playfieldModel.getSize(); ++i ) {
+				if ( !playfieldModel.isWon( i ) ) {
+					playfieldModel.pickCard( i );
+					playfieldModel.pickCard( playfieldModel.getPartnerIndex( i ) );
+				}
+			}
+			assertTrue( playfieldModel.isAllWon() );
+			assertEquals( 0, playfieldModel.failedPicks() );
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.model;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Session manager and game session test.
+ */
+public class SessionManagerTest {
+	/**
+	 * Playfield size.
+	 */
+	private static final int SIZE = 16;
+
+	/**
+	 * Idle timeout (ms).
+	 */
+	private static final long IDLE_TIMEOUT = 50;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+	}
+
+	/**
+	 * Idle sessions expire and can no longer be looked up.
+	 */
+	@Test public void expiryTest() throws Exception {
+		SessionManager sessionManager = new SessionManager( 2, IDLE_TIMEOUT, TimeUnit.MILLISECONDS );
+		try {
+			GameSession session = sessionManager.createSession( "test", SIZE );
+			assertSame( session, sessionManager.getSession( session.getId() ) );
+			assertEquals( 1, sessionManager.size() );
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+			while ( ( sessionManager.size() != 0 ) && ( System.nanoTime() < deadline ) ) {
+				Thread.sleep( IDLE_TIMEOUT );
+			}
+			assertNull( sessionManager.getSession( session.getId() ) );
+			assertEquals( 0, sessionManager.size() );
+			assertEquals( 0, sessionManager.expireIdleSessions() );
+		} finally {
+			sessionManager.shutdown();
+		}
+	}
+
+	/**
+	 * All sessions on the same package share one card package instance.
+	 */
+	@Test public void sharedPackageTest() {
+		SessionManager sessionManager = new SessionManager( 2, 1, TimeUnit.HOURS );
+		try {
+			GameSession first = sessionManager.createSession( "test", SIZE );
+			GameSession second = sessionManager.createSession( "test", SIZE );
+			assertTrue( first.getId() != second.getId() );
+			assertSame( first.getPlayfieldModel().getCardPackage(), second.getPlayfieldModel().getCardPackage() );
+		} finally {
+			sessionManager.shutdown();
+		}
+	}
+
+	/**
+	 * Picks submitted to a session are applied on its event loop in order.
+	 */
+	@Test public void pickTest() throws Exception {
+		SessionManager sessionManager = new SessionManager( 2, 1, TimeUnit.HOURS );
+		try {
+			final GameSession session = sessionManager.createSession( "test", SIZE );
+			session.pickCard( 0 );
+			int picked = session.submit( new Callable<Integer>() {
+				public Integer call() {
+					return session.getPlayfieldModel().getPickedCardIndex();
+				}
+			} ).get();
+			assertEquals( 0, picked );
+			assertTrue( sessionManager.removeSession( session.getId() ) );
+			assertFalse( sessionManager.removeSession( session.getId() ) );
+		} finally {
+			sessionManager.shutdown();
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.model.PlayfieldChangeListener.ChangeType;
+
+import static org.junit.Assert.*;
+
+import static pairs.net.ProtocolConstants.*;
+
+/**
+ * Game server test over the loopback interface.
+ */
+public class GameServerTest {
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+	}
+
+	/**
+	 * Server under test.
+	 */
+	private GameServer server;
+
+	/**
+	 * Client socket.
+	 */
+	private Socket socket;
+
+	/**
+	 * Client input.
+	 */
+	private DataInputStream in;
+
+	/**
+	 * Starts the server and connects a client.
+	 */
+	@Before public void connect() throws IOException {
+		server = new GameServer( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ) );
+		server.start();
+		socket = new Socket( InetAddress.getLoopbackAddress(), server.getLocalAddress().getPort() );
+		in = new DataInputStream( socket.getInputStream() );
+	}
+
+	/**
+	 * Disconnects the client and stops the server.
+	 */
+	@After public void disconnect() throws IOException {
+		socket.close();
+		server.close();
+	}
+
+	/**
+	 * Sends client frames in a single write.
+	 *
+	 * @param frames Frame bodies.
+	 */
+	private void send( byte[]... frames ) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( buffer );
+		for ( byte[] frame: frames ) {
+			out.writeShort( frame.length );
+			out.write( frame );
+		}
+		socket.getOutputStream().write( buffer.toByteArray() );
+	}
+
+	/**
+	 * Creates a new game frame body.
+	 */
+	private static byte[] newGame( int sizeHint, String packageName ) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( buffer );
+		out.writeByte( FRAME_NEW_GAME );
+		out.writeShort( sizeHint );
+		out.writeUTF( packageName ); // same encoding as the protocol for ASCII names
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Creates a pick frame body.
+	 */
+	private static byte[] pick( int i ) {
+		return new byte[] { FRAME_PICK, (byte) ( i >> 8 ), (byte) i };
+	}
+
+	/**
+	 * Reads a frame and checks its type.
+	 *
+	 * @return The frame body after the type is returned.
+	 */
+	private DataInputStream expect( byte type ) throws IOException {
+		byte[] body = new byte[ in.readUnsignedShort() ];
+		in.readFully( body );
+		assertEquals( type, body[ 0 ] );
+		DataInputStream result = new DataInputStream( new java.io.ByteArrayInputStream( body ) );
+		result.readByte();
+		return result;
+	}
+
+	/**
+	 * Plays a one-pair game with pipelined commands.
+	 */
+	@Test public void pipelinedGameTest() throws IOException {
+		send( newGame( 2, "test" ), pick( 0 ), pick( 1 ) );
+		DataInputStream frame = expect( FRAME_GAME_STARTED );
+		assertEquals( 2, frame.readUnsignedShort() );
+		for ( int i = 0; i != 2; ++i ) {
+			frame = expect( FRAME_STATE_DELTA );
+			assertEquals( i, frame.readUnsignedShort() );
+			assertEquals( ChangeType.CARD_SHOWN.ordinal(), frame.readUnsignedByte() );
+			frame.readUnsignedByte();
+			assertTrue( frame.readUTF().length() > 0 );
+		}
+		for ( int i = 0; i != 2; ++i ) {
+			frame = expect( FRAME_STATE_DELTA );
+			frame.readUnsignedShort();
+			assertEquals( ChangeType.CARD_REMOVED.ordinal(), frame.readUnsignedByte() );
+		}
+		assertEquals( 0, expect( FRAME_GAME_WON ).readInt() );
+	}
+
+	/**
+	 * Error frames test.
+	 */
+	@Test public void errorTest() throws IOException {
+		send( pick( 0 ), newGame( 2, "nonexistent" ), newGame( 2, "test" ), pick( 2 ) );
+		assertEquals( ERROR_NO_GAME, expect( FRAME_ERROR ).readByte() );
+		assertEquals( ERROR_UNKNOWN_PACKAGE, expect( FRAME_ERROR ).readByte() );
+		expect( FRAME_GAME_STARTED );
+		assertEquals( ERROR_BAD_INDEX, expect( FRAME_ERROR ).readByte() );
+	}
+
+	/**
+	 * A playfield larger than the package is refused without affecting the server.
+	 */
+	@Test public void packageTooSmallTest() throws IOException {
+		send( newGame( 144, "test-small" ) );
+		assertEquals( ERROR_PACKAGE_TOO_SMALL, expect( FRAME_ERROR ).readByte() );
+		send( newGame( 2, "test" ) );
+		assertEquals( 2, expect( FRAME_GAME_STARTED ).readUnsignedShort() );
+
+		Socket other = new Socket( InetAddress.getLoopbackAddress(), server.getLocalAddress().getPort() );
+		try {
+			DataOutputStream out = new DataOutputStream( other.getOutputStream() );
+			byte[] frame = newGame( 2, "test" );
+			out.writeShort( frame.length );
+			out.write( frame );
+			DataInputStream otherIn = new DataInputStream( other.getInputStream() );
+			otherIn.readUnsignedShort();
+			assertEquals( FRAME_GAME_STARTED, otherIn.readByte() );
+		} finally {
+			other.close();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.sim;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.data.CardPackage;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulator test, checking that results depend only on the seed.
+ */
+public class SimulatorTest {
+	/**
+	 * Playfield size.
+	 */
+	private static final int SIZE = 16;
+
+	/**
+	 * Number of games per simulation, enough to split the work into several tasks.
+	 */
+	private static final long GAMES = 1000;
+
+	/**
+	 * Simulation seed.
+	 */
+	private static final long SEED = 1;
+
+	/**
+	 * Playing strategy with imperfect memory, so that the player's randomness matters.
+	 */
+	private static final Strategy STRATEGY = new MemoryStrategy( "test", 8, 0.7 );
+
+	/**
+	 * Card package.
+	 */
+	private static CardPackage cardPackage;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+		cardPackage = CardPackage.getShared( "test" );
+	}
+
+	/**
+	 * Runs a simulation on a new simulator.
+	 *
+	 * @param parallelism Number of worker threads.
+	 * @param seed Simulation seed.
+	 *
+	 * @return The distribution of failed picks is returned.
+	 */
+	private static Distribution simulate( int parallelism, long seed ) {
+		Simulator simulator = new Simulator( parallelism );
+		try {
+			return simulator.simulate( cardPackage, SIZE, STRATEGY, GAMES, seed );
+		} finally {
+			simulator.shutdown();
+		}
+	}
+
+	/**
+	 * Checks that two distributions are equal.
+	 *
+	 * @param expected Expected distribution.
+	 * @param actual Actual distribution.
+	 */
+	private static void assertDistributionEquals( Distribution expected, Distribution actual ) {
+		assertEquals( expected.getCount(), actual.getCount() );
+		assertEquals( expected.getMax(), actual.getMax() );
+		assertEquals( expected.getMean(), actual.getMean(), 0 );
+		assertEquals( expected.getStandardDeviation(), actual.getStandardDeviation(), 0 );
+		for ( int p = 0; p <= 100; ++p ) {
+			assertEquals( "Percentile " + p, expected.getPercentile( p ), actual.getPercentile( p ) );
+		}
+	}
+
+	/**
+	 * Equal seeds and parallelism yield equal distributions.
+	 */
+	@Test public void reproducibilityTest() {
+		Distribution first = simulate( 4, SEED );
+		assertEquals( GAMES, first.getCount() );
+		assertDistributionEquals( first, simulate( 4, SEED ) );
+	}
+
+	/**
+	 * The distribution does not depend on the number of worker threads.
+	 */
+	@Test public void parallelismTest() {
+		assertDistributionEquals( simulate( 1, SEED ), simulate( 3, SEED ) );
+	}
+
+	/**
+	 * Different seeds yield different games.
+	 */
+	@Test public void seedTest() {
+		Distribution first = simulate( 2, SEED );
+		Distribution second = simulate( 2, SEED + 1 );
+		assertTrue( ( first.getMean() != second.getMean() ) || ( first.getStandardDeviation() != second.getStandardDeviation() ) );
+	}
+}
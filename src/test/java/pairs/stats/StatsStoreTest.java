@@ -0,0 +1,123 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.stats;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Statistics store test.
+ */
+public class StatsStoreTest implements StatsConstants {
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+	}
+
+	/**
+	 * Records some results.
+	 *
+	 * @param store Statistics store.
+	 * @param count Number of results.
+	 */
+	private static void recordResults( StatsStore store, int count ) throws Exception {
+		for ( int i = 0; i != count; ++i ) {
+			store.record( new GameResult( "player" + ( i % 3 ), "test", 16, ( 7 * i ) % 10, 1000 + i, i ) ).get();
+		}
+	}
+
+	/**
+	 * Results survive reopening, and leaderboards are ordered.
+	 */
+	@Test public void reopenTest() throws Exception {
+		Path directory = Files.createTempDirectory( "stats" );
+		StatsStore store = new StatsStore( directory );
+		recordResults( store, 20 );
+		store.close();
+
+		store = new StatsStore( directory );
+		assertEquals( 20, store.getCount( "test", 16 ) );
+		assertEquals( 0, store.getCount( "test", 24 ) );
+		List<GameResult> top = store.getTop( "test", 16, 3 );
+		assertEquals( 3, top.size() );
+		assertEquals( 0, top.get( 0 ).getFailedPicks() );
+		assertTrue( top.get( 0 ).getElapsedTime() < top.get( 1 ).getElapsedTime() );
+		assertEquals( 1, store.getRank( top.get( 0 ) ) );
+		assertEquals( 21, store.getRank( new GameResult( "nobody", "test", 16, 100, 0, 0 ) ) );
+		assertEquals( 0, store.getPersonalBest( "player0", "test", 16 ).getFailedPicks() );
+		assertNull( store.getPersonalBest( "nobody", "test", 16 ) );
+		store.close();
+	}
+
+	/**
+	 * A torn log tail is discarded.
+	 */
+	@Test public void tornTailTest() throws Exception {
+		Path directory = Files.createTempDirectory( "stats" );
+		StatsStore store = new StatsStore( directory );
+		recordResults( store, 5 );
+		store.close();
+		Path log = directory.resolve( LOG_NAME );
+		long length = Files.size( log );
+		Files.write( log, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND );
+
+		store = new StatsStore( directory );
+		assertEquals( 5, store.getCount( "test", 16 ) );
+		recordResults( store, 1 );
+		store.close();
+		assertTrue( Files.size( log ) > length );
+
+		store = new StatsStore( directory );
+		assertEquals( 6, store.getCount( "test", 16 ) );
+		store.close();
+	}
+
+	/**
+	 * Compaction keeps all results and empties the log.
+	 */
+	@Test public void compactionTest() throws Exception {
+		Path directory = Files.createTempDirectory( "stats" );
+		StatsStore store = new StatsStore( directory );
+		recordResults( store, 10 );
+		store.compact().get();
+		recordResults( store, 2 );
+		store.close();
+		assertTrue( Files.exists( directory.resolve( SNAPSHOT_NAME ) ) );
+
+		store = new StatsStore( directory );
+		assertEquals( 12, store.getCount( "test", 16 ) );
+		store.close();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.tools;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SVG optimizer test.
+ */
+public class SvgOptimizerTest {
+	/**
+	 * Optimizes an SVG document.
+	 *
+	 * @param svg SVG document text.
+	 *
+	 * @return The text of the optimized document is returned.
+	 *
+	 * @throws IOException if the document cannot be parsed.
+	 */
+	private static String optimize( String svg ) throws IOException {
+		byte[] data = svg.getBytes( StandardCharsets.UTF_8 );
+		return new String( new SvgOptimizer( 2 ).optimize( data ), StandardCharsets.UTF_8 );
+	}
+
+	/**
+	 * Numbers are rounded without merging adjacent numbers.
+	 */
+	@Test public void roundTest() {
+		assertEquals( "M1.04 0.5L0,0", SvgOptimizer.roundNumbers( "M1.04.5L-0.00001,2e-3", 2 ) );
+		assertEquals( "2 0.5", SvgOptimizer.roundNumbers( "1.9996.5", 2 ) );
+		assertEquals( "translate(-0.5,12)", SvgOptimizer.roundNumbers( "translate(-0.4999,12)", 2 ) );
+		assertEquals( "50%", SvgOptimizer.roundNumbers( "50%", 2 ) );
+	}
+
+	/**
+	 * Editor metadata and comments are stripped.
+	 */
+	@Test public void metadataTest() throws IOException {
+		String result = optimize( "<svg xmlns=\"http://www.w3.org/2000/svg\""
+				+ " xmlns:inkscape=\"http://www.inkscape.org/namespaces/inkscape\""
+				+ " xmlns:sodipodi=\"http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd\">"
+				+ "<!-- comment --><metadata><foo/></metadata><sodipodi:namedview/>"
+				+ "<rect inkscape:label=\"box\" width=\"1.23456\" height=\"2\"/></svg>" );
+		assertFalse( result.contains( "inkscape" ) );
+		assertFalse( result.contains( "sodipodi" ) );
+		assertFalse( result.contains( "metadata" ) );
+		assertFalse( result.contains( "comment" ) );
+		assertTrue( result.contains( "width=\"1.23\"" ) );
+	}
+
+	/**
+	 * Unreferenced definitions are removed, also when only referenced by other unreferenced definitions.
+	 */
+	@Test public void definitionsTest() throws IOException {
+		String result = optimize( "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"><defs>"
+				+ "<linearGradient id=\"used\"/><linearGradient id=\"base\"/>"
+				+ "<linearGradient id=\"unused\" xlink:href=\"#base\"/></defs>"
+				+ "<rect fill=\"url(#used)\" width=\"1\" height=\"1\"/></svg>" );
+		assertTrue( result.contains( "id=\"used\"" ) );
+		assertFalse( result.contains( "id=\"unused\"" ) );
+		assertFalse( result.contains( "id=\"base\"" ) );
+
+		result = optimize( "<svg xmlns=\"http://www.w3.org/2000/svg\"><defs><linearGradient id=\"unused\"/></defs></svg>" );
+		assertFalse( result.contains( "defs" ) );
+	}
+
+	/**
+	 * Redundant groups are collapsed, and groups with presentation attributes or referenced IDs are kept.
+	 */
+	@Test public void groupTest() throws IOException {
+		String result = optimize( "<svg xmlns=\"http://www.w3.org/2000/svg\"><g id=\"layer1\"><g transform=\"scale(2)\">"
+				+ "<rect transform=\"rotate(45)\" width=\"1\" height=\"1\"/></g></g></svg>" );
+		assertFalse( result.contains( "<g" ) );
+		assertTrue( result.contains( "transform=\"scale(2) rotate(45)\"" ) );
+
+		result = optimize( "<svg xmlns=\"http://www.w3.org/2000/svg\"><g fill=\"red\"><rect width=\"1\" height=\"1\"/></g>"
+				+ "<g transform=\"scale(2)\"><rect width=\"1\" height=\"1\"/><rect width=\"1\" height=\"1\"/></g></svg>" );
+		assertTrue( result.contains( "<g fill=\"red\">" ) );
+		assertTrue( result.contains( "<g transform=\"scale(2)\">" ) );
+	}
+}
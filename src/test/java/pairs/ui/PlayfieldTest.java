@@ -0,0 +1,143 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.ui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+
+import org.apache.logging.log4j.core.config.Configurator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pairs.data.Card;
+import pairs.data.CardPackage;
+
+import pairs.model.GameClock;
+import pairs.model.PlayfieldModel;
+
+import pairs.util.Allocations;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation budgets of the playing field and the time display.
+ */
+public class PlayfieldTest {
+	/**
+	 * Bytes a timer tick changing the displayed time may allocate for formatting the time.
+	 */
+	private static final long TIME_FORMAT_BUDGET = 1024;
+
+	/**
+	 * Global test setup.
+	 */
+	@BeforeClass public static void setup() {
+		Configurator.setRootLevel( Level.OFF ); // silence the logger during the tests
+	}
+
+	/**
+	 * Finds a card of a given type.
+	 *
+	 * @param playfieldModel Playfield model.
+	 * @param type Card type.
+	 *
+	 * @return The index of the first card of the specified type is returned.
+	 */
+	private static int findCard( PlayfieldModel playfieldModel, Card.Type type ) {
+		for ( int i = 0; i != playfieldModel.getSize(); ++i ) {
+			if ( playfieldModel.getCard( i ).getType() == type ) {
+				return i;
+			}
+		}
+		fail( "No card of type " + type );
+		return -1;
+	}
+
+	/**
+	 * Showing a card which is already shown does not render or allocate.
+	 */
+	@Test public void showCardAllocationTest() {
+		PlayfieldModel playfieldModel = new PlayfieldModel( CardPackage.getShared( "test" ), 16, 1 );
+		Playfield playfield = new Playfield( null, playfieldModel, null, new GameClock() );
+		for ( Card.Type type: Card.Type.values() ) {
+			final Playfield.CardButton button = playfield.getCardButton( findCard( playfieldModel, type ) );
+			button.setSize( 100, 100 );
+			button.showCard();
+			Allocations.assertBudget( "Showing a shown " + type + " card", new Runnable() {
+				public void run() {
+					button.showCard();
+				}
+			}, 10000, 0 );
+		}
+	}
+
+	/**
+	 * Only clicks which change the playfield are recorded as splits.
+	 */
+	@Test public void repeatClickTest() {
+		PlayfieldModel playfieldModel = new PlayfieldModel( CardPackage.getShared( "test" ), 16, 1 );
+		GameClock gameClock = new GameClock();
+		Playfield playfield = new Playfield( null, playfieldModel, null, gameClock );
+		for ( int i = 0; i != playfieldModel.getSize(); ++i ) {
+			playfield.getCardButton( i ).setSize( 100, 100 );
+		}
+		gameClock.start();
+		playfield.getCardButton( 0 ).doClick( 0 );
+		assertEquals( 0, playfieldModel.getPickedCardIndex() );
+		assertEquals( 1, gameClock.getSplitCount() );
+		playfield.getCardButton( 0 ).doClick( 0 );
+		assertEquals( 0, playfieldModel.getPickedCardIndex() );
+		assertEquals( 1, gameClock.getSplitCount() );
+		playfield.getCardButton( 1 ).doClick( 0 );
+		assertEquals( -1, playfieldModel.getPickedCardIndex() );
+		assertEquals( 2, gameClock.getSplitCount() );
+	}
+
+	/**
+	 * Timer ticks which do not change the displayed time do not allocate.
+	 */
+	@Test public void tickAllocationTest() {
+		final GameClock gameClock = new GameClock();
+		final StatusBar statusBar = new StatusBar();
+		gameClock.start();
+		gameClock.stop();
+		Allocations.assertBudget( "Timer tick", new Runnable() {
+			public void run() {
+				statusBar.setTime( (int) gameClock.getElapsed( TimeUnit.SECONDS ) );
+			}
+		}, 10000, 0 );
+	}
+
+	/**
+	 * Timer ticks which change the displayed time allocate no more than formatting the time.
+	 */
+	@Test public void timeChangeAllocationTest() {
+		final StatusBar statusBar = new StatusBar();
+		Allocations.assertBudget( "Time change", new Runnable() {
+			private int seconds = 0;
+
+			public void run() {
+				seconds = ( seconds + 1 ) % 3600;
+				statusBar.setTime( seconds );
+			}
+		}, 3600, TIME_FORMAT_BUDGET );
+	}
+}
@@ -0,0 +1,104 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.util;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Allocation budget checks for tests.
+ *
+ * Allocations are measured per thread with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ * The measured code runs once before measuring, so one-time allocations such as class loading and
+ * lazily filled caches are not counted against the budget.
+ */
+public class Allocations {
+	/**
+	 * Allocated bytes per measurement tolerated beyond the budget, to absorb measurement noise.
+	 */
+	public static final long SLACK = 1024;
+
+	/**
+	 * Thread management bean.
+	 */
+	private static final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+	/**
+	 * Obtains the thread management bean with allocation accounting enabled.
+	 *
+	 * @return The thread management bean is returned, or null if allocation accounting is not supported.
+	 */
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		if ( !( ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean ) ) {
+			return null;
+		}
+		com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if ( !result.isThreadAllocatedMemorySupported() ) {
+			return null;
+		}
+		result.setThreadAllocatedMemoryEnabled( true );
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far.
+	 *
+	 * @return The number of allocated bytes is returned.
+	 */
+	private static long getAllocatedBytes() {
+		return threadMXBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+	}
+
+	/**
+	 * Measures the allocations of a task.
+	 * The test is skipped if allocation accounting is not supported.
+	 *
+	 * @param task Task to measure.
+	 * @param iterations Number of times to run the task.
+	 *
+	 * @return The number of bytes allocated by running the task the specified number of times is returned.
+	 */
+	public static long measure( Runnable task, int iterations ) {
+		assumeTrue( threadMXBean != null );
+		for ( int i = 0; i != iterations; ++i ) {
+			task.run();
+		}
+		long start = getAllocatedBytes();
+		for ( int i = 0; i != iterations; ++i ) {
+			task.run();
+		}
+		return getAllocatedBytes() - start;
+	}
+
+	/**
+	 * Checks that a task stays within an allocation budget.
+	 *
+	 * @param name Name of the task, for the failure message.
+	 * @param task Task to measure.
+	 * @param iterations Number of times to run the task.
+	 * @param budget Number of bytes each run of the task may allocate.
+	 */
+	public static void assertBudget( String name, Runnable task, int iterations, long budget ) {
+		long allocated = measure( task, iterations );
+		assertTrue( name + " allocated " + allocated + " bytes in " + iterations + " runs, budget is " + budget + " bytes per run",
+				allocated <= budget * iterations + SLACK );
+	}
+}
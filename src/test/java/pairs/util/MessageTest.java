@@ -18,6 +18,8 @@
 
 package pairs.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.logging.log4j.Level;
 
 import org.apache.logging.log4j.core.config.Configurator;
@@ -78,4 +80,54 @@ public class MessageTest {
 		assertEquals( "Testfoobar", Message.__( "test2", "foo", "bar" ) );
 		assertEquals( "Testbarfoo", Message.__( "test3", "foo", "bar" ) );
 	}
+
+	/**
+	 * Repeated lookups yield the same results.
+	 */
+	@Test public void cacheTest() {
+		assertSame( Message.__( "test0" ), Message.__( "test0" ) );
+		assertEquals( "Testfoo", Message.__( "test1", "foo" ) );
+		assertEquals( "Testbar", Message.__( "test1", "bar" ) );
+		assertEquals( "", Message.__( "foo" ) );
+		assertTrue( Message.isEmpty( "foo" ) );
+		assertEquals( "Testbarfoo", Message.get( "test3", "foo", "bar" ).toString() );
+	}
+
+	/**
+	 * Concurrent formatting test.
+	 */
+	@Test public void concurrentTest() throws InterruptedException {
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] threads = new Thread[ 4 ];
+		for ( int t = 0; t != threads.length; ++t ) {
+			final String arg = Integer.toString( t );
+			threads[ t ] = new Thread() {
+				public @Override void run() {
+					for ( int i = 0; i != 10000; ++i ) {
+						if ( !( "Test" + arg + i ).equals( Message.__( "test2", arg, Integer.toString( i ) ) ) ) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[ t ].start();
+		}
+		for ( Thread thread: threads ) {
+			thread.join();
+		}
+		assertEquals( 0, failures.get() );
+	}
+
+	/**
+	 * Lookups without arguments do not allocate once the message is cached.
+	 */
+	@Test public void allocationTest() {
+		Allocations.assertBudget( "Message lookup", new Runnable() {
+			public void run() {
+				Message.__( "test0" );
+				Message.__( "foo" );
+				Message.__( MessageKeys.LABEL_TIME );
+			}
+		}, 10000, 0 );
+	}
 }
@@ -0,0 +1,96 @@
+/*
+    Pairs, a concentration game with modular card packages.
+    Copyright © 2012  Alexander Klauer
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package pairs.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Randomness utilities test.
+ */
+public class RandomTest {
+	/**
+	 * Creates an array of consecutive integers.
+	 *
+	 * @param length Array length.
+	 *
+	 * @return An array containing 0 to length - 1 in ascending order is returned.
+	 */
+	private static Integer[] sequence( int length ) {
+		Integer[] result = new Integer[ length ];
+		for ( int i = 0; i != length; ++i ) {
+			result[ i ] = i;
+		}
+		return result;
+	}
+
+	/**
+	 * Equal seeds yield equal permutations.
+	 */
+	@Test public void reproducibleTest() {
+		Integer[] first = sequence( 100 );
+		Integer[] second = sequence( 100 );
+		Random.randomiseArray( first, new SplittableRandom( 42 ) );
+		Random.randomiseArray( second, new SplittableRandom( 42 ) );
+		assertArrayEquals( first, second );
+		assertFalse( Arrays.equals( sequence( 100 ), first ) );
+	}
+
+	/**
+	 * Randomisation yields a permutation.
+	 */
+	@Test public void permutationTest() {
+		Integer[] array = sequence( 100 );
+		Random.randomiseArray( array );
+		Arrays.sort( array );
+		assertArrayEquals( sequence( 100 ), array );
+	}
+
+	/**
+	 * Derived seeds differ between streams and do not depend on the derivation order.
+	 */
+	@Test public void deriveSeedTest() {
+		assertEquals( Random.deriveSeed( 7, 3 ), Random.deriveSeed( 7, 3 ) );
+		assertNotEquals( Random.deriveSeed( 7, 3 ), Random.deriveSeed( 7, 4 ) );
+		assertNotEquals( Random.deriveSeed( 7, 3 ), Random.deriveSeed( 8, 3 ) );
+	}
+
+	/**
+	 * Sampled indices are distinct and in range.
+	 */
+	@Test public void sampleIndicesTest() {
+		SplittableRandom random = new SplittableRandom( 1 );
+		int[] sample = Random.sampleIndices( 1000000, 1000, random );
+		assertEquals( 1000, sample.length );
+		Arrays.sort( sample );
+		for ( int i = 0; i != sample.length; ++i ) {
+			assertTrue( ( sample[ i ] >= 0 ) && ( sample[ i ] < 1000000 ) );
+			assertTrue( ( i == 0 ) || ( sample[ i - 1 ] < sample[ i ] ) );
+		}
+		int[] full = Random.sampleIndices( 50, 50, random );
+		Arrays.sort( full );
+		for ( int i = 0; i != full.length; ++i ) {
+			assertEquals( i, full[ i ] );
+		}
+	}
+}